@@ -0,0 +1,54 @@
+package be.delomid.oneapp.mschat.mschat.config;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token checks done on every HTTP request and STOMP CONNECT: a first verification (signature and claims),
+ * then the cached path taken by later requests carrying the same token.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtConfigBenchmark {
+
+    private static final String SECRET = "mySecretKey123456789012345678901234567890123456789012345678901234567890";
+    private static final String EMAIL = "resident@example.com";
+
+    private JwtConfig jwtConfig;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtConfig = new JwtConfig(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(jwtConfig, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtConfig, "expiration", 86400000L);
+        ReflectionTestUtils.setField(jwtConfig, "refreshExpiration", 604800000L);
+        ReflectionTestUtils.setField(jwtConfig, "verifiedCacheSize", 10000);
+        jwtConfig.init();
+        token = jwtConfig.generateTokenWithBuilding(EMAIL, "user-42", "RESIDENT", "building-7", "RESIDENT", 3L);
+    }
+
+    /**
+     * Signature check and claim parsing, without the verified-token cache.
+     */
+    @Benchmark
+    public String parseAndVerify() {
+        return jwtConfig.extractClaim(token, Claims::getSubject);
+    }
+
+    @Benchmark
+    public boolean validateCached() {
+        return jwtConfig.validateToken(token, EMAIL);
+    }
+}
@@ -0,0 +1,128 @@
+package be.delomid.oneapp.mschat.mschat.interceptor;
+
+import be.delomid.oneapp.mschat.mschat.config.AppConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One broadcast through the simple broker to every subscriber of a channel topic, including the outbound
+ * interceptors. The outbound channel is synchronous, so the time covers the fan-out and the per-session
+ * encoding but not the socket writes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BroadcastFanoutBenchmark {
+
+    private static final String CHANNEL_TOPIC = "/topic/channel/42";
+    private static final String TYPING_TOPIC = "/topic/channel/42/typing";
+
+    @Param({"10", "100", "1000"})
+    public int subscribers;
+
+    @Param({"json", "cbor"})
+    public String format;
+
+    private SimpleBrokerMessageHandler broker;
+    private final AtomicLong delivered = new AtomicLong();
+    private byte[] messageJson;
+    private byte[] typingJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        PayloadFormatInterceptor payloadFormatInterceptor = new PayloadFormatInterceptor(objectMapper, meterRegistry);
+
+        // Sans executor, le canal sortant livre dans le thread appelant
+        ExecutorSubscribableChannel clientOutbound = new ExecutorSubscribableChannel();
+        clientOutbound.setInterceptors(List.of(payloadFormatInterceptor,
+                new SlowConsumerInterceptor(new AppConfig(), meterRegistry)));
+        clientOutbound.subscribe(message -> delivered.incrementAndGet());
+
+        broker = new SimpleBrokerMessageHandler(new ExecutorSubscribableChannel(), clientOutbound,
+                new ExecutorSubscribableChannel(), List.of("/topic"));
+        broker.start();
+
+        for (int i = 0; i < subscribers; i++) {
+            String sessionId = "session-" + i;
+            StompHeaderAccessor connect = StompHeaderAccessor.create(StompCommand.CONNECT);
+            connect.setSessionId(sessionId);
+            connect.setNativeHeader(PayloadFormatInterceptor.PAYLOAD_FORMAT_HEADER, format);
+            payloadFormatInterceptor.onConnect(new SessionConnectEvent(this,
+                    MessageBuilder.createMessage(new byte[0], connect.getMessageHeaders())));
+
+            subscribe(sessionId, "sub-0", CHANNEL_TOPIC);
+            subscribe(sessionId, "sub-1", TYPING_TOPIC);
+        }
+
+        messageJson = objectMapper.writeValueAsBytes(Map.of(
+                "id", 1001, "channelId", 42, "senderId", "user-42", "type", "TEXT",
+                "content", "Bonjour à tous, la réunion de copropriété est reportée à jeudi 19h dans le hall.",
+                "createdAt", "2025-01-15T18:30:00", "isEdited", false, "isDeleted", false));
+        typingJson = "{\"userId\":\"user-42\",\"typing\":true}".getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() {
+        broker.stop();
+    }
+
+    /**
+     * New message broadcast on a channel topic. A fresh payload array per broadcast, as the broker receives
+     * from {@code convertAndSend}, so binary sessions pay one encoding per broadcast.
+     */
+    @Benchmark
+    public long broadcastMessage() {
+        broker.handleMessage(broadcast(CHANNEL_TOPIC, messageJson.clone()));
+        return delivered.get();
+    }
+
+    @Benchmark
+    public long broadcastTyping() {
+        broker.handleMessage(broadcast(TYPING_TOPIC, typingJson.clone()));
+        return delivered.get();
+    }
+
+    private void subscribe(String sessionId, String subscriptionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        broker.handleMessage(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+    }
+
+    private static Message<byte[]> broadcast(String destination, byte[] payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+}
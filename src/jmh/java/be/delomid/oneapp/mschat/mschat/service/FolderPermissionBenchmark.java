@@ -0,0 +1,83 @@
+package be.delomid.oneapp.mschat.mschat.service;
+
+import be.delomid.oneapp.mschat.mschat.model.Apartment;
+import be.delomid.oneapp.mschat.mschat.model.Folder;
+import be.delomid.oneapp.mschat.mschat.model.FolderPermission;
+import be.delomid.oneapp.mschat.mschat.model.Resident;
+import be.delomid.oneapp.mschat.mschat.model.ShareType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read permission check run for every folder listed by the document endpoints. Folders shared with specific
+ * apartments hold one permission per apartment or resident; the granted case matches the last one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FolderPermissionBenchmark {
+
+    @Param({"10", "100", "500"})
+    public int permissions;
+
+    private DocumentService documentService;
+    private Folder sharedWithApartments;
+    private Folder sharedWithAll;
+    private String grantedResidentId;
+    private String grantedApartmentId;
+
+    @Setup
+    public void setUp() {
+        // checkFolderReadPermission n'utilise aucune dépendance
+        documentService = new DocumentService(null, null, null, null, null, null, null, null);
+
+        List<FolderPermission> grants = new ArrayList<>(permissions);
+        for (int i = 0; i < permissions; i++) {
+            FolderPermission.FolderPermissionBuilder grant = FolderPermission.builder().canRead(true);
+            // Moitié par appartement, moitié par résident, comme les partages créés depuis l'application
+            if (i % 2 == 0) {
+                grant.apartment(Apartment.builder().idApartment("apt-" + i).build());
+            } else {
+                grant.resident(Resident.builder().idUsers("user-" + i).build());
+            }
+            grants.add(grant.build());
+        }
+        sharedWithApartments = Folder.builder()
+                .id(1L).name("Procès-verbaux").createdBy("user-admin")
+                .shareType(ShareType.SPECIFIC_APARTMENTS).permissions(grants)
+                .build();
+        sharedWithAll = Folder.builder()
+                .id(2L).name("Règlement").createdBy("user-admin").shareType(ShareType.ALL_APARTMENTS)
+                .build();
+
+        // Correspondance sur la dernière permission : parcours complet de la liste
+        int last = permissions - 1;
+        grantedResidentId = last % 2 == 0 ? "user-unknown" : "user-" + last;
+        grantedApartmentId = last % 2 == 0 ? "apt-" + last : "apt-unknown";
+    }
+
+    @Benchmark
+    public boolean specificApartmentsGranted() {
+        return documentService.checkFolderReadPermission(sharedWithApartments, grantedResidentId, grantedApartmentId);
+    }
+
+    @Benchmark
+    public boolean specificApartmentsDenied() {
+        return documentService.checkFolderReadPermission(sharedWithApartments, "user-unknown", "apt-unknown");
+    }
+
+    @Benchmark
+    public boolean sharedWithAllApartments() {
+        return documentService.checkFolderReadPermission(sharedWithAll, "user-unknown", "apt-unknown");
+    }
+}
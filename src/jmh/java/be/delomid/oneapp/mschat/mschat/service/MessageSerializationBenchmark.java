@@ -0,0 +1,139 @@
+package be.delomid.oneapp.mschat.mschat.service;
+
+import be.delomid.oneapp.mschat.mschat.dto.ChannelDto;
+import be.delomid.oneapp.mschat.mschat.dto.ChannelMemberDto;
+import be.delomid.oneapp.mschat.mschat.dto.MessageDto;
+import be.delomid.oneapp.mschat.mschat.dto.MessageWireDto;
+import be.delomid.oneapp.mschat.mschat.model.Channel;
+import be.delomid.oneapp.mschat.mschat.model.ChannelType;
+import be.delomid.oneapp.mschat.mschat.model.FileAttachment;
+import be.delomid.oneapp.mschat.mschat.model.FileType;
+import be.delomid.oneapp.mschat.mschat.model.MemberRole;
+import be.delomid.oneapp.mschat.mschat.model.Message;
+import be.delomid.oneapp.mschat.mschat.model.MessageType;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO mapping of a message and the JSON serialization of the DTOs returned by the message and
+ * channel endpoints and broadcast over STOMP, against the CBOR encoding of {@link MessageWireDto} sent to
+ * sessions that negotiated {@code payload-format: cbor}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MessageSerializationBenchmark {
+
+    private MessageService messageService;
+    // Configuré comme l'ObjectMapper de Spring Boot (spring.jackson.*)
+    private ObjectMapper objectMapper;
+    private ObjectMapper cborMapper;
+    private Message textMessage;
+    private Message fileMessage;
+    private MessageDto messageDto;
+    private ChannelDto channelDto;
+    private byte[] messageJson;
+
+    @Setup
+    public void setUp() {
+        // convertToDto n'utilise aucune dépendance
+        messageService = new MessageService(null, null, null, null, null, null, null, null, null, null, null, null);
+        objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        // Comme PayloadFormatInterceptor
+        cborMapper = new CBORMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        Channel channel = Channel.builder().id(42L).name("Résidence Les Tilleuls").type(ChannelType.BUILDING).build();
+        LocalDateTime now = LocalDateTime.now();
+        textMessage = Message.builder()
+                .id(1001L).channel(channel).sequenceNumber(512L).senderId("user-42")
+                .content("Bonjour à tous, la réunion de copropriété est reportée à jeudi 19h dans le hall.")
+                .type(MessageType.TEXT).createdAt(now).updatedAt(now)
+                .build();
+        fileMessage = Message.builder()
+                .id(1002L).channel(channel).sequenceNumber(513L).senderId("user-43")
+                .content("Photo du compteur").type(MessageType.IMAGE).createdAt(now)
+                .fileAttachment(FileAttachment.builder()
+                        .id(77L).originalFilename("compteur.jpg").storedFilename("5f0c2e1a-compteur.jpg")
+                        .filePath("uploads/images/5f0c2e1a-compteur.jpg").fileSize(482_113L)
+                        .mimeType("image/jpeg").fileType(FileType.IMAGE).uploadedBy("user-43")
+                        .thumbnailPath("thumbnails/5f0c2e1a-compteur.jpg").createdAt(now)
+                        .build())
+                .build();
+        messageDto = messageService.convertToDto(fileMessage);
+        try {
+            messageJson = objectMapper.writeValueAsBytes(messageDto);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+
+        List<ChannelMemberDto> members = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            members.add(ChannelMemberDto.builder().id((long) i).userId("user-" + i).role(MemberRole.MEMBER)
+                    .canWrite(true).isActive(true).joinedAt(now).build());
+        }
+        channelDto = ChannelDto.builder()
+                .id(42L).name("Résidence Les Tilleuls").description("Canal de l'immeuble")
+                .type(ChannelType.BUILDING).buildingId("building-7").createdBy("user-1")
+                .isActive(true).isPrivate(false).createdAt(now).updatedAt(now)
+                .memberCount((long) members.size()).members(members).lastMessage(messageDto)
+                .build();
+    }
+
+    @Benchmark
+    public MessageDto convertTextMessage() {
+        return messageService.convertToDto(textMessage);
+    }
+
+    @Benchmark
+    public MessageDto convertFileMessage() {
+        return messageService.convertToDto(fileMessage);
+    }
+
+    @Benchmark
+    public byte[] serializeMessageDto() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(messageDto);
+    }
+
+    @Benchmark
+    public byte[] serializeChannelDto() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(channelDto);
+    }
+
+    @Benchmark
+    public byte[] convertAndSerializeMessage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(messageService.convertToDto(fileMessage));
+    }
+
+    @Benchmark
+    public byte[] serializeMessageWireDtoCbor() throws JsonProcessingException {
+        return cborMapper.writeValueAsBytes(MessageWireDto.from(messageDto));
+    }
+
+    /**
+     * Extra work per broadcast for CBOR sessions: the broker payload is JSON, re-read then encoded as in
+     * {@code PayloadFormatInterceptor}.
+     */
+    @Benchmark
+    public byte[] transcodeMessageJsonToCbor() throws IOException {
+        JsonNode tree = objectMapper.readTree(messageJson);
+        return cborMapper.writeValueAsBytes(MessageWireDto.from(objectMapper.treeToValue(tree, MessageDto.class)));
+    }
+}
@@ -0,0 +1,57 @@
+package be.delomid.oneapp.mschat.mschat.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups of the current building, user and role done by most service methods, against an HTTP
+ * authentication as set by the JWT filter.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SecurityContextUtilBenchmark {
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Le contexte est lié au thread : un état par thread de benchmark
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                "resident@example.com", null, List.of(new SimpleGrantedAuthority("ROLE_RESIDENT")));
+        authentication.setDetails(Map.of("userId", "user-42", "buildingId", "building-7", "role", "RESIDENT"));
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public String currentBuildingId() {
+        return SecurityContextUtil.getCurrentBuildingId();
+    }
+
+    @Benchmark
+    public String currentUserId() {
+        return SecurityContextUtil.getCurrentUserId();
+    }
+
+    @Benchmark
+    public String currentUserRole() {
+        return SecurityContextUtil.getCurrentUserRole();
+    }
+}
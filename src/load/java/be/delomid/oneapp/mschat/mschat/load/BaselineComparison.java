@@ -0,0 +1,68 @@
+package be.delomid.oneapp.mschat.mschat.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.PrintStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares a workload result with a stored baseline of the same shape ({@code {section: {name: metrics}}}).
+ * A metric regresses when it is worse than the baseline by more than the tolerance; p99.9 is reported by the
+ * harness but left out of the comparison, a single slow request moves it.
+ */
+public class BaselineComparison {
+
+    private static final List<String> HIGHER_IS_WORSE = List.of("p50Ms", "p99Ms", "statementsPerOp");
+    private static final List<String> LOWER_IS_WORSE = List.of("throughputPerSec");
+
+    private final double tolerancePercent;
+    private int regressions;
+
+    public BaselineComparison(double tolerancePercent) {
+        this.tolerancePercent = tolerancePercent;
+    }
+
+    public int getRegressions() {
+        return regressions;
+    }
+
+    public void compare(JsonNode baseline, JsonNode current, PrintStream out) {
+        out.printf("%-40s %-18s %12s %12s %9s%n", "", "", "référence", "actuel", "écart");
+        for (Iterator<Map.Entry<String, JsonNode>> sections = current.fields(); sections.hasNext(); ) {
+            Map.Entry<String, JsonNode> section = sections.next();
+            for (Iterator<Map.Entry<String, JsonNode>> entries = section.getValue().fields(); entries.hasNext(); ) {
+                Map.Entry<String, JsonNode> entry = entries.next();
+                JsonNode reference = baseline.path(section.getKey()).path(entry.getKey());
+                if (reference.isMissingNode()) {
+                    out.printf("%-40s absent de la référence%n", entry.getKey());
+                    continue;
+                }
+                for (String metric : HIGHER_IS_WORSE) {
+                    compare(out, entry.getKey(), metric, reference.path(metric), entry.getValue().path(metric), true);
+                }
+                for (String metric : LOWER_IS_WORSE) {
+                    compare(out, entry.getKey(), metric, reference.path(metric), entry.getValue().path(metric), false);
+                }
+            }
+        }
+    }
+
+    private void compare(PrintStream out, String name, String metric, JsonNode reference, JsonNode current,
+                         boolean higherIsWorse) {
+        if (!reference.isNumber() || !current.isNumber()) {
+            return;
+        }
+        double before = reference.asDouble();
+        double after = current.asDouble();
+        double delta = before == 0 ? (after == 0 ? 0 : 100) : 100 * (after - before) / before;
+        boolean worse = higherIsWorse ? delta > tolerancePercent : delta < -tolerancePercent;
+        boolean better = higherIsWorse ? delta < -tolerancePercent : delta > tolerancePercent;
+        if (worse) {
+            regressions++;
+        }
+        out.printf("%-40s %-18s %12.3f %12.3f %+8.1f%% %s%n", name, metric, before, after, delta,
+                worse ? "RÉGRESSION" : better ? "amélioration" : "");
+    }
+}
@@ -0,0 +1,946 @@
+package be.delomid.oneapp.mschat.mschat.load;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Synthetic production-scale dataset for performance tests, loaded with {@code COPY} into a schema migrated by
+ * Flyway (start the application once on the target database):
+ * <ul>
+ *     <li>buildings of log-normal size, one apartment and one {@code ResidentBuilding} link per resident, the
+ *     first resident of each building being its administrator, a share of residents linked to a second
+ *     building;</li>
+ *     <li>one building channel per building, group channels and direct conversations;</li>
+ *     <li>messages spread over channels with a heavy tail (a few very busy channels), over the last months and
+ *     following the hours of the day, numbered per channel;</li>
+ *     <li>votes with options and ballots in building and group channels;</li>
+ *     <li>shared, restricted and private folders, documents and their placeholder files.</li>
+ * </ul>
+ * Residents are {@code resident0@load.mschat.test}, {@code resident1@…} with the load tools' password, ready
+ * for {@link StompLoadSimulator} and {@link RestWorkloadHarness}. Messages are loaded by {@code --threads}
+ * connections in parallel, votes and documents alongside. The same {@code --seed} gives the same dataset.
+ * <p>
+ * Options: {@code --jdbc-url, --db-user, --db-password, --reset, --seed, --buildings, --residents,
+ * --first-resident, --email-pattern, --password, --building-prefix, --multi-building-share, --group-channels,
+ * --direct-channels, --messages, --channel-skew, --months, --votes-per-channel, --folders-per-building,
+ * --documents-per-folder, --private-folder-share, --documents-dir, --document-bytes, --skip-files, --threads,
+ * --skip-vacuum}.
+ */
+public class DatasetGenerator {
+
+    private static final String[] FIRST_NAMES = {"Camille", "Lucas", "Léa", "Hugo", "Manon", "Louis", "Emma",
+            "Nathan", "Chloé", "Théo", "Sarah", "Adam", "Inès", "Noah", "Julie", "Yanis", "Lina", "Mehdi", "Alice",
+            "Arthur", "Clara", "Gabriel", "Zoé", "Jules", "Nora", "Sami", "Eva", "Tom", "Amira", "Victor"};
+    private static final String[] LAST_NAMES = {"Martin", "Bernard", "Dubois", "Thomas", "Robert", "Richard",
+            "Petit", "Durand", "Leroy", "Moreau", "Simon", "Laurent", "Lefebvre", "Michel", "Garcia", "David",
+            "Bertrand", "Roux", "Vincent", "Fournier", "Peeters", "Janssens", "Maes", "Jacobs", "Mertens",
+            "Willems", "Claes", "Goossens", "Wouters", "Benali", "Haddad", "Mansouri", "Trabelsi", "Lambert"};
+    private static final String[] STREETS = {"rue de la Loi", "avenue Louise", "rue Royale", "boulevard Anspach",
+            "rue Neuve", "chaussée de Waterloo", "avenue de Tervueren", "rue du Midi", "place Flagey",
+            "rue des Tanneurs", "avenue Brugmann", "rue de la Station", "rue de l'Église", "avenue des Tilleuls"};
+    private static final String[] CITIES = {"Bruxelles", "Liège", "Namur", "Charleroi", "Mons", "Louvain-la-Neuve",
+            "Wavre", "Ixelles", "Uccle", "Schaerbeek", "Anderlecht", "Etterbeek"};
+    private static final String[] WORDS = {"bonjour", "merci", "la", "le", "les", "de", "des", "un", "une", "et",
+            "pour", "avec", "demain", "ce", "soir", "ascenseur", "parking", "colis", "réunion", "syndic", "poubelles",
+            "chauffage", "eau", "chaude", "porte", "entrée", "cave", "vélo", "travaux", "bruit", "voisins", "fête",
+            "jardin", "clé", "facture", "charges", "assemblée", "vote", "proposition", "est", "sont", "a", "avons",
+            "peut", "faut", "quelqu'un", "encore", "déjà", "bientôt", "toujours", "ici", "là", "au", "du", "en",
+            "panne", "réparé", "livraison", "rez-de-chaussée", "étage", "concierge", "badge", "boîte", "lettres"};
+    private static final String[] GROUP_NAMES = {"Conseil syndical", "Parents de l'immeuble", "Jardin partagé",
+            "Covoiturage", "Entraide", "Suivi des travaux", "Local vélos", "Fête des voisins"};
+    private static final String[] FOLDER_NAMES = {"Règlement", "PV d'assemblée", "Factures", "Contrats",
+            "Travaux", "Assurances", "Plans", "Décomptes de charges"};
+    private static final String[] VOTE_TITLES = {"Remplacement de l'ascenseur", "Date de l'assemblée générale",
+            "Ravalement de façade", "Installation de bornes de recharge", "Horaires du local vélos",
+            "Choix du nouveau syndic", "Rénovation du hall d'entrée", "Contrat d'entretien du jardin"};
+    private static final String[] YES_NO = {"Pour", "Contre", "Abstention"};
+    // Poids des heures de la journée : creux la nuit, pics le matin et en soirée
+    private static final double[] HOUR_WEIGHTS = {0.3, 0.15, 0.1, 0.1, 0.1, 0.2, 0.6, 1.4, 2.0, 1.8, 1.5, 1.5,
+            1.9, 1.8, 1.4, 1.4, 1.6, 2.1, 2.6, 2.8, 2.7, 2.2, 1.4, 0.7};
+    private static final String[] TABLES = {"user_votes", "vote_options", "votes", "documents",
+            "folder_permissions", "folders", "messages", "channel_members", "channels", "resident_buildings",
+            "apartments", "residents", "buildings", "addresses"};
+    private static final int APARTMENTS_PER_FLOOR = 6;
+    private static final int MAX_GROUP_MEMBERS = 40;
+
+    private final LoadOptions options;
+    private final long seed;
+    private final LocalDateTime now = LocalDateTime.now().withNano(0);
+    private final LocalDateTime historyStart;
+    private final long historySeconds;
+    private final long firstDayOffset;
+    private final double[] cumulativeHours = new double[HOUR_WEIGHTS.length];
+    private final Map<String, Long> rowCounts = new LinkedHashMap<>();
+    private final AtomicLong messagesWritten = new AtomicLong();
+
+    // Univers en mémoire : les résidents d'un immeuble sont contigus, de buildingStart[b] à buildingStart[b + 1]
+    private String[] buildingIds;
+    private int[] buildingStart;
+    private int[] residentBuilding;
+    private int[] secondBuilding;
+    private String[] residentIds;
+    private final List<ChannelPlan> channels = new ArrayList<>();
+    private long addressIdBase;
+    private long voteIdBase;
+    private long voteOptionIdBase;
+    private long folderIdBase;
+
+    public DatasetGenerator(LoadOptions options) {
+        this.options = options;
+        this.seed = options.getLong("seed", 42);
+        this.historyStart = now.minusMonths(options.getInt("months", 12));
+        this.historySeconds = Duration.between(historyStart, now).getSeconds() - 60;
+        this.firstDayOffset = Duration.between(historyStart.toLocalDate().atStartOfDay(), historyStart).getSeconds();
+        double total = Arrays.stream(HOUR_WEIGHTS).sum();
+        double cumulative = 0;
+        for (int hour = 0; hour < HOUR_WEIGHTS.length; hour++) {
+            cumulative += HOUR_WEIGHTS[hour] / total;
+            cumulativeHours[hour] = cumulative;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new DatasetGenerator(new LoadOptions(args)).run();
+    }
+
+    public void run() throws Exception {
+        long started = System.nanoTime();
+        try (Connection connection = connect()) {
+            checkSchema(connection);
+            if (options.has("reset")) {
+                reset(connection);
+            }
+            planUniverse(connection);
+            loadPeople(connection);
+            loadChannels(connection);
+            preparePartitions(connection);
+        }
+
+        int threads = options.getInt("threads", Math.max(2, Runtime.getRuntime().availableProcessors()));
+        ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dataset-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long total = channels.stream().mapToLong(ChannelPlan::messageCount).sum();
+        long loadStarted = System.nanoTime();
+        progress.scheduleAtFixedRate(() -> printMessageProgress(total, loadStarted), 5, 5, TimeUnit.SECONDS);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 2);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            List<List<ChannelPlan>> slices = messageSlices(threads);
+            for (int i = 0; i < slices.size(); i++) {
+                List<ChannelPlan> slice = slices.get(i);
+                long sliceSeed = seed + 1000 + i;
+                tasks.add(executor.submit(() -> {
+                    loadMessages(slice, new SplittableRandom(sliceSeed));
+                    return null;
+                }));
+            }
+            tasks.add(executor.submit(() -> {
+                loadVotes(new SplittableRandom(seed + 1));
+                return null;
+            }));
+            tasks.add(executor.submit(() -> {
+                loadDocuments(new SplittableRandom(seed + 2));
+                return null;
+            }));
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            executor.shutdownNow();
+            progress.shutdownNow();
+        }
+        printMessageProgress(total, loadStarted);
+
+        try (Connection connection = connect()) {
+            resetSequences(connection);
+            if (!options.has("skip-vacuum")) {
+                vacuumAnalyze(connection);
+            }
+        }
+        printSummary(Duration.ofNanos(System.nanoTime() - started));
+    }
+
+    private Connection connect() throws SQLException {
+        Connection connection = DriverManager.getConnection(
+                options.get("jdbc-url", "jdbc:postgresql://localhost:5432/mschat_db"),
+                options.get("db-user", "admin"),
+                options.get("db-password", ""));
+        connection.setAutoCommit(false);
+        return connection;
+    }
+
+    private void checkSchema(Connection connection) throws SQLException {
+        if (queryLong(connection, "SELECT COUNT(*) FROM information_schema.tables "
+                + "WHERE table_schema = current_schema() AND table_name = 'residents'") == 0) {
+            throw new IllegalStateException("Schéma absent : démarrer l'application une fois sur cette base "
+                    + "pour appliquer les migrations Flyway");
+        }
+    }
+
+    private void reset(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("TRUNCATE " + String.join(", ", TABLES) + " RESTART IDENTITY CASCADE");
+        }
+        connection.commit();
+        System.out.println("Tables vidées : " + String.join(", ", TABLES));
+    }
+
+    // ---------------------------------------------------------------------------------------------------------
+    // Plan de l'univers
+    // ---------------------------------------------------------------------------------------------------------
+
+    private void planUniverse(Connection connection) throws SQLException {
+        SplittableRandom random = new SplittableRandom(seed);
+        int buildingCount = options.getInt("buildings", 2000);
+        int residentCount = options.getInt("residents", 100_000);
+        if (residentCount < buildingCount) {
+            throw new IllegalArgumentException("--residents doit être au moins égal à --buildings");
+        }
+
+        // Beaucoup de petites copropriétés, quelques grandes résidences ; un résident au moins par immeuble
+        long[] sizes = distribute(residentCount - buildingCount, logNormalWeights(random, buildingCount, 0.8));
+        String prefix = options.get("building-prefix", "LT");
+        buildingIds = new String[buildingCount];
+        buildingStart = new int[buildingCount + 1];
+        residentBuilding = new int[residentCount];
+        for (int b = 0; b < buildingCount; b++) {
+            buildingIds[b] = String.format(Locale.ROOT, "%s-%05d", prefix, b + 1);
+            buildingStart[b + 1] = buildingStart[b] + 1 + (int) sizes[b];
+            Arrays.fill(residentBuilding, buildingStart[b], buildingStart[b + 1], b);
+        }
+
+        residentIds = new String[residentCount];
+        for (int i = 0; i < residentCount; i++) {
+            residentIds[i] = UUID.nameUUIDFromBytes(email(i).getBytes(StandardCharsets.UTF_8)).toString();
+        }
+
+        double multiBuildingShare = options.getDouble("multi-building-share", 0.05);
+        secondBuilding = new int[residentCount];
+        for (int i = 0; i < residentCount; i++) {
+            secondBuilding[i] = buildingCount > 1 && random.nextDouble() < multiBuildingShare
+                    ? (residentBuilding[i] + 1 + random.nextInt(buildingCount - 1)) % buildingCount
+                    : -1;
+        }
+
+        planChannels(random, connection);
+        addressIdBase = nextId(connection, "addresses", "id_address");
+        voteIdBase = nextId(connection, "votes", "id");
+        voteOptionIdBase = nextId(connection, "vote_options", "id");
+        folderIdBase = nextId(connection, "folders", "id");
+    }
+
+    private void planChannels(SplittableRandom random, Connection connection) throws SQLException {
+        long channelId = nextId(connection, "channels", "id");
+        int buildingCount = buildingIds.length;
+        int groupsPerBuilding = options.getInt("group-channels", 3);
+
+        List<List<Integer>> secondResidents = new ArrayList<>();
+        for (int b = 0; b < buildingCount; b++) {
+            secondResidents.add(new ArrayList<>());
+        }
+        for (int i = 0; i < residentIds.length; i++) {
+            if (secondBuilding[i] >= 0) {
+                secondResidents.get(secondBuilding[i]).add(i);
+            }
+        }
+
+        for (int b = 0; b < buildingCount; b++) {
+            int from = buildingStart[b];
+            int size = buildingStart[b + 1] - from;
+            int[] members = new int[size + secondResidents.get(b).size()];
+            for (int k = 0; k < size; k++) {
+                members[k] = from + k;
+            }
+            for (int k = 0; k < secondResidents.get(b).size(); k++) {
+                members[size + k] = secondResidents.get(b).get(k);
+            }
+            channels.add(new ChannelPlan(channelId++, b, "BUILDING", "Immeuble " + buildingIds[b], from, members,
+                    channelCreatedAt(random)));
+
+            int groups = size < 3 ? 0 : random.nextInt(2 * groupsPerBuilding + 1);
+            for (int g = 0; g < groups; g++) {
+                int[] groupMembers = sample(random, from, from + size,
+                        Math.min(size, 3 + random.nextInt(MAX_GROUP_MEMBERS - 2)));
+                String name = GROUP_NAMES[random.nextInt(GROUP_NAMES.length)];
+                channels.add(new ChannelPlan(channelId++, b, "GROUP", name, groupMembers[0], groupMembers,
+                        channelCreatedAt(random)));
+            }
+        }
+
+        // Conversations privées entre voisins : plus nombreuses dans les grands immeubles
+        int directChannels = (int) (residentIds.length * options.getDouble("direct-channels", 0.25));
+        for (int d = 0; d < directChannels; d++) {
+            int first = random.nextInt(residentIds.length);
+            int b = residentBuilding[first];
+            int size = buildingStart[b + 1] - buildingStart[b];
+            if (size < 2) {
+                continue;
+            }
+            int second = buildingStart[b] + random.nextInt(size);
+            if (second == first) {
+                continue;
+            }
+            channels.add(new ChannelPlan(channelId++, b, "ONE_TO_ONE", firstName(second) + " " + lastName(second),
+                    first, new int[]{first, second}, channelCreatedAt(random)));
+        }
+
+        // Longue traîne : le volume d'un canal croît avec sa taille, avec une forte dispersion log-normale
+        double skew = options.getDouble("channel-skew", 1.5);
+        double[] weights = new double[channels.size()];
+        for (int c = 0; c < weights.length; c++) {
+            weights[c] = Math.sqrt(channels.get(c).members().length) * Math.exp(skew * random.nextGaussian());
+        }
+        long[] counts = distribute(options.getLong("messages", 10_000_000), weights);
+        for (int c = 0; c < counts.length; c++) {
+            channels.set(c, channels.get(c).withMessageCount(counts[c]));
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------------------
+    // Immeubles, résidents, canaux
+    // ---------------------------------------------------------------------------------------------------------
+
+    private void loadPeople(Connection connection) throws SQLException {
+        SplittableRandom random = new SplittableRandom(seed + 3);
+        long started = System.nanoTime();
+        Long countryId = queryLongOrNull(connection, "SELECT id FROM countries WHERE code_iso3 = 'BEL'");
+        LocalDateTime createdAt = historyStart.minusMonths(1);
+
+        try (CopyWriter copy = new CopyWriter(connection, "addresses",
+                "id_address, pays_id, address, code_postal, ville")) {
+            for (int b = 0; b < buildingIds.length; b++) {
+                copy.add(addressIdBase + b).add(countryId)
+                        .add((1 + random.nextInt(200)) + " " + STREETS[random.nextInt(STREETS.length)])
+                        .add(String.valueOf(1000 + random.nextInt(9000))).add(CITIES[random.nextInt(CITIES.length)]);
+                copy.endRow();
+            }
+            count("addresses", copy);
+        }
+        try (CopyWriter copy = new CopyWriter(connection, "buildings",
+                "building_id, building_label, building_number, year_of_construction, address_id, created_at")) {
+            for (int b = 0; b < buildingIds.length; b++) {
+                copy.add(buildingIds[b]).add("Résidence " + LAST_NAMES[random.nextInt(LAST_NAMES.length)])
+                        .add(String.valueOf(b + 1)).add(1950 + random.nextInt(73)).add(addressIdBase + b)
+                        .add(createdAt);
+                copy.endRow();
+            }
+            count("buildings", copy);
+        }
+
+        String passwordHash = new BCryptPasswordEncoder(options.getInt("bcrypt-strength", 10))
+                .encode(options.get("password", "LoadTest123!"));
+        try (CopyWriter copy = new CopyWriter(connection, "residents",
+                "id_users, fname, lname, email, password, phone_number, role, account_status, is_enabled, "
+                        + "is_account_non_expired, is_account_non_locked, is_credentials_non_expired, "
+                        + "managed_building_id, token_version, created_at, updated_at")) {
+            for (int i = 0; i < residentIds.length; i++) {
+                boolean admin = isBuildingAdmin(i);
+                copy.add(residentIds[i]).add(firstName(i)).add(lastName(i)).add(email(i)).add(passwordHash)
+                        .add(String.format(Locale.ROOT, "+324%08d", i)).add(admin ? "BUILDING_ADMIN" : "RESIDENT")
+                        .add("ACTIVE").add(true).add(true).add(true).add(true)
+                        .add(admin ? buildingIds[residentBuilding[i]] : null).add(0).add(createdAt).add(createdAt);
+                copy.endRow();
+            }
+            count("residents", copy);
+        }
+        try (CopyWriter copy = new CopyWriter(connection, "apartments",
+                "id_apartment, apartment_label, apartment_number, apartment_floor, building_id, resident_id, "
+                        + "number_of_rooms, number_of_bedrooms, living_area_surface, have_balcony_or_terrace, "
+                        + "is_furnished, created_at")) {
+            for (int i = 0; i < residentIds.length; i++) {
+                int rooms = 1 + random.nextInt(5);
+                copy.add(apartmentId(i)).add("Appartement " + apartmentNumber(i)).add(apartmentNumber(i))
+                        .add(apartmentFloor(i)).add(buildingIds[residentBuilding[i]]).add(residentIds[i])
+                        .add(rooms).add(rooms - 1).add(25 + rooms * 20 + random.nextInt(20))
+                        .add(random.nextBoolean()).add(random.nextInt(10) == 0).add(createdAt);
+                copy.endRow();
+            }
+            count("apartments", copy);
+        }
+        try (CopyWriter copy = new CopyWriter(connection, "resident_buildings",
+                "resident_id, building_id, apartment_id, role_in_building, is_active, created_at")) {
+            for (int i = 0; i < residentIds.length; i++) {
+                copy.add(residentIds[i]).add(buildingIds[residentBuilding[i]]).add(apartmentId(i))
+                        .add(isBuildingAdmin(i) ? "BUILDING_ADMIN" : "RESIDENT").add(true).add(createdAt);
+                copy.endRow();
+                if (secondBuilding[i] >= 0) {
+                    copy.add(residentIds[i]).add(buildingIds[secondBuilding[i]]).add(null).add("RESIDENT")
+                            .add(true).add(createdAt);
+                    copy.endRow();
+                }
+            }
+            count("resident_buildings", copy);
+        }
+        connection.commit();
+        System.out.printf("%d immeubles, %d résidents chargés en %d ms%n", buildingIds.length, residentIds.length,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    private void loadChannels(Connection connection) throws SQLException {
+        long started = System.nanoTime();
+        try (CopyWriter copy = new CopyWriter(connection, "channels",
+                "id, name, description, type, building_id, created_by, is_active, is_private, "
+                        + "last_message_sequence, created_at, updated_at")) {
+            for (ChannelPlan channel : channels) {
+                copy.add(channel.id()).add(channel.name()).add(null).add(channel.type())
+                        .add(buildingIds[channel.building()]).add(residentIds[channel.creator()]).add(true)
+                        .add(!"BUILDING".equals(channel.type())).add(channel.messageCount())
+                        .add(channel.createdAt()).add(channel.createdAt());
+                copy.endRow();
+            }
+            count("channels", copy);
+        }
+        try (CopyWriter copy = new CopyWriter(connection, "channel_members",
+                "channel_id, user_id, role, is_active, can_write, joined_at")) {
+            for (ChannelPlan channel : channels) {
+                for (int member : channel.members()) {
+                    copy.add(channel.id()).add(residentIds[member])
+                            .add(member == channel.creator() ? "OWNER" : "MEMBER").add(true).add(true)
+                            .add(channel.createdAt());
+                    copy.endRow();
+                }
+            }
+            count("channel_members", copy);
+        }
+        connection.commit();
+        System.out.printf("%d canaux chargés en %d ms, %d messages à générer%n", channels.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started),
+                channels.stream().mapToLong(ChannelPlan::messageCount).sum());
+    }
+
+    /**
+     * Creates the missing monthly partitions of the generated period when {@code messages} is partitioned
+     * (see {@code db/partitioning/messages_partitioning.sql}).
+     */
+    private void preparePartitions(Connection connection) throws SQLException {
+        if (queryLong(connection, "SELECT COUNT(*) FROM pg_partitioned_table "
+                + "WHERE partrelid = to_regclass('messages')") == 0) {
+            return;
+        }
+        DateTimeFormatter suffix = DateTimeFormatter.ofPattern("yyyy_MM");
+        try (Statement statement = connection.createStatement()) {
+            for (LocalDate month = historyStart.toLocalDate().withDayOfMonth(1); !month.isAfter(now.toLocalDate());
+                 month = month.plusMonths(1)) {
+                statement.execute(String.format("CREATE TABLE IF NOT EXISTS messages_p%s PARTITION OF messages "
+                        + "FOR VALUES FROM ('%s') TO ('%s')", month.format(suffix), month, month.plusMonths(1)));
+            }
+        }
+        connection.commit();
+    }
+
+    // ---------------------------------------------------------------------------------------------------------
+    // Messages, votes, documents (en parallèle)
+    // ---------------------------------------------------------------------------------------------------------
+
+    /**
+     * Channels split into {@code threads} slices of similar message volume, the busiest first.
+     */
+    private List<List<ChannelPlan>> messageSlices(int threads) {
+        List<List<ChannelPlan>> slices = new ArrayList<>();
+        long[] volumes = new long[threads];
+        for (int i = 0; i < threads; i++) {
+            slices.add(new ArrayList<>());
+        }
+        List<ChannelPlan> ordered = new ArrayList<>(channels);
+        ordered.sort(Comparator.comparingLong(ChannelPlan::messageCount).reversed());
+        for (ChannelPlan channel : ordered) {
+            int lightest = 0;
+            for (int i = 1; i < threads; i++) {
+                if (volumes[i] < volumes[lightest]) {
+                    lightest = i;
+                }
+            }
+            slices.get(lightest).add(channel);
+            volumes[lightest] += channel.messageCount();
+        }
+        return slices;
+    }
+
+    private void loadMessages(List<ChannelPlan> slice, SplittableRandom random) throws SQLException {
+        try (Connection connection = connect();
+             CopyWriter copy = new CopyWriter(connection, "messages",
+                     "channel_id, sequence_number, sender_id, content, type, is_edited, is_deleted, version, "
+                             + "created_at, updated_at")) {
+            StringBuilder content = new StringBuilder();
+            for (ChannelPlan channel : slice) {
+                long[] seconds = new long[(int) channel.messageCount()];
+                for (int m = 0; m < seconds.length; m++) {
+                    seconds[m] = randomSecond(random);
+                }
+                Arrays.sort(seconds);
+                for (int m = 0; m < seconds.length; m++) {
+                    LocalDateTime createdAt = historyStart.plusSeconds(seconds[m]);
+                    boolean edited = random.nextInt(100) < 3;
+                    int[] members = channel.members();
+                    copy.add(channel.id()).add(m + 1L).add(residentIds[members[random.nextInt(members.length)]])
+                            .add(sentence(random, content)).add("TEXT").add(edited).add(random.nextInt(100) == 0)
+                            .add(0).add(createdAt)
+                            .add(edited ? createdAt.plusMinutes(1 + random.nextInt(30)) : createdAt);
+                    copy.endRow();
+                    if ((m & 1023) == 1023) {
+                        messagesWritten.addAndGet(1024);
+                    }
+                }
+                messagesWritten.addAndGet(seconds.length & 1023);
+            }
+            copy.close();
+            connection.commit();
+            count("messages", copy);
+        }
+    }
+
+    private void loadVotes(SplittableRandom random) throws SQLException {
+        int votesPerChannel = options.getInt("votes-per-channel", 2);
+        List<VotePlan> votes = new ArrayList<>();
+        long voteId = voteIdBase;
+        long optionId = voteOptionIdBase;
+        for (ChannelPlan channel : channels) {
+            if ("ONE_TO_ONE".equals(channel.type())) {
+                continue;
+            }
+            int count = random.nextInt(2 * votesPerChannel + 1);
+            for (int v = 0; v < count; v++) {
+                LocalDateTime createdAt = historyStart.plusSeconds(randomSecond(random));
+                int optionCount = 2 + random.nextInt(4);
+                votes.add(new VotePlan(voteId++, channel, createdAt,
+                        random.nextInt(5) == 0 ? null : createdAt.plusDays(3 + random.nextInt(12)),
+                        random.nextInt(10) < 3, optionId, optionCount));
+                optionId += optionCount;
+            }
+        }
+
+        try (Connection connection = connect()) {
+            try (CopyWriter copy = new CopyWriter(connection, "votes",
+                    "id, channel_id, title, description, vote_type, is_anonymous, is_active, end_date, created_by, "
+                            + "created_at, updated_at")) {
+                for (VotePlan vote : votes) {
+                    copy.add(vote.id()).add(vote.channel().id()).add(VOTE_TITLES[random.nextInt(VOTE_TITLES.length)])
+                            .add("Merci de voter avant la date limite.")
+                            .add(vote.multipleChoice() ? "MULTIPLE_CHOICE" : "SINGLE_CHOICE")
+                            .add(random.nextInt(5) == 0)
+                            .add(vote.endDate() == null || vote.endDate().isAfter(now)).add(vote.endDate())
+                            .add(residentIds[vote.channel().creator()]).add(vote.createdAt()).add(vote.createdAt());
+                    copy.endRow();
+                }
+                count("votes", copy);
+            }
+            try (CopyWriter copy = new CopyWriter(connection, "vote_options", "id, vote_id, text")) {
+                for (VotePlan vote : votes) {
+                    for (int o = 0; o < vote.options(); o++) {
+                        copy.add(vote.firstOptionId() + o).add(vote.id())
+                                .add(vote.options() <= YES_NO.length ? YES_NO[o] : "Proposition " + (o + 1));
+                        copy.endRow();
+                    }
+                }
+                count("vote_options", copy);
+            }
+            try (CopyWriter copy = new CopyWriter(connection, "user_votes",
+                    "vote_id, vote_option_id, user_id, voted_at")) {
+                for (VotePlan vote : votes) {
+                    LocalDateTime closesAt = vote.endDate() == null || vote.endDate().isAfter(now) ? now : vote.endDate();
+                    long window = Math.max(60, Duration.between(vote.createdAt(), closesAt).getSeconds());
+                    double participation = 0.2 + 0.5 * random.nextDouble();
+                    for (int member : vote.channel().members()) {
+                        if (random.nextDouble() >= participation) {
+                            continue;
+                        }
+                        int choices = vote.multipleChoice() ? 1 + random.nextInt(2) : 1;
+                        int first = random.nextInt(vote.options());
+                        for (int c = 0; c < choices; c++) {
+                            copy.add(vote.id()).add(vote.firstOptionId() + (first + c) % vote.options())
+                                    .add(residentIds[member])
+                                    .add(vote.createdAt().plusSeconds(random.nextLong(window)));
+                            copy.endRow();
+                        }
+                    }
+                }
+                count("user_votes", copy);
+            }
+            connection.commit();
+        }
+    }
+
+    private void loadDocuments(SplittableRandom random) throws SQLException, IOException {
+        List<FolderPlan> folders = planFolders(random);
+        try (Connection connection = connect()) {
+            try (CopyWriter copy = new CopyWriter(connection, "folders",
+                    "id, name, folder_path, parent_folder_id, apartment_id, building_id, created_by, is_shared, "
+                            + "share_type, created_at")) {
+                for (FolderPlan folder : folders) {
+                    copy.add(folder.id()).add(folder.name()).add(folder.path())
+                            .add(folder.parent() != null ? folder.parent().id() : null)
+                            .add(folder.apartmentOwner() >= 0 ? apartmentId(folder.apartmentOwner()) : null)
+                            .add(buildingIds[folder.building()]).add(residentIds[folder.creator()])
+                            .add(!"PRIVATE".equals(folder.shareType())).add(folder.shareType())
+                            .add(historyStart);
+                    copy.endRow();
+                }
+                count("folders", copy);
+            }
+            try (CopyWriter copy = new CopyWriter(connection, "folder_permissions",
+                    "folder_id, apartment_id, can_read, can_upload, created_at")) {
+                for (FolderPlan folder : folders) {
+                    if (!"SPECIFIC_APARTMENTS".equals(folder.shareType())) {
+                        continue;
+                    }
+                    int from = buildingStart[folder.building()];
+                    int size = buildingStart[folder.building() + 1] - from;
+                    for (int resident : sample(random, from, from + size, Math.min(size, 3 + random.nextInt(3)))) {
+                        copy.add(folder.id()).add(apartmentId(resident)).add(true).add(false).add(historyStart);
+                        copy.endRow();
+                    }
+                }
+                count("folder_permissions", copy);
+            }
+
+            PlaceholderFiles files = options.has("skip-files") ? null
+                    : new PlaceholderFiles(Path.of(options.get("documents-dir", "documents")),
+                    options.getInt("document-bytes", 4096));
+            double meanDocuments = options.getDouble("documents-per-folder", 4);
+            double stop = 1 / (meanDocuments + 1);
+            try (CopyWriter copy = new CopyWriter(connection, "documents",
+                    "original_filename, stored_filename, file_path, file_size, mime_type, file_extension, "
+                            + "folder_id, apartment_id, building_id, uploaded_by, created_at, updated_at")) {
+                int size = Math.max(options.getInt("document-bytes", 4096), PlaceholderFiles.MIN_SIZE);
+                for (FolderPlan folder : folders) {
+                    // Nombre de documents géométrique : beaucoup de dossiers presque vides, quelques dossiers chargés
+                    int count = (int) (Math.log(1 - random.nextDouble()) / Math.log(1 - stop));
+                    int uploader = folder.apartmentOwner() >= 0 ? folder.apartmentOwner() : folder.creator();
+                    for (int d = 0; d < count; d++) {
+                        String stored = new UUID(random.nextLong(), random.nextLong()) + ".pdf";
+                        String path = folder.path() + "/" + stored;
+                        LocalDateTime createdAt = historyStart.plusSeconds(randomSecond(random));
+                        copy.add(folder.name() + " " + (d + 1) + ".pdf").add(stored).add(path).add(size)
+                                .add("application/pdf").add(".pdf").add(folder.id()).add(apartmentId(uploader))
+                                .add(buildingIds[folder.building()]).add(residentIds[uploader]).add(createdAt)
+                                .add(createdAt);
+                        copy.endRow();
+                        if (files != null) {
+                            files.create(path);
+                        }
+                    }
+                }
+                count("documents", copy);
+            }
+            connection.commit();
+        }
+    }
+
+    private List<FolderPlan> planFolders(SplittableRandom random) {
+        int foldersPerBuilding = options.getInt("folders-per-building", 4);
+        double privateShare = options.getDouble("private-folder-share", 0.1);
+        List<FolderPlan> folders = new ArrayList<>();
+        long folderId = folderIdBase;
+        for (int b = 0; b < buildingIds.length; b++) {
+            int admin = buildingStart[b];
+            String root = "apartment_building_" + buildingIds[b];
+            for (int f = 0; f < foldersPerBuilding; f++) {
+                String name = FOLDER_NAMES[f % FOLDER_NAMES.length]
+                        + (f < FOLDER_NAMES.length ? "" : " " + (f / FOLDER_NAMES.length + 1));
+                FolderPlan folder = new FolderPlan(folderId++, b, -1, null, name, root + "/" + name,
+                        "ALL_APARTMENTS", admin);
+                folders.add(folder);
+                int years = random.nextInt(3);
+                for (int y = 0; y < years; y++) {
+                    String year = String.valueOf(now.getYear() - y);
+                    folders.add(new FolderPlan(folderId++, b, -1, folder, year, folder.path() + "/" + year,
+                            "ALL_APARTMENTS", admin));
+                }
+            }
+            if (buildingStart[b + 1] - admin >= 3) {
+                folders.add(new FolderPlan(folderId++, b, -1, null, "Conseil syndical", root + "/Conseil syndical",
+                        "SPECIFIC_APARTMENTS", admin));
+            }
+            for (int i = admin; i < buildingStart[b + 1]; i++) {
+                if (random.nextDouble() < privateShare) {
+                    folders.add(new FolderPlan(folderId++, b, i, null, "Mes documents",
+                            "apartment_" + apartmentId(i) + "/Mes documents", "PRIVATE", i));
+                }
+            }
+        }
+        return folders;
+    }
+
+    // ---------------------------------------------------------------------------------------------------------
+    // Finalisation
+    // ---------------------------------------------------------------------------------------------------------
+
+    /**
+     * Moves the identity sequences past the ids assigned by the generator.
+     */
+    private void resetSequences(Connection connection) throws SQLException {
+        Map<String, String> explicitIds = Map.of("addresses", "id_address", "channels", "id", "votes", "id",
+                "vote_options", "id", "folders", "id");
+        try (Statement statement = connection.createStatement()) {
+            for (Map.Entry<String, String> table : explicitIds.entrySet()) {
+                statement.execute(String.format("SELECT setval(pg_get_serial_sequence('%1$s', '%2$s'), "
+                        + "COALESCE((SELECT MAX(%2$s) FROM %1$s), 0) + 1, false)", table.getKey(), table.getValue()));
+            }
+        }
+        connection.commit();
+    }
+
+    private void vacuumAnalyze(Connection connection) throws SQLException {
+        long started = System.nanoTime();
+        connection.setAutoCommit(true);
+        try (Statement statement = connection.createStatement()) {
+            for (String table : TABLES) {
+                statement.execute("VACUUM (ANALYZE) " + table);
+            }
+        }
+        System.out.printf("VACUUM ANALYZE en %d ms%n", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    private void printMessageProgress(long total, long startedNanos) {
+        long written = messagesWritten.get();
+        double seconds = Math.max(0.001, (System.nanoTime() - startedNanos) / 1e9);
+        System.out.printf("messages : %,d / %,d (%,.0f/s)%n", written, total, written / seconds);
+    }
+
+    private void printSummary(Duration elapsed) {
+        System.out.println();
+        synchronized (rowCounts) {
+            rowCounts.forEach((table, rows) -> System.out.printf("%-20s %,15d%n", table, rows));
+        }
+        System.out.printf("%nJeu de données généré en %d min %02d s%n", elapsed.toMinutes(), elapsed.toSecondsPart());
+    }
+
+    // ---------------------------------------------------------------------------------------------------------
+    // Distributions et valeurs
+    // ---------------------------------------------------------------------------------------------------------
+
+    private static double[] logNormalWeights(SplittableRandom random, int count, double sigma) {
+        double[] weights = new double[count];
+        for (int i = 0; i < count; i++) {
+            weights[i] = Math.exp(sigma * random.nextGaussian());
+        }
+        return weights;
+    }
+
+    /**
+     * Splits {@code total} proportionally to the weights, rounding the running sum so the parts add up exactly.
+     */
+    private static long[] distribute(long total, double[] weights) {
+        double sum = Arrays.stream(weights).sum();
+        long[] parts = new long[weights.length];
+        double cumulative = 0;
+        long assigned = 0;
+        for (int i = 0; i < weights.length; i++) {
+            cumulative += weights[i];
+            long upTo = Math.round(total * cumulative / sum);
+            parts[i] = upTo - assigned;
+            assigned = upTo;
+        }
+        return parts;
+    }
+
+    /**
+     * {@code count} distinct residents drawn from {@code [from, to)}.
+     */
+    private static int[] sample(SplittableRandom random, int from, int to, int count) {
+        int size = to - from;
+        if (count * 2 > size) {
+            int[] all = new int[size];
+            for (int k = 0; k < size; k++) {
+                all[k] = from + k;
+            }
+            for (int k = 0; k < count; k++) {
+                int swap = k + random.nextInt(size - k);
+                int value = all[swap];
+                all[swap] = all[k];
+                all[k] = value;
+            }
+            return Arrays.copyOf(all, count);
+        }
+        Set<Integer> picked = new HashSet<>();
+        while (picked.size() < count) {
+            picked.add(from + random.nextInt(size));
+        }
+        return picked.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Seconds since the start of the history: uniform over the days, following {@link #HOUR_WEIGHTS} within a day.
+     */
+    private long randomSecond(SplittableRandom random) {
+        // Tirage depuis minuit du premier jour, hors fenêtre ignoré
+        long second;
+        do {
+            double draw = random.nextDouble();
+            int hour = 0;
+            while (hour < cumulativeHours.length - 1 && cumulativeHours[hour] < draw) {
+                hour++;
+            }
+            second = random.nextLong((historySeconds + firstDayOffset) / 86_400 + 1) * 86_400 + hour * 3_600L
+                    + random.nextInt(3_600) - firstDayOffset;
+        } while (second < 0 || second > historySeconds);
+        return second;
+    }
+
+    private LocalDateTime channelCreatedAt(SplittableRandom random) {
+        return historyStart.minusMinutes(random.nextInt(30 * 24 * 60));
+    }
+
+    private String sentence(SplittableRandom random, StringBuilder content) {
+        content.setLength(0);
+        int words = Math.min(60, 1 + (int) Math.exp(1.6 + 0.8 * random.nextGaussian()));
+        for (int w = 0; w < words; w++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            if (w == 0) {
+                content.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+            } else {
+                content.append(' ').append(word);
+            }
+        }
+        return content.append(random.nextInt(5) == 0 ? " ?" : ".").toString();
+    }
+
+    private String email(int resident) {
+        return String.format(Locale.ROOT, options.get("email-pattern", "resident%d@load.mschat.test"),
+                options.getInt("first-resident", 0) + resident);
+    }
+
+    private static String firstName(int resident) {
+        return FIRST_NAMES[resident % FIRST_NAMES.length];
+    }
+
+    private static String lastName(int resident) {
+        return LAST_NAMES[(resident / FIRST_NAMES.length) % LAST_NAMES.length];
+    }
+
+    private boolean isBuildingAdmin(int resident) {
+        return buildingStart[residentBuilding[resident]] == resident;
+    }
+
+    private int apartmentFloor(int resident) {
+        return (resident - buildingStart[residentBuilding[resident]]) / APARTMENTS_PER_FLOOR;
+    }
+
+    private String apartmentNumber(int resident) {
+        int rank = resident - buildingStart[residentBuilding[resident]];
+        return String.valueOf((apartmentFloor(resident) + 1) * 100 + rank % APARTMENTS_PER_FLOOR + 1);
+    }
+
+    private String apartmentId(int resident) {
+        return buildingIds[residentBuilding[resident]] + "-A" + apartmentNumber(resident);
+    }
+
+    private void count(String table, CopyWriter copy) {
+        synchronized (rowCounts) {
+            rowCounts.merge(table, copy.getRows(), Long::sum);
+        }
+    }
+
+    private static long nextId(Connection connection, String table, String column) throws SQLException {
+        return queryLong(connection, "SELECT COALESCE(MAX(" + column + "), 0) + 1 FROM " + table);
+    }
+
+    private static long queryLong(Connection connection, String sql) throws SQLException {
+        Long value = queryLongOrNull(connection, sql);
+        return value != null ? value : 0;
+    }
+
+    private static Long queryLongOrNull(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet result = statement.executeQuery(sql)) {
+            return result.next() ? result.getObject(1, Long.class) : null;
+        }
+    }
+
+    private record ChannelPlan(long id, int building, String type, String name, int creator, int[] members,
+                               LocalDateTime createdAt, long messageCount) {
+
+        ChannelPlan(long id, int building, String type, String name, int creator, int[] members,
+                    LocalDateTime createdAt) {
+            this(id, building, type, name, creator, members, createdAt, 0);
+        }
+
+        ChannelPlan withMessageCount(long count) {
+            return new ChannelPlan(id, building, type, name, creator, members, createdAt, count);
+        }
+    }
+
+    private record VotePlan(long id, ChannelPlan channel, LocalDateTime createdAt, LocalDateTime endDate,
+                            boolean multipleChoice, long firstOptionId, int options) {
+    }
+
+    private record FolderPlan(long id, int building, int apartmentOwner, FolderPlan parent, String name, String path,
+                              String shareType, int creator) {
+    }
+
+    /**
+     * Placeholder PDF files under the documents directory, hard-linked to a single template when the file
+     * system allows it.
+     */
+    private static final class PlaceholderFiles {
+
+        private static final int MIN_SIZE = 64;
+
+        private final Path baseDir;
+        private final Path template;
+        private final Set<Path> directories = new HashSet<>();
+        private boolean links = true;
+
+        private PlaceholderFiles(Path baseDir, int size) throws IOException {
+            this.baseDir = baseDir;
+            this.template = baseDir.resolve(".placeholder.pdf");
+            Files.createDirectories(baseDir);
+            byte[] content = new byte[Math.max(size, MIN_SIZE)];
+            Arrays.fill(content, (byte) ' ');
+            byte[] header = "%PDF-1.4\n% MSChat : document synthétique\n".getBytes(StandardCharsets.UTF_8);
+            byte[] trailer = "\n%%EOF\n".getBytes(StandardCharsets.US_ASCII);
+            System.arraycopy(header, 0, content, 0, header.length);
+            System.arraycopy(trailer, 0, content, content.length - trailer.length, trailer.length);
+            Files.write(template, content);
+        }
+
+        private void create(String relativePath) throws IOException {
+            Path file = baseDir.resolve(relativePath);
+            if (directories.add(file.getParent())) {
+                Files.createDirectories(file.getParent());
+            }
+            if (links) {
+                try {
+                    Files.createLink(file, template);
+                    return;
+                } catch (UnsupportedOperationException | IOException e) {
+                    links = false;
+                }
+            }
+            Files.copy(template, file);
+        }
+    }
+}
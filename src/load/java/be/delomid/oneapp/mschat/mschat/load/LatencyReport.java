@@ -0,0 +1,64 @@
+package be.delomid.oneapp.mschat.mschat.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency distribution recorded in microseconds and reported in milliseconds, as a one-line summary and
+ * as an HdrHistogram percentile distribution ({@code .hgrm}, readable by the HdrHistogram plotter).
+ */
+public class LatencyReport {
+
+    private final String name;
+    private final Histogram histogram = new ConcurrentHistogram(3);
+
+    public LatencyReport(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void recordNanos(long nanos) {
+        histogram.recordValue(Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos)));
+    }
+
+    public long count() {
+        return histogram.getTotalCount();
+    }
+
+    public double percentileMs(double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    public double meanMs() {
+        return histogram.getMean() / 1000.0;
+    }
+
+    public void printSummary(PrintStream out) {
+        out.printf("%-24s count=%-8d p50=%9.3f ms  p99=%9.3f ms  p99.9=%9.3f ms  max=%9.3f ms%n",
+                name, count(), percentileMs(50), percentileMs(99), percentileMs(99.9),
+                histogram.getMaxValue() / 1000.0);
+    }
+
+    public void printDistribution(PrintStream out) {
+        out.println("# " + name + " (ms)");
+        histogram.outputPercentileDistribution(out, 1000.0);
+    }
+
+    public Path write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve(name + ".hgrm");
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            histogram.outputPercentileDistribution(out, 1000.0);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,66 @@
+package be.delomid.oneapp.mschat.mschat.load;
+
+import com.icegreen.greenmail.mail.MailAddress;
+import com.icegreen.greenmail.mail.MovingMessage;
+import com.icegreen.greenmail.user.MessageDeliveryHandler;
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetup;
+import jakarta.mail.MessagingException;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * SMTP sink receiving the OTP emails of the server under test (Spring profile {@code loadtest}), so synthetic
+ * residents can go through the real login flow. Register with {@link #expect(String)} before triggering the
+ * email. Codes are read on delivery, one recipient at a time and in arrival order, so a resident logging in
+ * repeatedly always gets the code of its latest login.
+ */
+public class OtpMailbox implements AutoCloseable {
+
+    private static final Pattern OTP_CODE = Pattern.compile("est : (\\d{4,8})");
+
+    private final GreenMail greenMail;
+    private final Map<String, CompletableFuture<String>> pending = new ConcurrentHashMap<>();
+
+    public OtpMailbox(int smtpPort) {
+        greenMail = new GreenMail(new ServerSetup(smtpPort, "0.0.0.0", ServerSetup.PROTOCOL_SMTP));
+        MessageDeliveryHandler delivery = greenMail.getUserManager().getMessageDeliveryHandler();
+        greenMail.getUserManager().setMessageDeliveryHandler((message, recipient) -> {
+            onDelivery(message, recipient);
+            return delivery.handle(message, recipient);
+        });
+        greenMail.start();
+    }
+
+    public CompletableFuture<String> expect(String email) {
+        CompletableFuture<String> code = new CompletableFuture<>();
+        pending.put(email.toLowerCase(Locale.ROOT), code);
+        return code;
+    }
+
+    private void onDelivery(MovingMessage message, MailAddress recipient) {
+        CompletableFuture<String> code = pending.get(recipient.getEmail().toLowerCase(Locale.ROOT));
+        if (code == null) {
+            return;
+        }
+        try {
+            Matcher matcher = OTP_CODE.matcher(String.valueOf(message.getMessage().getContent()));
+            if (matcher.find() && pending.remove(recipient.getEmail().toLowerCase(Locale.ROOT), code)) {
+                code.complete(matcher.group(1));
+            }
+        } catch (MessagingException | IOException e) {
+            // Un email illisible ne bloque pas les suivants
+        }
+    }
+
+    @Override
+    public void close() {
+        greenMail.stop();
+    }
+}
@@ -0,0 +1,161 @@
+package be.delomid.oneapp.mschat.mschat.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Logs synthetic residents in through {@code /auth/login}, the emailed OTP and {@code /auth/verify-login},
+ * selecting their first building when they belong to several, as the mobile app does.
+ */
+public class ResidentAuthenticator {
+
+    public static final String DEFAULT_EMAIL_PATTERN = "resident%d@load.mschat.test";
+    public static final String DEFAULT_PASSWORD = "LoadTest123!";
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final String baseUrl;
+    private final OtpMailbox mailbox;
+    private final Consumer<Exchange> listener;
+
+    public record Credentials(String email, String password) {
+    }
+
+    public record AuthenticatedResident(String email, String userId, String buildingId, String token) {
+    }
+
+    /**
+     * One HTTP call, {@code path} relative to the base URL: duration, SQL statements reported by the server ({@code X-DB-Statements}, -1 when
+     * absent) and response size.
+     */
+    public record Exchange(String method, String path, int status, long nanos, int statements, long bytes) {
+    }
+
+    public ResidentAuthenticator(HttpClient httpClient, ObjectMapper objectMapper, String baseUrl, OtpMailbox mailbox) {
+        this(httpClient, objectMapper, baseUrl, mailbox, exchange -> {
+        });
+    }
+
+    public ResidentAuthenticator(HttpClient httpClient, ObjectMapper objectMapper, String baseUrl, OtpMailbox mailbox,
+                                 Consumer<Exchange> listener) {
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.baseUrl = baseUrl;
+        this.mailbox = mailbox;
+        this.listener = listener;
+    }
+
+    /**
+     * Residents from {@code --residents-file} (one {@code email,password} per line), otherwise
+     * {@code --residents} accounts named after {@code --email-pattern} sharing {@code --password}.
+     */
+    public static List<Credentials> credentials(LoadOptions options) throws IOException {
+        List<Credentials> credentials = new ArrayList<>();
+        if (options.has("residents-file")) {
+            for (String line : Files.readAllLines(Path.of(options.get("residents-file", null)))) {
+                String[] fields = line.split(",");
+                if (fields.length >= 2 && !line.isBlank()) {
+                    credentials.add(new Credentials(fields[0].trim(), fields[1].trim()));
+                }
+            }
+            return credentials;
+        }
+        String pattern = options.get("email-pattern", DEFAULT_EMAIL_PATTERN);
+        String password = options.get("password", DEFAULT_PASSWORD);
+        for (int i = 0; i < options.getInt("residents", 500); i++) {
+            credentials.add(new Credentials(String.format(pattern, i), password));
+        }
+        return credentials;
+    }
+
+    public AuthenticatedResident authenticate(Credentials credentials)
+            throws IOException, InterruptedException, ExecutionException, TimeoutException {
+        CompletableFuture<String> otpCode = mailbox.expect(credentials.email());
+        post("/auth/login", Map.of("email", credentials.email(), "password", credentials.password()), null);
+
+        JsonNode auth = post("/auth/verify-login",
+                Map.of("email", credentials.email(), "otpCode", otpCode.get(30, TimeUnit.SECONDS)), null);
+        if ("BUILDING_SELECTION_REQUIRED".equals(auth.path("message").asText())) {
+            String token = auth.path("token").asText();
+            JsonNode buildings = get("/auth/user-buildings", token);
+            auth = post("/auth/select-building", Map.of("buildingId", buildings.get(0).path("buildingId").asText()), token);
+        }
+        return new AuthenticatedResident(credentials.email(), auth.path("userId").asText(),
+                auth.path("buildingId").asText(null), auth.path("token").asText());
+    }
+
+    /**
+     * Channels the resident is a member of, first page of {@code /channels}.
+     */
+    public List<Long> channelIds(AuthenticatedResident resident) throws IOException, InterruptedException {
+        List<Long> channelIds = new ArrayList<>();
+        for (JsonNode channel : get("/channels?size=200", resident.token()).path("content")) {
+            channelIds.add(channel.path("id").asLong());
+        }
+        return channelIds;
+    }
+
+    public JsonNode get(String path, String token) throws IOException, InterruptedException {
+        return json(send(path, request(path, token).GET().build()));
+    }
+
+    public JsonNode post(String path, Object body, String token) throws IOException, InterruptedException {
+        return json(send(path, request(path, token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build()));
+    }
+
+    /**
+     * Downloads a binary body, returning its size.
+     */
+    public long download(String path, String token) throws IOException, InterruptedException {
+        return send(path, request(path, token).GET().build()).length;
+    }
+
+    private HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(REQUEST_TIMEOUT);
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private byte[] send(String path, HttpRequest request) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        long nanos = System.nanoTime() - start;
+        int statements = response.headers().firstValue("X-DB-Statements").map(Integer::parseInt).orElse(-1);
+        listener.accept(new Exchange(request.method(), path, response.statusCode(), nanos,
+                statements, response.body().length));
+
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException(request.method() + " " + path + " : HTTP "
+                    + response.statusCode() + " " + new String(response.body()));
+        }
+        return response.body();
+    }
+
+    private JsonNode json(byte[] body) throws IOException {
+        return body.length == 0 ? objectMapper.nullNode() : objectMapper.readTree(body);
+    }
+}
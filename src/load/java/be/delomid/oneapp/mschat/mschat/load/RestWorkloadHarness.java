@@ -0,0 +1,261 @@
+package be.delomid.oneapp.mschat.mschat.load;
+
+import be.delomid.oneapp.mschat.mschat.load.ResidentAuthenticator.AuthenticatedResident;
+import be.delomid.oneapp.mschat.mschat.load.ResidentAuthenticator.Credentials;
+import be.delomid.oneapp.mschat.mschat.load.ResidentAuthenticator.Exchange;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * HTTP workload of the mobile app's critical journeys, run by concurrent virtual users against an instance
+ * started with the Spring profile {@code loadtest}:
+ * <ul>
+ *     <li>{@code app-open}: login and OTP verification, channel list, latest messages and votes of the first
+ *     channels, root folders;</li>
+ *     <li>{@code document-download}: root folders, documents of a folder, download of one document.</li>
+ * </ul>
+ * A journey's latency is the sum of its requests, without the OTP email delay and think time. Each journey
+ * and request type reports throughput, percentiles and SQL statements per operation (from the
+ * {@code X-DB-Statements} header), is written to {@code rest-workload.json} and compared with the stored
+ * baseline.
+ * <p>
+ * Options: {@code --url, --residents, --residents-file, --email-pattern, --password, --smtp-port, --users,
+ * --channels-opened, --download-share, --think-time-ms, --warmup, --duration, --report-dir, --baseline,
+ * --save-baseline, --tolerance, --fail-on-regression}.
+ */
+public class RestWorkloadHarness {
+
+    public static final String APP_OPEN = "app-open";
+    public static final String DOCUMENT_DOWNLOAD = "document-download";
+
+    private static final Pattern ID_SEGMENT = Pattern.compile("/\\d+(?=/|$)");
+    private static final int MAX_REPORTED_ERRORS = 20;
+
+    private final LoadOptions options;
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final Map<String, WorkloadStats> journeys = new LinkedHashMap<>();
+    private final Map<String, WorkloadStats> requests = new ConcurrentHashMap<>();
+    private final ThreadLocal<JourneyRun> currentJourney = new ThreadLocal<>();
+    private final AtomicLong skippedDownloads = new AtomicLong();
+    private final AtomicLong reportedErrors = new AtomicLong();
+    private volatile long measureFromNanos = Long.MAX_VALUE;
+
+    public RestWorkloadHarness(LoadOptions options) {
+        this.options = options;
+        journeys.put(APP_OPEN, new WorkloadStats(APP_OPEN));
+        journeys.put(DOCUMENT_DOWNLOAD, new WorkloadStats(DOCUMENT_DOWNLOAD));
+    }
+
+    public static void main(String[] args) throws Exception {
+        int regressions = new RestWorkloadHarness(new LoadOptions(args)).run();
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+
+    /**
+     * @return the number of regressions when {@code --fail-on-regression} is set, 0 otherwise
+     */
+    public int run() throws Exception {
+        String baseUrl = options.get("url", "http://localhost:9090/api/v1");
+        List<Credentials> credentials = ResidentAuthenticator.credentials(options);
+        int users = Math.min(options.getInt("users", 50), credentials.size());
+        int warmup = options.getInt("warmup", 10);
+        int duration = options.getInt("duration", 60);
+
+        try (OtpMailbox mailbox = new OtpMailbox(options.getInt("smtp-port", 3025))) {
+            ResidentAuthenticator client = new ResidentAuthenticator(HttpClient.newHttpClient(), objectMapper,
+                    baseUrl, mailbox, this::onExchange);
+            System.out.printf("%d utilisateurs virtuels sur %s : %ds de chauffe + %ds%n", users, baseUrl, warmup, duration);
+
+            long start = System.nanoTime();
+            measureFromNanos = start + TimeUnit.SECONDS.toNanos(warmup);
+            long endNanos = measureFromNanos + TimeUnit.SECONDS.toNanos(duration);
+            ExecutorService executor = Executors.newFixedThreadPool(users);
+            for (int i = 0; i < users; i++) {
+                Credentials user = credentials.get(i);
+                executor.execute(() -> virtualUser(client, user, endNanos));
+            }
+            executor.shutdown();
+            executor.awaitTermination(duration + warmup + 300L, TimeUnit.SECONDS);
+        }
+        return report(duration);
+    }
+
+    private void virtualUser(ResidentAuthenticator client, Credentials credentials, long endNanos) {
+        double downloadShare = options.getDouble("download-share", 0.3);
+        long thinkTimeMs = options.getInt("think-time-ms", 0);
+        while (System.nanoTime() < endNanos) {
+            AuthenticatedResident resident = journey(APP_OPEN, () -> appOpen(client, credentials));
+            if (resident != null && ThreadLocalRandom.current().nextDouble() < downloadShare
+                    && journey(DOCUMENT_DOWNLOAD, () -> downloadDocument(client, resident)) == null) {
+                skippedDownloads.incrementAndGet();
+            }
+            if (thinkTimeMs > 0) {
+                try {
+                    Thread.sleep(thinkTimeMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private AuthenticatedResident appOpen(ResidentAuthenticator client, Credentials credentials) throws Exception {
+        AuthenticatedResident resident = client.authenticate(credentials);
+        JsonNode channels = client.get("/channels?size=20", resident.token()).path("content");
+        int opened = Math.min(options.getInt("channels-opened", 3), channels.size());
+        for (int i = 0; i < opened; i++) {
+            long channelId = channels.get(i).path("id").asLong();
+            client.get("/messages/channel/" + channelId + "?size=50", resident.token());
+            client.get("/votes/channel/" + channelId, resident.token());
+        }
+        client.get("/documents/folders", resident.token());
+        return resident;
+    }
+
+    private Boolean downloadDocument(ResidentAuthenticator client, AuthenticatedResident resident) throws Exception {
+        JsonNode folders = client.get("/documents/folders", resident.token());
+        // Quelques dossiers au hasard : beaucoup de dossiers racine sont vides
+        for (int attempt = 0; attempt < 3 && folders.size() > 0; attempt++) {
+            JsonNode folder = folders.get(ThreadLocalRandom.current().nextInt(folders.size()));
+            JsonNode documents = client.get("/documents/folders/" + folder.path("id").asLong() + "/documents",
+                    resident.token());
+            if (documents.size() > 0) {
+                JsonNode document = documents.get(ThreadLocalRandom.current().nextInt(documents.size()));
+                client.download("/documents/" + document.path("id").asLong() + "/download", resident.token());
+                return Boolean.TRUE;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Runs a journey, recording it once all its requests succeeded; a {@code null} result means the journey
+     * did not apply (nothing to download) and is not recorded.
+     */
+    private <T> T journey(String name, Callable<T> steps) {
+        JourneyRun run = new JourneyRun(System.nanoTime() >= measureFromNanos);
+        currentJourney.set(run);
+        try {
+            T result = steps.call();
+            if (result != null && run.measured) {
+                journeys.get(name).record(run.nanos, run.statementsKnown ? run.statements : -1, run.bytes);
+            }
+            return result;
+        } catch (Exception e) {
+            if (run.measured) {
+                journeys.get(name).recordError();
+            }
+            if (reportedErrors.incrementAndGet() <= MAX_REPORTED_ERRORS) {
+                System.err.printf("Échec du parcours %s : %s%n", name, e.getMessage());
+            }
+            return null;
+        } finally {
+            currentJourney.remove();
+        }
+    }
+
+    private void onExchange(Exchange exchange) {
+        JourneyRun run = currentJourney.get();
+        if (run == null || !run.measured) {
+            return;
+        }
+        run.nanos += exchange.nanos();
+        run.bytes += exchange.bytes();
+        if (exchange.statements() >= 0) {
+            run.statements += exchange.statements();
+        } else {
+            run.statementsKnown = false;
+        }
+
+        String path = exchange.path().contains("?")
+                ? exchange.path().substring(0, exchange.path().indexOf('?'))
+                : exchange.path();
+        WorkloadStats stats = requests.computeIfAbsent(
+                exchange.method() + " " + ID_SEGMENT.matcher(path).replaceAll("/{id}"), WorkloadStats::new);
+        if (exchange.status() / 100 == 2) {
+            stats.record(exchange.nanos(), exchange.statements(), exchange.bytes());
+        } else {
+            stats.recordError();
+        }
+    }
+
+    private int report(int duration) throws Exception {
+        Map<String, Object> journeySummaries = new LinkedHashMap<>();
+        journeys.forEach((name, stats) -> journeySummaries.put(name, stats.summary(duration)));
+        Map<String, Object> requestSummaries = new TreeMap<>();
+        requests.forEach((name, stats) -> requestSummaries.put(name, stats.summary(duration)));
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("journeys", journeySummaries);
+        result.put("requests", requestSummaries);
+
+        System.out.println();
+        WorkloadStats.printHeader(System.out);
+        journeys.values().forEach(stats -> stats.print(System.out, duration));
+        System.out.println();
+        new TreeMap<>(requests).values().forEach(stats -> stats.print(System.out, duration));
+        if (skippedDownloads.get() > 0) {
+            System.out.printf("%nTéléchargements sans document accessible : %d%n", skippedDownloads.get());
+        }
+
+        Path reportDir = Path.of(options.get("report-dir", "target/load"));
+        Files.createDirectories(reportDir);
+        Path resultFile = reportDir.resolve("rest-workload.json");
+        objectMapper.writeValue(resultFile.toFile(), result);
+        List<Path> written = new ArrayList<>(List.of(resultFile));
+        for (WorkloadStats stats : journeys.values()) {
+            written.add(stats.getLatency().write(reportDir));
+        }
+        System.out.println("\nRésultats écrits : " + written);
+
+        Path baseline = Path.of(options.get("baseline", "src/load/baselines/rest-workload.json"));
+        if (options.has("save-baseline")) {
+            Files.createDirectories(baseline.toAbsolutePath().getParent());
+            objectMapper.writeValue(baseline.toFile(), result);
+            System.out.println("Référence enregistrée : " + baseline);
+            return 0;
+        }
+        if (!Files.exists(baseline)) {
+            System.out.println("Pas de référence " + baseline + " (--save-baseline pour l'enregistrer)");
+            return 0;
+        }
+
+        System.out.println("\nComparaison avec " + baseline + " :");
+        BaselineComparison comparison = new BaselineComparison(options.getDouble("tolerance", 10));
+        comparison.compare(objectMapper.readTree(baseline.toFile()), objectMapper.valueToTree(result), System.out);
+        System.out.printf("%d régression(s) au-delà de %.0f %%%n", comparison.getRegressions(),
+                options.getDouble("tolerance", 10));
+        return options.has("fail-on-regression") ? comparison.getRegressions() : 0;
+    }
+
+    private static final class JourneyRun {
+        private final boolean measured;
+        private long nanos;
+        private long bytes;
+        private int statements;
+        private boolean statementsKnown = true;
+
+        private JourneyRun(boolean measured) {
+            this.measured = measured;
+        }
+    }
+}
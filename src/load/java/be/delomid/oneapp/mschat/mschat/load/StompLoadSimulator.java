@@ -0,0 +1,311 @@
+package be.delomid.oneapp.mschat.mschat.load;
+
+import be.delomid.oneapp.mschat.mschat.load.ResidentAuthenticator.AuthenticatedResident;
+import be.delomid.oneapp.mschat.mschat.load.ResidentAuthenticator.Credentials;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Building-wide event on a running server: synthetic residents log in, open STOMP sessions on {@code /ws},
+ * subscribe to their channels, then messages and typing events are sent to the busiest channels at fixed
+ * rates. Reports connect time and send-to-receive latency of every delivery, measured in this JVM from the
+ * send timestamp carried in the message content.
+ * <p>
+ * The server must run with the Spring profile {@code loadtest} so OTP emails reach {@link OtpMailbox}.
+ * Options: {@code --url, --residents, --residents-file, --email-pattern, --password, --smtp-port,
+ * --auth-concurrency, --busy-channels, --message-rate, --typing-rate, --warmup, --duration, --report-dir}.
+ */
+public class StompLoadSimulator {
+
+    private static final String CONTENT_PREFIX = "lt:";
+
+    private final LoadOptions options;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String runId = UUID.randomUUID().toString().substring(0, 8);
+
+    private final LatencyReport authTime = new LatencyReport("auth");
+    private final LatencyReport connectTime = new LatencyReport("stomp-connect");
+    private final LatencyReport messageLatency = new LatencyReport("message-latency");
+
+    private final AtomicLong messagesSent = new AtomicLong();
+    private final AtomicLong deliveriesExpected = new AtomicLong();
+    private final AtomicLong deliveriesReceived = new AtomicLong();
+    private final AtomicLong typingSent = new AtomicLong();
+    private final AtomicLong typingReceived = new AtomicLong();
+    private final AtomicLong serverErrors = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    // Canal -> sessions abonnées, pour choisir l'émetteur et compter les livraisons attendues
+    private final Map<Long, List<StompSession>> channelSessions = new ConcurrentHashMap<>();
+    private volatile long measureFromNanos = Long.MAX_VALUE;
+
+    public StompLoadSimulator(LoadOptions options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new StompLoadSimulator(new LoadOptions(args)).run();
+        System.exit(0);
+    }
+
+    public void run() throws Exception {
+        String baseUrl = options.get("url", "http://localhost:9090/api/v1");
+        List<Credentials> credentials = ResidentAuthenticator.credentials(options);
+
+        try (OtpMailbox mailbox = new OtpMailbox(options.getInt("smtp-port", 3025))) {
+            ResidentAuthenticator authenticator = new ResidentAuthenticator(HttpClient.newHttpClient(), objectMapper,
+                    baseUrl, mailbox);
+            System.out.printf("Authentification de %d résidents sur %s%n", credentials.size(), baseUrl);
+            Map<AuthenticatedResident, List<Long>> residents = authenticate(authenticator, credentials);
+
+            WebSocketStompClient stompClient = stompClient();
+            System.out.printf("Connexion STOMP de %d résidents%n", residents.size());
+            List<StompSession> sessions = connect(stompClient, baseUrl.replaceFirst("^http", "ws") + "/ws", residents);
+
+            List<Long> busyChannels = channelSessions.entrySet().stream()
+                    .sorted(Comparator.comparingInt((Map.Entry<Long, List<StompSession>> entry) -> entry.getValue().size())
+                            .reversed())
+                    .limit(options.getInt("busy-channels", 50))
+                    .map(Map.Entry::getKey)
+                    .toList();
+            if (busyChannels.isEmpty()) {
+                throw new IllegalStateException("Aucun canal commun aux résidents connectés");
+            }
+            for (Long channelId : busyChannels) {
+                for (StompSession session : channelSessions.get(channelId)) {
+                    session.subscribe("/topic/channel/" + channelId + "/typing", counter(typingReceived));
+                }
+            }
+
+            drive(busyChannels);
+
+            sessions.forEach(StompSession::disconnect);
+            stompClient.stop();
+        }
+        report();
+    }
+
+    private Map<AuthenticatedResident, List<Long>> authenticate(ResidentAuthenticator authenticator,
+                                                                List<Credentials> credentials) throws InterruptedException {
+        Map<AuthenticatedResident, List<Long>> residents = new ConcurrentHashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(options.getInt("auth-concurrency", 20));
+        for (Credentials resident : credentials) {
+            executor.execute(() -> {
+                long start = System.nanoTime();
+                try {
+                    AuthenticatedResident authenticated = authenticator.authenticate(resident);
+                    authTime.recordNanos(System.nanoTime() - start);
+                    residents.put(authenticated, authenticator.channelIds(authenticated));
+                } catch (Exception e) {
+                    failures.incrementAndGet();
+                    System.err.printf("Échec de l'authentification de %s : %s%n", resident.email(), e.getMessage());
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.HOURS);
+        return residents;
+    }
+
+    private WebSocketStompClient stompClient() {
+        ThreadPoolTaskScheduler heartbeatScheduler = new ThreadPoolTaskScheduler();
+        heartbeatScheduler.setPoolSize(2);
+        heartbeatScheduler.setDaemon(true);
+        heartbeatScheduler.initialize();
+
+        WebSocketStompClient stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        stompClient.setTaskScheduler(heartbeatScheduler);
+        return stompClient;
+    }
+
+    private List<StompSession> connect(WebSocketStompClient stompClient, String wsUrl,
+                                       Map<AuthenticatedResident, List<Long>> residents) {
+        List<CompletableFuture<StompSession>> connections = new ArrayList<>();
+        for (Map.Entry<AuthenticatedResident, List<Long>> resident : residents.entrySet()) {
+            StompHeaders connectHeaders = new StompHeaders();
+            connectHeaders.add("Authorization", "Bearer " + resident.getKey().token());
+            long start = System.nanoTime();
+            connections.add(stompClient.connectAsync(wsUrl, new WebSocketHttpHeaders(), connectHeaders,
+                            new StompSessionHandlerAdapter() {
+                                @Override
+                                public void handleTransportError(StompSession session, Throwable exception) {
+                                    failures.incrementAndGet();
+                                }
+                            })
+                    .thenApply(session -> {
+                        connectTime.recordNanos(System.nanoTime() - start);
+                        session.subscribe("/user/queue/errors", counter(serverErrors));
+                        for (Long channelId : resident.getValue()) {
+                            session.subscribe("/topic/channel/" + channelId, new MessageHandler());
+                            channelSessions.computeIfAbsent(channelId, id -> new CopyOnWriteArrayList<>()).add(session);
+                        }
+                        return session;
+                    }));
+        }
+
+        List<StompSession> sessions = new ArrayList<>();
+        for (CompletableFuture<StompSession> connection : connections) {
+            try {
+                sessions.add(connection.get(30, TimeUnit.SECONDS));
+            } catch (Exception e) {
+                failures.incrementAndGet();
+                System.err.println("Échec de la connexion STOMP : " + e.getMessage());
+            }
+        }
+        return sessions;
+    }
+
+    private void drive(List<Long> busyChannels) throws InterruptedException {
+        int warmup = options.getInt("warmup", 10);
+        int duration = options.getInt("duration", 60);
+        double messageRate = options.getDouble("message-rate", 50);
+        double typingRate = options.getDouble("typing-rate", 200);
+        System.out.printf("Charge sur %d canaux : %.0f messages/s, %.0f événements de frappe/s, %ds de chauffe + %ds%n",
+                busyChannels.size(), messageRate, typingRate, warmup, duration);
+
+        // Un seul thread d'envoi : une session STOMP n'accepte pas d'écritures concurrentes
+        ScheduledExecutorService sender = Executors.newSingleThreadScheduledExecutor();
+        if (messageRate > 0) {
+            sender.scheduleAtFixedRate(() -> sendMessage(busyChannels), 0, (long) (1_000_000 / messageRate), TimeUnit.MICROSECONDS);
+        }
+        if (typingRate > 0) {
+            sender.scheduleAtFixedRate(() -> sendTyping(busyChannels), 0, (long) (1_000_000 / typingRate), TimeUnit.MICROSECONDS);
+        }
+
+        TimeUnit.SECONDS.sleep(warmup);
+        measureFromNanos = System.nanoTime();
+        messagesSent.set(0);
+        deliveriesExpected.set(0);
+        deliveriesReceived.set(0);
+        TimeUnit.SECONDS.sleep(duration);
+
+        sender.shutdownNow();
+        sender.awaitTermination(5, TimeUnit.SECONDS);
+        // Laisser arriver les dernières diffusions
+        TimeUnit.SECONDS.sleep(5);
+    }
+
+    private void sendMessage(List<Long> busyChannels) {
+        Long channelId = busyChannels.get(ThreadLocalRandom.current().nextInt(busyChannels.size()));
+        List<StompSession> members = channelSessions.get(channelId);
+        StompSession sender = members.get(ThreadLocalRandom.current().nextInt(members.size()));
+        String content = CONTENT_PREFIX + runId + ":" + System.nanoTime() + ": Message de test de charge";
+        try {
+            send(sender, "/app/message.send", Map.of("channelId", channelId, "content", content, "type", "TEXT"));
+            messagesSent.incrementAndGet();
+            deliveriesExpected.addAndGet(members.size());
+        } catch (Exception e) {
+            failures.incrementAndGet();
+        }
+    }
+
+    private void sendTyping(List<Long> busyChannels) {
+        Long channelId = busyChannels.get(ThreadLocalRandom.current().nextInt(busyChannels.size()));
+        List<StompSession> members = channelSessions.get(channelId);
+        try {
+            send(members.get(ThreadLocalRandom.current().nextInt(members.size())), "/app/message.typing",
+                    Map.of("channelId", channelId, "typing", true));
+            typingSent.incrementAndGet();
+        } catch (Exception e) {
+            failures.incrementAndGet();
+        }
+    }
+
+    private void send(StompSession session, String destination, Object payload) throws Exception {
+        StompHeaders headers = new StompHeaders();
+        headers.setDestination(destination);
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        session.send(headers, objectMapper.writeValueAsBytes(payload));
+    }
+
+    private void report() throws Exception {
+        long expected = deliveriesExpected.get();
+        System.out.println();
+        System.out.printf("Messages envoyés : %d, livraisons reçues : %d / %d attendues (%.2f %%)%n",
+                messagesSent.get(), deliveriesReceived.get(), expected,
+                expected == 0 ? 0.0 : 100.0 * deliveriesReceived.get() / expected);
+        System.out.printf("Frappe : %d envoyés, %d reçus ; erreurs serveur : %d ; échecs client : %d%n",
+                typingSent.get(), typingReceived.get(), serverErrors.get(), failures.get());
+        System.out.println();
+
+        Path reportDir = Path.of(options.get("report-dir", "target/load"));
+        for (LatencyReport report : List.of(authTime, connectTime, messageLatency)) {
+            report.printSummary(System.out);
+        }
+        System.out.println();
+        messageLatency.printDistribution(System.out);
+        for (LatencyReport report : List.of(authTime, connectTime, messageLatency)) {
+            report.write(reportDir);
+        }
+        System.out.println("Distributions écrites dans " + reportDir.toAbsolutePath());
+    }
+
+    private static StompFrameHandler counter(AtomicLong count) {
+        return new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return byte[].class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                count.incrementAndGet();
+            }
+        };
+    }
+
+    private class MessageHandler implements StompFrameHandler {
+
+        @Override
+        public Type getPayloadType(StompHeaders headers) {
+            return byte[].class;
+        }
+
+        @Override
+        public void handleFrame(StompHeaders headers, Object payload) {
+            long receivedAt = System.nanoTime();
+            try {
+                JsonNode message = objectMapper.readTree((byte[]) payload);
+                String content = message.path("content").asText("");
+                String prefix = CONTENT_PREFIX + runId + ":";
+                if (!message.has("senderId") || !content.startsWith(prefix)) {
+                    return;
+                }
+                long sentAt = Long.parseLong(content.substring(prefix.length(), content.indexOf(':', prefix.length())));
+                if (sentAt >= measureFromNanos) {
+                    deliveriesReceived.incrementAndGet();
+                    messageLatency.recordNanos(receivedAt - sentAt);
+                }
+            } catch (Exception e) {
+                failures.incrementAndGet();
+            }
+        }
+    }
+}
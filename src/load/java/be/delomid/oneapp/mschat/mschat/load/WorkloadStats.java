@@ -0,0 +1,78 @@
+package be.delomid.oneapp.mschat.mschat.load;
+
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency, throughput, SQL statements and bytes of one journey or one request type.
+ */
+public class WorkloadStats {
+
+    private final LatencyReport latency;
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder statementSamples = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+
+    public WorkloadStats(String name) {
+        this.latency = new LatencyReport(name);
+    }
+
+    public String getName() {
+        return latency.getName();
+    }
+
+    public LatencyReport getLatency() {
+        return latency;
+    }
+
+    public void record(long nanos, int statementCount, long byteCount) {
+        latency.recordNanos(nanos);
+        if (statementCount >= 0) {
+            statements.add(statementCount);
+            statementSamples.increment();
+        }
+        bytes.add(byteCount);
+    }
+
+    public void recordError() {
+        errors.increment();
+    }
+
+    /**
+     * Metrics compared against the baseline; latencies in milliseconds, throughput per second.
+     */
+    public Map<String, Object> summary(double durationSeconds) {
+        long count = latency.count();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", count);
+        summary.put("errors", errors.sum());
+        summary.put("throughputPerSec", round(count / durationSeconds));
+        summary.put("meanMs", round(latency.meanMs()));
+        summary.put("p50Ms", round(latency.percentileMs(50)));
+        summary.put("p99Ms", round(latency.percentileMs(99)));
+        summary.put("p999Ms", round(latency.percentileMs(99.9)));
+        summary.put("statementsPerOp", statementSamples.sum() == 0 ? null
+                : round((double) statements.sum() / statementSamples.sum()));
+        summary.put("bytesPerOp", count == 0 ? 0 : bytes.sum() / count);
+        return summary;
+    }
+
+    public void print(PrintStream out, double durationSeconds) {
+        Map<String, Object> summary = summary(durationSeconds);
+        out.printf("%-40s %8d %6d %9.1f/s %9.3f %9.3f %9.3f %8s%n", getName(), summary.get("count"),
+                summary.get("errors"), summary.get("throughputPerSec"), summary.get("p50Ms"), summary.get("p99Ms"),
+                summary.get("p999Ms"), summary.get("statementsPerOp") != null ? summary.get("statementsPerOp") : "-");
+    }
+
+    public static void printHeader(PrintStream out) {
+        out.printf("%-40s %8s %6s %11s %9s %9s %9s %8s%n", "", "count", "errors", "débit", "p50 ms", "p99 ms",
+                "p99.9 ms", "SQL/op");
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
@@ -15,11 +15,115 @@ public class AppConfig {
     private Otp otp = new Otp();
     private Admin admin = new Admin();
     private Security security = new Security();
+    private EmailOutbox emailOutbox = new EmailOutbox();
+    private DirectoryImport directoryImport = new DirectoryImport();
+    private Directory directory = new Directory();
+    private Presence presence = new Presence();
+    private WebSocket websocket = new WebSocket();
+    private Messages messages = new Messages();
+    private MessageArchive messageArchive = new MessageArchive();
+    private ReadReplica readReplica = new ReadReplica();
+    private Diagnostics diagnostics = new Diagnostics();
+    private Metrics metrics = new Metrics();
 
     @Data
     public static class Otp {
         private int expirationMinutes = 10;
         private int maxAttempts = 3;
+        private int resendIntervalSeconds = 30;
+        // memory (nœud local) ou jpa (partagé entre les nœuds via otp_tokens)
+        private String store = "memory";
+        private long wheelTickMillis = 1000;
+        private int wheelSize = 512;
+    }
+
+    @Data
+    public static class EmailOutbox {
+        private long pollIntervalMs = 1000;
+        private int workers = 4;
+        private int batchSize = 20;
+        private int maxAttempts = 8;
+        private long initialBackoffMs = 5000;
+        private long maxBackoffMs = 600000;
+        private int leaseSeconds = 120;
+        private int retentionDays = 7;
+    }
+
+    @Data
+    public static class DirectoryImport {
+        private int chunkSize = 500;
+        private int maxReportedErrors = 1000;
+    }
+
+    @Data
+    public static class Directory {
+        private int maxPageSize = 100;
+        private int cacheMaxEntries = 2000;
+        private long cacheTtlSeconds = 300;
+    }
+
+    @Data
+    public static class Presence {
+        private long flushIntervalMs = 1000;
+        private long lastSeenFlushMs = 30000;
+    }
+
+    @Data
+    public static class WebSocket {
+        private int subscriptionCacheSize = 50000;
+        private long subscriptionCacheTtlSeconds = 60;
+        private int sendTimeLimitMs = 10000;
+        private int sendBufferSizeLimitBytes = 512 * 1024;
+        private int messageSizeLimitBytes = 64 * 1024;
+        private int slowConsumerSoftLimit = 64;
+        private int slowConsumerHardLimit = 512;
+        private long slowConsumerMaxSendMs = 5000;
+    }
+
+    @Data
+    public static class Messages {
+        // Derniers messages gardés en mémoire par canal (première page et reprise)
+        private int recentWindowSize = 200;
+        private long recentCacheMaxBytes = 64L * 1024 * 1024;
+        private int resumeMaxMessages = 500;
+        private int resumeMaxChannels = 100;
+    }
+
+    @Data
+    public static class MessageArchive {
+        // Sans effet tant que messages n'est pas partitionnée (db/partitioning/messages_partitioning.sql)
+        private boolean enabled = false;
+        private String directory = "archives/messages";
+        private int retentionMonths = 12;
+        private int premakeMonths = 3;
+        private int rehydrateMaxArchives = 12;
+    }
+
+    @Data
+    public static class ReadReplica {
+        private boolean enabled = false;
+        private String url;
+        // Identifiants du primaire (spring.datasource.*) si absents
+        private String username;
+        private String password;
+        private int maximumPoolSize = 20;
+        // Lectures d'un utilisateur servies par le primaire après ses propres écritures
+        private long readYourWritesMs = 5000;
+        // Au-delà de ce retard mesuré, toutes les lectures repassent sur le primaire
+        private long maxLagMs = 10000;
+        private long lagCheckIntervalMs = 5000;
+    }
+
+    @Data
+    public static class Diagnostics {
+        // En-tête X-DB-Statements : requêtes SQL exécutées pour la requête HTTP (tests de charge)
+        private boolean statementCountHeader = false;
+    }
+
+    @Data
+    public static class Metrics {
+        // Valeurs distinctes du tag building par métrique ; au-delà, les nouveaux immeubles ne sont pas comptés
+        private int maxBuildingTags = 200;
     }
 
     @Data
@@ -31,6 +135,30 @@ public class AppConfig {
     @Data
     public static class Security {
         private Cors cors = new Cors();
+        // Construire le principal depuis les claims du JWT, sans requête sur residents
+        private boolean statelessPrincipal = true;
+        private long tokenVersionSyncMs = 5000;
+        private int bcryptStrength = 10;
+        private PasswordHashing passwordHashing = new PasswordHashing();
+        private RateLimit rateLimit = new RateLimit();
+
+        @Data
+        public static class PasswordHashing {
+            // 0 = la moitié des cœurs, pour laisser du CPU au reste de l'API
+            private int threads = 0;
+            private int queueCapacity = 64;
+            // 0 = d'après la durée d'un hachage au coût BCrypt configuré, mesurée au démarrage
+            private long timeoutMs = 0;
+        }
+
+        @Data
+        public static class RateLimit {
+            private int ipCapacity = 30;
+            private int ipRefillPerMinute = 30;
+            private int emailCapacity = 5;
+            private int emailRefillPerMinute = 5;
+        }
+
         @Data
         public static class Cors {
             private String[] allowedOrigins;
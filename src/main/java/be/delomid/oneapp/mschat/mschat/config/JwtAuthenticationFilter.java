@@ -1,6 +1,8 @@
 package be.delomid.oneapp.mschat.mschat.config;
 
+import be.delomid.oneapp.mschat.mschat.model.Resident;
 import be.delomid.oneapp.mschat.mschat.service.CustomUserDetailsService;
+import be.delomid.oneapp.mschat.mschat.service.TokenVersionService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -25,6 +27,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     private final JwtConfig jwtConfig;
     private final CustomUserDetailsService userDetailsService;
+    private final TokenVersionService tokenVersionService;
+    private final AppConfig appConfig;
     
     @Override
     protected void doFilterInternal(HttpServletRequest request, 
@@ -43,16 +47,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         jwt = authHeader.substring(7);
         
         try {
-            userEmail = jwtConfig.extractUsername(jwt);
+            VerifiedToken token = jwtConfig.verify(jwt);
+            userEmail = token.getSubject();
             
             if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(userEmail);
+                UserDetails userDetails = resolveUserDetails(token);
 
-                if (jwtConfig.validateToken(jwt, userDetails.getUsername())) {
+                if (userDetails != null && jwtConfig.isValid(token, userDetails.getUsername())) {
                     // Extract building context from JWT
-                    String buildingId = jwtConfig.extractBuildingId(jwt);
-                    String userId = jwtConfig.extractUserId(jwt);
-                    String role = jwtConfig.extractRole(jwt);
+                    String buildingId = token.getBuildingId();
+                    String userId = token.getUserId();
+                    String role = token.getRole();
 
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             userDetails,
@@ -79,4 +84,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         filterChain.doFilter(request, response);
     }
+
+    private UserDetails resolveUserDetails(VerifiedToken token) {
+        // Les tokens récents portent le rôle global et la version : pas besoin de charger le résident
+        if (appConfig.getSecurity().isStatelessPrincipal()
+                && token.getUserRole() != null && token.getTokenVersion() != null) {
+            if (!tokenVersionService.isCurrent(token.getUserId(), token.getTokenVersion())) {
+                log.debug("Revoked token presented for user: {}", token.getSubject());
+                return null;
+            }
+            return TokenPrincipal.from(token);
+        }
+
+        UserDetails userDetails = userDetailsService.loadUserByUsername(token.getSubject());
+        if (token.getTokenVersion() != null && userDetails instanceof Resident resident
+                && token.getTokenVersion() != tokenVersionService.versionOf(resident)) {
+            log.debug("Revoked token presented for user: {}", token.getSubject());
+            return null;
+        }
+        return userDetails;
+    }
 }
\ No newline at end of file
@@ -3,13 +3,24 @@ package be.delomid.oneapp.mschat.mschat.config;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 @Component
@@ -24,16 +35,83 @@ public class JwtConfig {
     @Value("${jwt.refresh-expiration:604800000}") // 7 days
     private Long refreshExpiration;
 
+    @Value("${jwt.verified-cache-size:10000}")
+    private int verifiedCacheSize;
+
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    // Tokens déjà vérifiés, indexés par empreinte SHA-256 et valides jusqu'à leur expiration ;
+    // une fois plein, le token utilisé le moins récemment laisse sa place
+    private Map<String, VerifiedToken> verifiedTokens;
+
+    private final Timer verifyTimer;
+    private final Counter cacheHits;
+    private final Counter rejected;
+
+    public JwtConfig(MeterRegistry meterRegistry) {
+        this.verifyTimer = meterRegistry.timer("auth.jwt.verify");
+        this.cacheHits = meterRegistry.counter("auth.jwt.verify.cached");
+        this.rejected = meterRegistry.counter("auth.jwt.rejected");
+    }
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        verifiedTokens = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+                return size() > verifiedCacheSize;
+            }
+        });
+    }
+
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+        return signingKey;
+    }
+
+    /**
+     * Verifies the signature and expiration of the token once and returns all of its claims.
+     * Successful verifications are cached until the token expires; {@code auth.jwt.verify} times the
+     * verifications that miss the cache.
+     *
+     * @throws JwtException if the token is malformed, badly signed or expired
+     */
+    public VerifiedToken verify(String token) {
+        String cacheKey = fingerprint(token);
+        VerifiedToken cached = verifiedTokens.get(cacheKey);
+        if (cached != null) {
+            if (!cached.isExpired()) {
+                cacheHits.increment();
+                return cached;
+            }
+            verifiedTokens.remove(cacheKey);
+        }
+
+        // Le parser rejette déjà les signatures invalides et les tokens expirés
+        long start = System.nanoTime();
+        VerifiedToken verified;
+        try {
+            verified = VerifiedToken.from(extractAllClaims(token));
+        } catch (JwtException e) {
+            rejected.increment();
+            throw e;
+        } finally {
+            verifyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        verifiedTokens.put(cacheKey, verified);
+        return verified;
     }
 
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).getSubject();
     }
 
     public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return verify(token).getExpiration();
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
@@ -42,36 +120,34 @@ public class JwtConfig {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return parser.parseClaimsJws(token).getBody();
     }
 
-    public String generateToken(String username, String userId, String role) {
+    public String generateToken(String username, String userId, String role, long tokenVersion) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", userId);
         claims.put("role", role);
+        claims.put("userRole", role);
+        claims.put("ver", tokenVersion);
         return createToken(claims, username, expiration);
     }
 
-    public String generateTokenWithBuilding(String username, String userId, String role, String buildingId) {
+    public String generateTokenWithBuilding(String username, String userId, String role, String buildingId,
+                                            String userRole, long tokenVersion) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", userId);
         claims.put("role", role);
         claims.put("buildingId", buildingId);
+        claims.put("userRole", userRole);
+        claims.put("ver", tokenVersion);
         return createToken(claims, username, expiration);
     }
 
-    public String generateRefreshToken(String username, String userId) {
+    public String generateRefreshToken(String username, String userId, long tokenVersion) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", userId);
         claims.put("type", "refresh");
+        claims.put("ver", tokenVersion);
         return createToken(claims, username, refreshExpiration);
     }
 
@@ -86,19 +162,32 @@ public class JwtConfig {
     }
 
     public Boolean validateToken(String token, String username) {
-        final String extractedUsername = extractUsername(token);
-        return (extractedUsername.equals(username) && !isTokenExpired(token));
+        return isValid(verify(token), username);
+    }
+
+    public boolean isValid(VerifiedToken token, String username) {
+        return token.getSubject() != null && token.getSubject().equals(username) && !token.isExpired();
     }
 
     public String extractUserId(String token) {
-        return extractClaim(token, claims -> claims.get("userId", String.class));
+        return verify(token).getUserId();
     }
 
     public String extractRole(String token) {
-        return extractClaim(token, claims -> claims.get("role", String.class));
+        return verify(token).getRole();
     }
 
     public String extractBuildingId(String token) {
-        return extractClaim(token, claims -> claims.get("buildingId", String.class));
+        return verify(token).getBuildingId();
+    }
+
+    private static String fingerprint(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,78 @@
+package be.delomid.oneapp.mschat.mschat.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.config.MeterFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.WebSocketMessageBrokerStats;
+import org.springframework.web.socket.messaging.StompSubProtocolHandler;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Application meters outside of the services: the cap on {@code building} tag values and the WebSocket session
+ * and STOMP frame counts of the message broker. The inbound/outbound channel executors are already exported by
+ * Spring Boot as {@code executor.*}.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterFilter messagesSentBuildingTagLimit(AppConfig appConfig) {
+        return MeterFilter.maximumAllowableTags("messages.sent", "building",
+                appConfig.getMetrics().getMaxBuildingTags(), MeterFilter.deny());
+    }
+
+    @Bean
+    public MeterFilter votesSubmittedBuildingTagLimit(AppConfig appConfig) {
+        return MeterFilter.maximumAllowableTags("votes.submitted", "building",
+                appConfig.getMetrics().getMaxBuildingTags(), MeterFilter.deny());
+    }
+
+    @Bean
+    public MeterBinder webSocketBrokerMetrics(WebSocketMessageBrokerStats brokerStats) {
+        return registry -> {
+            Gauge.builder("websocket.sessions.open", brokerStats, sessions(SubProtocolWebSocketHandler.Stats::getWebSocketSessions))
+                    .description("Sessions WebSocket ouvertes")
+                    .register(registry);
+            FunctionCounter.builder("websocket.sessions.opened", brokerStats, sessions(SubProtocolWebSocketHandler.Stats::getTotalSessions))
+                    .register(registry);
+            FunctionCounter.builder("websocket.sessions.closed", brokerStats, sessions(SubProtocolWebSocketHandler.Stats::getLimitExceededSessions))
+                    .tag("reason", "limit_exceeded")
+                    .register(registry);
+            FunctionCounter.builder("websocket.sessions.closed", brokerStats, sessions(SubProtocolWebSocketHandler.Stats::getNoMessagesReceivedSessions))
+                    .tag("reason", "no_messages_received")
+                    .register(registry);
+            FunctionCounter.builder("websocket.sessions.closed", brokerStats, sessions(SubProtocolWebSocketHandler.Stats::getTransportErrorSessions))
+                    .tag("reason", "transport_error")
+                    .register(registry);
+            FunctionCounter.builder("websocket.stomp.frames", brokerStats, stomp(StompSubProtocolHandler.Stats::getTotalConnect))
+                    .tag("command", "connect")
+                    .register(registry);
+            FunctionCounter.builder("websocket.stomp.frames", brokerStats, stomp(StompSubProtocolHandler.Stats::getTotalConnected))
+                    .tag("command", "connected")
+                    .register(registry);
+            FunctionCounter.builder("websocket.stomp.frames", brokerStats, stomp(StompSubProtocolHandler.Stats::getTotalDisconnect))
+                    .tag("command", "disconnect")
+                    .register(registry);
+        };
+    }
+
+    // Les statistiques sont nulles tant que le handler WebSocket n'est pas initialisé
+    private static ToDoubleFunction<WebSocketMessageBrokerStats> sessions(ToDoubleFunction<SubProtocolWebSocketHandler.Stats> value) {
+        return brokerStats -> {
+            SubProtocolWebSocketHandler.Stats stats = brokerStats.getWebSocketSessionStats();
+            return stats != null ? value.applyAsDouble(stats) : 0;
+        };
+    }
+
+    private static ToDoubleFunction<WebSocketMessageBrokerStats> stomp(ToDoubleFunction<StompSubProtocolHandler.Stats> value) {
+        return brokerStats -> {
+            StompSubProtocolHandler.Stats stats = brokerStats.getStompSubProtocolStats();
+            return stats != null ? value.applyAsDouble(stats) : 0;
+        };
+    }
+}
@@ -0,0 +1,104 @@
+package be.delomid.oneapp.mschat.mschat.config;
+
+import be.delomid.oneapp.mschat.mschat.service.ReadYourWritesTracker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends read-only transactions to the replica pool and everything else to the primary.
+ * <p>
+ * A read-only transaction still goes to the primary when its user committed a write within
+ * {@code app.read-replica.read-your-writes-ms}, or when the replica lags more than {@code max-lag-ms} or
+ * cannot be reached. Must sit behind a {@code LazyConnectionDataSourceProxy}: the transaction's read-only
+ * flag is only known once the first statement runs, after the transaction manager asked for a connection.
+ */
+@Slf4j
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Target {
+        PRIMARY, REPLICA
+    }
+
+    // Sur le primaire, ou un réplica à jour, le retard vaut 0
+    private static final String LAG_QUERY = "SELECT CASE WHEN NOT pg_is_in_recovery() "
+            + "OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+            + "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0) END::bigint";
+
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final long maxLagMs;
+    private final AtomicLong lagMs = new AtomicLong();
+    private volatile boolean replicaUsable = true;
+
+    private final Counter toReplica;
+    private final Counter readWrite;
+    private final Counter recentWrite;
+    private final Counter replicaLagging;
+
+    public ReadReplicaRoutingDataSource(DataSource primary, DataSource replica, AppConfig.ReadReplica config,
+                                        ReadYourWritesTracker readYourWritesTracker, MeterRegistry meterRegistry) {
+        this.readYourWritesTracker = readYourWritesTracker;
+        this.replicaJdbcTemplate = new JdbcTemplate(replica);
+        this.maxLagMs = config.getMaxLagMs();
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+
+        this.toReplica = meterRegistry.counter("datasource.routing", "target", "replica", "reason", "read-only");
+        this.readWrite = meterRegistry.counter("datasource.routing", "target", "primary", "reason", "read-write");
+        this.recentWrite = meterRegistry.counter("datasource.routing", "target", "primary", "reason", "recent-write");
+        this.replicaLagging = meterRegistry.counter("datasource.routing", "target", "primary", "reason", "replica-lag");
+        meterRegistry.gauge("datasource.replica.lag", lagMs);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        // Hors transaction (Flyway, tâches JDBC) : primaire
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return Target.PRIMARY;
+        }
+        String userId = readYourWritesTracker.currentUser();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            readYourWritesTracker.recordWriteAfterCommit(userId);
+            readWrite.increment();
+            return Target.PRIMARY;
+        }
+        if (!replicaUsable) {
+            replicaLagging.increment();
+            return Target.PRIMARY;
+        }
+        if (readYourWritesTracker.wroteRecently(userId)) {
+            recentWrite.increment();
+            return Target.PRIMARY;
+        }
+        toReplica.increment();
+        return Target.REPLICA;
+    }
+
+    /**
+     * Measures the replica's replay lag; reads fall back to the primary while it is above the limit or the
+     * replica does not answer.
+     */
+    public void checkReplicaLag() {
+        boolean usable;
+        try {
+            Long lag = replicaJdbcTemplate.queryForObject(LAG_QUERY, Long.class);
+            lagMs.set(lag != null ? lag : 0);
+            usable = lagMs.get() <= maxLagMs;
+        } catch (Exception e) {
+            log.debug("Replica lag check failed: {}", e.getMessage());
+            usable = false;
+        }
+        if (usable != replicaUsable) {
+            log.warn("Read replica {}: lag {} ms", usable ? "back in use" : "bypassed", lagMs.get());
+        }
+        replicaUsable = usable;
+    }
+}
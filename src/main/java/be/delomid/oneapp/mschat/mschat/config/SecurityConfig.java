@@ -52,8 +52,9 @@ public class SecurityConfig {
                         .requestMatchers("/auth/**").permitAll()
                         // WebSocket endpoints
                         .requestMatchers("/ws/**").permitAll() // WebSocket handled by custom interceptor
-                        // Actuator endpoints
-                        .requestMatchers("/actuator/**").permitAll()
+                        // Actuator endpoints : santé publique, métriques réservées au super admin (scraper Prometheus)
+                        .requestMatchers("/actuator/health", "/actuator/health/**", "/actuator/info").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("SUPER_ADMIN")
                         // Info endpoints
                         .requestMatchers("/info/**").permitAll()
                         // File endpoints - allow public access for images
@@ -75,7 +76,7 @@ public class SecurityConfig {
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BCryptPasswordEncoder(appConfig.getSecurity().getBcryptStrength());
     }
 
     @Bean
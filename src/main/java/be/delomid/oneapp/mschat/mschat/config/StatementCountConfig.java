@@ -0,0 +1,32 @@
+package be.delomid.oneapp.mschat.mschat.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Registers {@link StatementCountFilter} when {@code app.diagnostics.statement-count-header=true}, ahead of the
+ * security filters so that statements issued while authenticating the request are counted too.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.diagnostics", name = "statement-count-header", havingValue = "true")
+public class StatementCountConfig {
+
+    private final StatementCountFilter statementCountFilter = new StatementCountFilter();
+
+    @Bean
+    public HibernatePropertiesCustomizer statementCountInspector() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, statementCountFilter);
+    }
+
+    @Bean
+    public FilterRegistrationBean<StatementCountFilter> statementCountFilterRegistration() {
+        FilterRegistrationBean<StatementCountFilter> registration = new FilterRegistrationBean<>(statementCountFilter);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
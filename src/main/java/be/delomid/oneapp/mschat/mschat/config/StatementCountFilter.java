@@ -0,0 +1,54 @@
+package be.delomid.oneapp.mschat.mschat.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Counts the SQL statements Hibernate prepares while serving a request and returns the count in the
+ * {@value #HEADER} response header, set just before the response is committed. Statements issued after the
+ * first flush of a large body (lazy loading during serialization) are not included.
+ */
+public class StatementCountFilter extends OncePerRequestFilter implements StatementInspector {
+
+    public static final String HEADER = "X-DB-Statements";
+
+    private final ThreadLocal<int[]> statements = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        int[] count = statements.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        int[] count = new int[1];
+        statements.set(count);
+        try {
+            OnCommittedResponseWrapper wrapper = new OnCommittedResponseWrapper(response) {
+                @Override
+                protected void onResponseCommitted() {
+                    response.setHeader(HEADER, String.valueOf(count[0]));
+                }
+            };
+            filterChain.doFilter(request, wrapper);
+            // Réponse sans corps : pas encore validée à la sortie de la chaîne
+            if (!response.isCommitted()) {
+                response.setHeader(HEADER, String.valueOf(count[0]));
+            }
+        } finally {
+            statements.remove();
+        }
+    }
+}
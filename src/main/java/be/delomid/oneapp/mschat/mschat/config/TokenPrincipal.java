@@ -0,0 +1,48 @@
+package be.delomid.oneapp.mschat.mschat.config;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Principal built purely from verified JWT claims, used instead of loading the {@code Resident}.
+ * Revocation is handled upstream through the token version check.
+ */
+@Getter
+public class TokenPrincipal implements UserDetails {
+
+    private final String email;
+    private final String userId;
+    private final String userRole;
+    private final List<GrantedAuthority> authorities;
+
+    private TokenPrincipal(String email, String userId, String userRole) {
+        this.email = email;
+        this.userId = userId;
+        this.userRole = userRole;
+        this.authorities = List.of(new SimpleGrantedAuthority("ROLE_" + userRole));
+    }
+
+    public static TokenPrincipal from(VerifiedToken token) {
+        return new TokenPrincipal(token.getSubject(), token.getUserId(), token.getUserRole());
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+}
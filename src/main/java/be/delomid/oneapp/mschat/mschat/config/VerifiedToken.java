@@ -0,0 +1,48 @@
+package be.delomid.oneapp.mschat.mschat.config;
+
+import io.jsonwebtoken.Claims;
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.Date;
+
+/**
+ * Claims of a JWT whose signature has already been verified once.
+ * Callers read every claim they need from this object instead of re-parsing the token.
+ */
+@Value
+@Builder
+public class VerifiedToken {
+
+    String subject;
+    String userId;
+    String role;
+    String buildingId;
+    String userRole;
+    Long tokenVersion;
+    String type;
+    Date issuedAt;
+    Date expiration;
+
+    public static VerifiedToken from(Claims claims) {
+        return VerifiedToken.builder()
+                .subject(claims.getSubject())
+                .userId(claims.get("userId", String.class))
+                .role(claims.get("role", String.class))
+                .buildingId(claims.get("buildingId", String.class))
+                .userRole(claims.get("userRole", String.class))
+                .tokenVersion(claims.get("ver", Long.class))
+                .type(claims.get("type", String.class))
+                .issuedAt(claims.getIssuedAt())
+                .expiration(claims.getExpiration())
+                .build();
+    }
+
+    public boolean isExpired() {
+        return expiration != null && expiration.getTime() <= System.currentTimeMillis();
+    }
+
+    public boolean isRefreshToken() {
+        return "refresh".equals(type);
+    }
+}
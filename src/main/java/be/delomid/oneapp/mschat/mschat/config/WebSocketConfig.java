@@ -1,6 +1,9 @@
 package be.delomid.oneapp.mschat.mschat.config;
 
  import be.delomid.oneapp.mschat.mschat.interceptor.JwtWebSocketInterceptor;
+import be.delomid.oneapp.mschat.mschat.interceptor.PayloadFormatInterceptor;
+import be.delomid.oneapp.mschat.mschat.interceptor.ReadYourWritesInterceptor;
+import be.delomid.oneapp.mschat.mschat.interceptor.SlowConsumerInterceptor;
  import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.simp.config.ChannelRegistration;
@@ -8,6 +11,7 @@ import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker
@@ -16,6 +20,18 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     @Autowired
     private JwtWebSocketInterceptor jwtWebSocketInterceptor;
 
+    @Autowired
+    private SlowConsumerInterceptor slowConsumerInterceptor;
+
+    @Autowired
+    private PayloadFormatInterceptor payloadFormatInterceptor;
+
+    @Autowired
+    private ReadYourWritesInterceptor readYourWritesInterceptor;
+
+    @Autowired
+    private AppConfig appConfig;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         config.enableSimpleBroker("/topic", "/queue", "/user");
@@ -31,6 +47,22 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
-        registration.interceptors(jwtWebSocketInterceptor);
+        registration.interceptors(jwtWebSocketInterceptor, readYourWritesInterceptor);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // Ré-encodage d'abord : la profondeur de file se compte sur les octets réellement envoyés
+        registration.interceptors(payloadFormatInterceptor, slowConsumerInterceptor);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        AppConfig.WebSocket websocket = appConfig.getWebsocket();
+        registration.setSendTimeLimit(websocket.getSendTimeLimitMs())
+                .setSendBufferSizeLimit(websocket.getSendBufferSizeLimitBytes())
+                .setMessageSizeLimit(websocket.getMessageSizeLimitBytes())
+                .addDecoratorFactory(slowConsumerInterceptor::decorate)
+                .addDecoratorFactory(payloadFormatInterceptor::decorate);
     }
 }
\ No newline at end of file
@@ -1,14 +1,21 @@
 package be.delomid.oneapp.mschat.mschat.controller;
 
+import be.delomid.oneapp.mschat.mschat.dto.ImportReport;
+import be.delomid.oneapp.mschat.mschat.dto.MembershipSyncResult;
 import be.delomid.oneapp.mschat.mschat.dto.ResidentDto;
+import be.delomid.oneapp.mschat.mschat.interceptor.SlowConsumerInterceptor;
 import be.delomid.oneapp.mschat.mschat.service.AdminService;
+import be.delomid.oneapp.mschat.mschat.service.DirectoryImportService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -17,6 +24,8 @@ import java.util.List;
 public class AdminController {
     
     private final AdminService adminService;
+    private final DirectoryImportService directoryImportService;
+    private final SlowConsumerInterceptor slowConsumerInterceptor;
     
     @GetMapping("/pending-registrations")
     public ResponseEntity<Page<ResidentDto>> getPendingRegistrations(
@@ -81,6 +90,33 @@ public class AdminController {
         return ResponseEntity.ok(residents);
     }
     
+    @PostMapping("/building/{buildingId}/channel/sync")
+    public ResponseEntity<MembershipSyncResult> syncBuildingChannel(
+            @PathVariable String buildingId,
+            Authentication authentication) {
+        
+        String adminId = getUserId(authentication);
+        MembershipSyncResult result = adminService.syncBuildingChannel(adminId, buildingId);
+        return ResponseEntity.ok(result);
+    }
+    
+    // Le corps est lu en flux : le fichier n'est jamais chargé entièrement en mémoire
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ImportReport> importDirectory(HttpServletRequest request) throws IOException {
+        boolean ndjson = request.getContentType() != null && request.getContentType().startsWith("application/x-ndjson");
+        ImportReport report = directoryImportService.importDirectory(request.getInputStream(), ndjson);
+        return ResponseEntity.ok(report);
+    }
+    
+    // Sessions WebSocket les plus en retard sur l'envoi
+    @GetMapping("/websocket/sessions")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public ResponseEntity<List<SlowConsumerInterceptor.SessionQueueStats>> getWebSocketSessions(
+            @RequestParam(defaultValue = "50") int limit) {
+        
+        return ResponseEntity.ok(slowConsumerInterceptor.snapshot(Math.max(1, Math.min(limit, 500))));
+    }
+    
     private String getUserId(Authentication authentication) {
         return authentication.getName(); // Sera l'ID utilisateur après configuration JWT
     }
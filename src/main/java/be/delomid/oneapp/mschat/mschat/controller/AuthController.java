@@ -1,7 +1,9 @@
 package be.delomid.oneapp.mschat.mschat.controller;
 
 import be.delomid.oneapp.mschat.mschat.dto.*;
+import be.delomid.oneapp.mschat.mschat.service.AuthRateLimiter;
 import be.delomid.oneapp.mschat.mschat.service.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -13,6 +15,7 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
     
     private final AuthService authService;
+    private final AuthRateLimiter authRateLimiter;
     
     @PostMapping("/register")
     public ResponseEntity<AuthResponse> register(@Valid @RequestBody RegisterRequest request) {
@@ -21,19 +24,25 @@ public class AuthController {
     }
     
     @PostMapping("/verify-registration")
-    public ResponseEntity<AuthResponse> verifyRegistration(@Valid @RequestBody VerifyOtpRequest request) {
+    public ResponseEntity<AuthResponse> verifyRegistration(@Valid @RequestBody VerifyOtpRequest request,
+                                                           HttpServletRequest httpRequest) {
+        authRateLimiter.checkVerification(httpRequest.getRemoteAddr(), request.getEmail());
         AuthResponse response = authService.verifyRegistration(request);
         return ResponseEntity.ok(response);
     }
     
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request) {
+    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request,
+                                              HttpServletRequest httpRequest) {
+        authRateLimiter.checkLogin(httpRequest.getRemoteAddr(), request.getEmail());
         AuthResponse response = authService.login(request);
         return ResponseEntity.ok(response);
     }
     
     @PostMapping("/verify-login")
-    public ResponseEntity<AuthResponse> verifyLogin(@Valid @RequestBody VerifyOtpRequest request) {
+    public ResponseEntity<AuthResponse> verifyLogin(@Valid @RequestBody VerifyOtpRequest request,
+                                                    HttpServletRequest httpRequest) {
+        authRateLimiter.checkVerification(httpRequest.getRemoteAddr(), request.getEmail());
         AuthResponse response = authService.verifyLogin(request);
         return ResponseEntity.ok(response);
     }
@@ -2,7 +2,10 @@ package be.delomid.oneapp.mschat.mschat.controller;
 
 import be.delomid.oneapp.mschat.mschat.dto.BuildingDto;
 import be.delomid.oneapp.mschat.mschat.dto.CreateBuildingRequest;
+import be.delomid.oneapp.mschat.mschat.dto.TypeaheadResultDto;
 import be.delomid.oneapp.mschat.mschat.service.BuildingService;
+import be.delomid.oneapp.mschat.mschat.service.DirectorySearchService;
+import be.delomid.oneapp.mschat.mschat.service.PresenceService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -14,6 +17,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/buildings")
@@ -21,6 +25,8 @@ import java.util.List;
 public class BuildingController {
 
     private final BuildingService buildingService;
+    private final DirectorySearchService directorySearchService;
+    private final PresenceService presenceService;
 
     @PostMapping
     public ResponseEntity<BuildingDto> createBuilding(
@@ -37,6 +43,23 @@ public class BuildingController {
         return ResponseEntity.ok(buildings);
     }
 
+    @GetMapping("/typeahead")
+    public ResponseEntity<List<TypeaheadResultDto>> typeaheadBuildings(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        List<TypeaheadResultDto> results = directorySearchService.searchBuildings(q, limit);
+        return ResponseEntity.ok(results);
+    }
+
+    // État initial ; les changements arrivent ensuite sur /topic/building/{buildingId}/presence
+    @GetMapping("/{buildingId}/presence")
+    public ResponseEntity<Set<String>> getOnlineResidents(
+            @PathVariable String buildingId,
+            Authentication authentication) {
+        directorySearchService.checkBuildingAccess(buildingId, authentication);
+        return ResponseEntity.ok(presenceService.getOnlineResidents(buildingId));
+    }
+
     @GetMapping("/{buildingId}")
     public ResponseEntity<BuildingDto> getBuildingById(@PathVariable String buildingId) {
         BuildingDto building = buildingService.getBuildingById(buildingId);
@@ -3,9 +3,11 @@ package be.delomid.oneapp.mschat.mschat.controller;
 
 import be.delomid.oneapp.mschat.mschat.dto.ChannelDto;
 import be.delomid.oneapp.mschat.mschat.dto.CreateChannelRequest;
+import be.delomid.oneapp.mschat.mschat.dto.DirectoryEntryDto;
 import be.delomid.oneapp.mschat.mschat.dto.ResidentDto;
 import be.delomid.oneapp.mschat.mschat.interceptor.JwtWebSocketInterceptor;
 import be.delomid.oneapp.mschat.mschat.service.ChannelService;
+import be.delomid.oneapp.mschat.mschat.service.ResidentDirectoryService;
 import be.delomid.oneapp.mschat.mschat.repository.ResidentRepository;
 import be.delomid.oneapp.mschat.mschat.model.Resident;
 import jakarta.validation.Valid;
@@ -16,6 +18,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Optional;
@@ -27,6 +30,7 @@ public class ChannelController {
 
     private final ChannelService channelService;
     private final ResidentRepository residentRepository;
+    private final ResidentDirectoryService residentDirectoryService;
 
     @PostMapping
     public ResponseEntity<ChannelDto> createChannel(
@@ -132,6 +136,23 @@ public class ChannelController {
         return ResponseEntity.ok(residents);
     }
 
+    @GetMapping("/building/{buildingId}/directory")
+    public ResponseEntity<Page<DirectoryEntryDto>> getBuildingDirectory(
+            @PathVariable String buildingId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size,
+            Authentication authentication,
+            WebRequest request) {
+
+        ResidentDirectoryService.DirectoryPage directory =
+                residentDirectoryService.getDirectory(buildingId, page, size, authentication);
+        // If-None-Match identique : 304 sans corps
+        if (request.checkNotModified(directory.etag())) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(directory.etag()).body(directory.page());
+    }
+
     @GetMapping("/current-building/residents")
     public ResponseEntity<List<ResidentDto>> getCurrentBuildingResidents(Authentication authentication) {
         String userId = getUserId(authentication);
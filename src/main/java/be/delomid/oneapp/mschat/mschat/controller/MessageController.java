@@ -10,11 +10,15 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @RestController
 @RequestMapping("/messages")
 @RequiredArgsConstructor
@@ -43,6 +47,18 @@ public class MessageController {
         return ResponseEntity.ok(messages);
     }
 
+    // Historique au-delà de la rétention, relu depuis les archives mensuelles
+    @GetMapping("/channel/{channelId}/archive")
+    public ResponseEntity<List<MessageDto>> getArchivedMessages(
+            @PathVariable Long channelId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before,
+            @RequestParam(defaultValue = "50") int size,
+            Authentication authentication) {
+
+        String userId = getUserId(authentication);
+        return ResponseEntity.ok(messageService.getArchivedMessages(channelId, userId, before, size));
+    }
+
     @PutMapping("/{messageId}")
     public ResponseEntity<MessageDto> editMessage(
             @PathVariable Long messageId,
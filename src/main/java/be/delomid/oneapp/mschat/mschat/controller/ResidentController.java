@@ -2,6 +2,8 @@ package be.delomid.oneapp.mschat.mschat.controller;
 
  import be.delomid.oneapp.mschat.mschat.dto.CreateResidentRequest;
  import be.delomid.oneapp.mschat.mschat.dto.ResidentDto;
+ import be.delomid.oneapp.mschat.mschat.dto.TypeaheadResultDto;
+ import be.delomid.oneapp.mschat.mschat.service.DirectorySearchService;
  import be.delomid.oneapp.mschat.mschat.service.ResidentService;
  import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -21,6 +23,7 @@ import java.util.Optional;
 public class ResidentController {
 
     private final ResidentService residentService;
+    private final DirectorySearchService directorySearchService;
 
     @PostMapping
     public ResponseEntity<ResidentDto> createResident(
@@ -65,6 +68,17 @@ public class ResidentController {
         return ResponseEntity.ok(residents);
     }
 
+    @GetMapping("/typeahead")
+    public ResponseEntity<List<TypeaheadResultDto>> typeaheadResidents(
+            @RequestParam String buildingId,
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit,
+            Authentication authentication) {
+
+        List<TypeaheadResultDto> results = directorySearchService.searchResidents(buildingId, q, limit, authentication);
+        return ResponseEntity.ok(results);
+    }
+
     @GetMapping("/{userId}/apartment")
     public ResponseEntity<ResidentDto> getResidentApartmentInfo(@PathVariable String userId) {
         Optional<ResidentDto> resident = residentService.getResidentApartmentInfo(userId);
@@ -1,7 +1,10 @@
 package be.delomid.oneapp.mschat.mschat.controller;
 
 import be.delomid.oneapp.mschat.mschat.dto.MessageDto;
+import be.delomid.oneapp.mschat.mschat.dto.ResumeRequest;
+import be.delomid.oneapp.mschat.mschat.dto.ResumeResponseDto;
 import be.delomid.oneapp.mschat.mschat.dto.SendMessageRequest;
+import be.delomid.oneapp.mschat.mschat.service.MessageSendMetrics;
 import be.delomid.oneapp.mschat.mschat.service.MessageService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -20,6 +23,7 @@ public class WebSocketMessageController {
 
     private final MessageService messageService;
     private final SimpMessagingTemplate messagingTemplate;
+    private final MessageSendMetrics messageSendMetrics;
 
     @MessageMapping("/message.send")
     public void sendMessage(@Payload SendMessageRequest request,
@@ -34,10 +38,10 @@ public class WebSocketMessageController {
             MessageDto message = messageService.sendMessage(request, userId);
 
             // Diffuser le message à tous les membres du canal
-            messagingTemplate.convertAndSend(
+            messageSendMetrics.broadcast(() -> messagingTemplate.convertAndSend(
                     "/topic/channel/" + request.getChannelId(),
                     message
-            );
+            ));
 
             log.debug("Message sent via WebSocket: channelId={}, userId={}, type={}",
                     request.getChannelId(), userId, request.getType());
@@ -54,6 +58,37 @@ public class WebSocketMessageController {
         }
     }
 
+    // Les événements message.updated / message.deleted sont publiés par le service, comme pour le REST
+    @MessageMapping("/message.edit")
+    public void editMessage(@Payload MessageChangeRequest request, Principal principal) {
+        try {
+            messageService.editMessage(request.getMessageId(), request.getContent(), principal.getName());
+        } catch (Exception e) {
+            log.error("Error editing message via WebSocket", e);
+            messagingTemplate.convertAndSendToUser(principal.getName(), "/queue/errors",
+                    "Error editing message: " + e.getMessage());
+        }
+    }
+
+    @MessageMapping("/message.delete")
+    public void deleteMessage(@Payload MessageChangeRequest request, Principal principal) {
+        try {
+            messageService.deleteMessage(request.getMessageId(), principal.getName());
+        } catch (Exception e) {
+            log.error("Error deleting message via WebSocket", e);
+            messagingTemplate.convertAndSendToUser(principal.getName(), "/queue/errors",
+                    "Error deleting message: " + e.getMessage());
+        }
+    }
+
+    @MessageMapping("/channel.resume")
+    public void resume(@Payload ResumeRequest request, Principal principal) {
+        // Le client s'abonne d'abord aux canaux puis envoie ses derniers numéros : rien n'est perdu entre les deux
+        for (ResumeResponseDto response : messageService.resume(request, principal.getName())) {
+            messagingTemplate.convertAndSendToUser(principal.getName(), "/queue/resume", response);
+        }
+    }
+
     @MessageMapping("/message.typing")
     public void handleTyping(@Payload TypingEvent typingEvent, Principal principal) {
         // Diffuser l'événement "en train d'écrire" aux autres membres du canal
@@ -65,6 +100,16 @@ public class WebSocketMessageController {
         );
     }
 
+    public static class MessageChangeRequest {
+        private Long messageId;
+        private String content;
+
+        public Long getMessageId() { return messageId; }
+        public void setMessageId(Long messageId) { this.messageId = messageId; }
+        public String getContent() { return content; }
+        public void setContent(String content) { this.content = content; }
+    }
+
     public static class TypingEvent {
         private Long channelId;
         private String userId;
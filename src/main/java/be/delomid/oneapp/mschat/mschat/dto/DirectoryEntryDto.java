@@ -0,0 +1,23 @@
+package be.delomid.oneapp.mschat.mschat.dto;
+
+import be.delomid.oneapp.mschat.mschat.model.UserRole;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DirectoryEntryDto {
+    private String idUsers;
+    private String fname;
+    private String lname;
+    private String email;
+    private String phoneNumber;
+    private String picture;
+    private String apartmentId;
+    private String apartmentLabel;
+    private String apartmentNumber;
+    private Integer apartmentFloor;
+    private UserRole roleInBuilding;
+}
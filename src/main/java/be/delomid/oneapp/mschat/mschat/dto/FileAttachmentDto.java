@@ -1,13 +1,17 @@
 package be.delomid.oneapp.mschat.mschat.dto;
 
 import be.delomid.oneapp.mschat.mschat.model.FileType;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class FileAttachmentDto {
     private Long id;
     private String originalFilename;
@@ -0,0 +1,27 @@
+package be.delomid.oneapp.mschat.mschat.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ImportReport {
+    private long rowsRead;
+    private long rowsImported;
+    private int buildingsCreated;
+    private int apartmentsCreated;
+    private int residentsCreated;
+    private int linksCreated;
+    private long errorCount;
+    private boolean errorsTruncated;
+    private List<RowError> errors = new ArrayList<>();
+
+    @Data
+    @AllArgsConstructor
+    public static class RowError {
+        private long line;
+        private String message;
+    }
+}
@@ -0,0 +1,14 @@
+package be.delomid.oneapp.mschat.mschat.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class MembershipSyncResult {
+    private Long channelId;
+    private int added;
+    private int reactivated;
+    private int deactivated;
+    private long activeMembers;
+}
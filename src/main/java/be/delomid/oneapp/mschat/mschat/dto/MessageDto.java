@@ -1,16 +1,21 @@
 package be.delomid.oneapp.mschat.mschat.dto;
 
 import be.delomid.oneapp.mschat.mschat.model.MessageType;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class MessageDto {
     private Long id;
     private Long channelId;
+    private Long sequenceNumber;
     private String senderId;
     private String content;
     private MessageType type;
@@ -18,6 +23,7 @@ public class MessageDto {
     private FileAttachmentDto fileAttachment;
     private Boolean isEdited;
     private Boolean isDeleted;
+    private Long version;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 }
\ No newline at end of file
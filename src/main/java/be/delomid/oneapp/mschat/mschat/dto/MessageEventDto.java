@@ -0,0 +1,23 @@
+package be.delomid.oneapp.mschat.mschat.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Change to an existing message, published to {@code /topic/channel/{id}/events}. Clients apply it when
+ * {@code version} is newer than the copy they hold.
+ */
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MessageEventDto {
+    public static final String UPDATED = "message.updated";
+    public static final String DELETED = "message.deleted";
+
+    private String type;
+    private Long messageId;
+    private Long channelId;
+    private String content;
+    private Long version;
+}
@@ -0,0 +1,72 @@
+package be.delomid.oneapp.mschat.mschat.dto;
+
+import be.delomid.oneapp.mschat.mschat.model.FileType;
+import be.delomid.oneapp.mschat.mschat.model.MessageType;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Broadcast form of {@link MessageDto} for clients that negotiated a binary payload format: no server
+ * paths or stored file names, links relative to the API base, and null fields omitted.
+ */
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MessageWireDto {
+    private Long id;
+    private Long channelId;
+    private Long sequenceNumber;
+    private String senderId;
+    private String content;
+    private MessageType type;
+    private Long replyToId;
+    private Attachment file;
+    private Boolean isEdited;
+    private Boolean isDeleted;
+    private Long version;
+    private LocalDateTime createdAt;
+
+    @Data
+    @Builder
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Attachment {
+        private Long id;
+        private String name;
+        private Long size;
+        private String mimeType;
+        private FileType fileType;
+        private Integer duration;
+        private String downloadPath;
+        private String thumbnailPath;
+    }
+
+    public static MessageWireDto from(MessageDto message) {
+        FileAttachmentDto file = message.getFileAttachment();
+        return MessageWireDto.builder()
+                .id(message.getId())
+                .channelId(message.getChannelId())
+                .sequenceNumber(message.getSequenceNumber())
+                .senderId(message.getSenderId())
+                .content(message.getContent())
+                .type(message.getType())
+                .replyToId(message.getReplyToId())
+                .file(file == null ? null : Attachment.builder()
+                        .id(file.getId())
+                        .name(file.getOriginalFilename())
+                        .size(file.getFileSize())
+                        .mimeType(file.getMimeType())
+                        .fileType(file.getFileType())
+                        .duration(file.getDuration())
+                        .downloadPath("/files/download/" + file.getStoredFilename())
+                        .thumbnailPath(file.getThumbnailPath() != null ? "/files/" + file.getThumbnailPath() : null)
+                        .build())
+                .isEdited(Boolean.TRUE.equals(message.getIsEdited()) ? true : null)
+                .isDeleted(Boolean.TRUE.equals(message.getIsDeleted()) ? true : null)
+                .version(message.getVersion() != null && message.getVersion() > 0 ? message.getVersion() : null)
+                .createdAt(message.getCreatedAt())
+                .build();
+    }
+}
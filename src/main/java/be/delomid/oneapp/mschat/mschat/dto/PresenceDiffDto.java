@@ -0,0 +1,15 @@
+package be.delomid.oneapp.mschat.mschat.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class PresenceDiffDto {
+    private String buildingId;
+    private List<String> online;
+    private List<String> offline;
+    private long timestamp;
+}
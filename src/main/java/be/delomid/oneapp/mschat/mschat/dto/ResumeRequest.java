@@ -0,0 +1,12 @@
+package be.delomid.oneapp.mschat.mschat.dto;
+
+import lombok.Data;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+public class ResumeRequest {
+    // channelId -> dernier numéro de séquence reçu (0 si aucun)
+    private Map<Long, Long> channels = new HashMap<>();
+}
@@ -0,0 +1,16 @@
+package be.delomid.oneapp.mschat.mschat.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class ResumeResponseDto {
+    private Long channelId;
+    private List<MessageDto> messages;
+    private Long lastSequence;
+    // false : d'autres messages manquent encore, le client repart de lastSequence
+    private boolean complete;
+}
@@ -0,0 +1,13 @@
+package be.delomid.oneapp.mschat.mschat.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class TypeaheadResultDto {
+    private String id;
+    private String label;
+    private String detail;
+    private String picture;
+}
@@ -0,0 +1,7 @@
+package be.delomid.oneapp.mschat.mschat.exception;
+
+public class TooManyRequestsException extends RuntimeException {
+    public TooManyRequestsException(String message) {
+        super(message);
+    }
+}
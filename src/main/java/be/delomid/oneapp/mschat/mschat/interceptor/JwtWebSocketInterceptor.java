@@ -1,6 +1,9 @@
 package be.delomid.oneapp.mschat.mschat.interceptor;
 
 import be.delomid.oneapp.mschat.mschat.config.JwtConfig;
+import be.delomid.oneapp.mschat.mschat.config.VerifiedToken;
+import be.delomid.oneapp.mschat.mschat.service.ChannelSubscriptionService;
+import be.delomid.oneapp.mschat.mschat.service.TokenVersionService;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,6 +25,12 @@ public class JwtWebSocketInterceptor implements ChannelInterceptor {
     @Autowired
     private JwtConfig jwtConfig;
 
+    @Autowired
+    private TokenVersionService tokenVersionService;
+
+    @Autowired
+    private ChannelSubscriptionService channelSubscriptionService;
+
     @Override
     public Message<?> preSend(Message<?> message, MessageChannel channel) {
         StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
@@ -36,11 +45,18 @@ public class JwtWebSocketInterceptor implements ChannelInterceptor {
                 }
 
                 try {
-                    String email = jwtConfig.extractUsername(token);
-                    String userId = jwtConfig.extractUserId(token);
-                    String buildingId = jwtConfig.extractBuildingId(token);
+                    VerifiedToken verifiedToken = jwtConfig.verify(token);
+                    String email = verifiedToken.getSubject();
+                    String userId = verifiedToken.getUserId();
+                    String buildingId = verifiedToken.getBuildingId();
+
+                    if (verifiedToken.getTokenVersion() != null
+                            && !tokenVersionService.isCurrent(userId, verifiedToken.getTokenVersion())) {
+                        log.error("Revoked JWT token for WebSocket connection");
+                        return null;
+                    }
 
-                    if (jwtConfig.validateToken(token, email)) {
+                    if (jwtConfig.isValid(verifiedToken, email)) {
                         accessor.setUser(new JwtPrincipal(userId != null ? userId : email, email, buildingId));
                         log.debug("WebSocket connection authenticated for user: {} in building: {}", userId, buildingId);
                     } else {
@@ -56,6 +72,16 @@ public class JwtWebSocketInterceptor implements ChannelInterceptor {
                 log.error("No Authorization header found in WebSocket connection");
                 return null; // Reject the connection
             }
+        } else if (StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
+            // Autorisé une fois ici : le broker ne diffuse ensuite qu'aux abonnés légitimes
+            if (!channelSubscriptionService.authorizeSubscribe(accessor.getUser(), accessor.getSessionId(),
+                    accessor.getSubscriptionId(), accessor.getDestination())) {
+                log.warn("Subscription to {} denied for user: {}", accessor.getDestination(),
+                        accessor.getUser() != null ? accessor.getUser().getName() : null);
+                return null;
+            }
+        } else if (StompCommand.UNSUBSCRIBE.equals(accessor.getCommand())) {
+            channelSubscriptionService.unsubscribed(accessor.getSessionId(), accessor.getSubscriptionId());
         }
 
         return message;
@@ -0,0 +1,203 @@
+package be.delomid.oneapp.mschat.mschat.interceptor;
+
+import be.delomid.oneapp.mschat.mschat.dto.MessageDto;
+import be.delomid.oneapp.mschat.mschat.dto.MessageWireDto;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Re-encodes outbound STOMP MESSAGE payloads for sessions that asked for a binary format with the
+ * {@code payload-format: cbor|smile} header of their CONNECT frame. Sessions without the header keep JSON.
+ * <p>
+ * Channel messages are sent as {@link MessageWireDto}. Binary frames go out with
+ * {@code content-type: application/octet-stream}, which makes Spring use binary WebSocket frames, and
+ * with a {@code payload-format} header the client decodes by. The broker hands the same payload to every
+ * subscriber, so each payload is encoded once per format and reused for all sessions.
+ * Compression is left to permessage-deflate, which Tomcat negotiates when the client offers it.
+ */
+@Slf4j
+@Component
+public class PayloadFormatInterceptor implements ChannelInterceptor {
+
+    public static final String PAYLOAD_FORMAT_HEADER = "payload-format";
+
+    private static final Pattern CHANNEL_TOPIC = Pattern.compile("^/topic/channel/\\d+$");
+    private static final int ENCODED_CACHE_SIZE = 256;
+
+    public enum PayloadFormat {
+        JSON, CBOR, SMILE
+    }
+
+    private final ObjectMapper jsonMapper;
+    private final Map<PayloadFormat, ObjectMapper> binaryMappers = new EnumMap<>(PayloadFormat.class);
+    private final Map<String, PayloadFormat> formats = new ConcurrentHashMap<>();
+    // Tableaux comparés par identité : une entrée par diffusion, partagée par tous les abonnés
+    private final Map<PayloadFormat, Map<byte[], byte[]>> encoded = new EnumMap<>(PayloadFormat.class);
+    private final Map<PayloadFormat, DistributionSummary> payloadBytes = new EnumMap<>(PayloadFormat.class);
+    private final Map<PayloadFormat, Timer> encodeTimers = new EnumMap<>(PayloadFormat.class);
+    private final MeterRegistry meterRegistry;
+
+    public PayloadFormatInterceptor(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.jsonMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        binaryMappers.put(PayloadFormat.CBOR, configure(new CBORMapper()));
+        binaryMappers.put(PayloadFormat.SMILE, configure(new SmileMapper()));
+
+        for (PayloadFormat format : PayloadFormat.values()) {
+            String tag = format.name().toLowerCase(Locale.ROOT);
+            payloadBytes.put(format, DistributionSummary.builder("websocket.outbound.payload.bytes")
+                    .baseUnit("bytes")
+                    .tag("format", tag)
+                    .register(meterRegistry));
+            encodeTimers.put(format, meterRegistry.timer("websocket.outbound.payload.encode", "format", tag));
+            encoded.put(format, Collections.synchronizedMap(new LinkedHashMap<>(ENCODED_CACHE_SIZE, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<byte[], byte[]> eldest) {
+                    return size() > ENCODED_CACHE_SIZE;
+                }
+            }));
+        }
+    }
+
+    @EventListener
+    public void onConnect(SessionConnectEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String requested = accessor.getFirstNativeHeader(PAYLOAD_FORMAT_HEADER);
+        if (accessor.getSessionId() == null || requested == null) {
+            return;
+        }
+        try {
+            PayloadFormat format = PayloadFormat.valueOf(requested.trim().toUpperCase(Locale.ROOT));
+            if (format != PayloadFormat.JSON) {
+                formats.put(accessor.getSessionId(), format);
+            }
+        } catch (IllegalArgumentException e) {
+            log.debug("Unknown payload format {} requested by session {}, using JSON", requested, accessor.getSessionId());
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        formats.remove(event.getSessionId());
+    }
+
+    /**
+     * Decorator factory for {@code WebSocketTransportRegistration}: counts connections by negotiated compression.
+     */
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                boolean deflate = session.getExtensions().stream()
+                        .anyMatch(extension -> "permessage-deflate".equalsIgnoreCase(extension.getName()));
+                meterRegistry.counter("websocket.connections", "compression", deflate ? "permessage-deflate" : "none")
+                        .increment();
+                super.afterConnectionEstablished(session);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                formats.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE
+                || !(message.getPayload() instanceof byte[] payload)) {
+            return message;
+        }
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        PayloadFormat format = sessionId != null ? formats.getOrDefault(sessionId, PayloadFormat.JSON) : PayloadFormat.JSON;
+        MimeType contentType = contentType(message);
+
+        if (format == PayloadFormat.JSON || contentType == null
+                || !MimeTypeUtils.APPLICATION_JSON.isCompatibleWith(contentType)) {
+            payloadBytes.get(PayloadFormat.JSON).record(payload.length);
+            return message;
+        }
+
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        byte[] body = encoded.get(format).get(payload);
+        if (body == null) {
+            body = encode(payload, destination, format);
+            if (body == null) {
+                payloadBytes.get(PayloadFormat.JSON).record(payload.length);
+                return message;
+            }
+            encoded.get(format).put(payload, body);
+        }
+        payloadBytes.get(format).record(body.length);
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        accessor.setNativeHeader(PAYLOAD_FORMAT_HEADER, format.name().toLowerCase(Locale.ROOT));
+        return MessageBuilder.createMessage(body, accessor.getMessageHeaders());
+    }
+
+    private byte[] encode(byte[] json, String destination, PayloadFormat format) {
+        long start = System.nanoTime();
+        try {
+            JsonNode tree = jsonMapper.readTree(json);
+            Object value = tree;
+            if (destination != null && CHANNEL_TOPIC.matcher(destination).matches() && tree.has("senderId")) {
+                value = MessageWireDto.from(jsonMapper.treeToValue(tree, MessageDto.class));
+            }
+            return binaryMappers.get(format).writeValueAsBytes(value);
+        } catch (IOException e) {
+            log.warn("Payload for {} could not be encoded as {}: {}", destination, format, e.getMessage());
+            return null;
+        } finally {
+            encodeTimers.get(format).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static MimeType contentType(Message<?> message) {
+        Object value = message.getHeaders().get(MessageHeaders.CONTENT_TYPE);
+        if (value instanceof MimeType mimeType) {
+            return mimeType;
+        }
+        return value instanceof String text ? MimeTypeUtils.parseMimeType(text) : null;
+    }
+
+    private static ObjectMapper configure(ObjectMapper mapper) {
+        return mapper.findAndRegisterModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+}
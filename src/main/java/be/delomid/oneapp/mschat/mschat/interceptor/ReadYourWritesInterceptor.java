@@ -0,0 +1,37 @@
+package be.delomid.oneapp.mschat.mschat.interceptor;
+
+import be.delomid.oneapp.mschat.mschat.service.ReadYourWritesTracker;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+
+/**
+ * Binds the STOMP session user to the thread handling an inbound message, for
+ * {@link ReadYourWritesTracker}: the security context is not populated on those threads.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReadYourWritesInterceptor implements ExecutorChannelInterceptor {
+
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        Principal user = SimpMessageHeaderAccessor.getUser(message.getHeaders());
+        if (user != null) {
+            readYourWritesTracker.bindStompUser(user.getName());
+        }
+        return message;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        readYourWritesTracker.clearStompUser();
+    }
+}
@@ -0,0 +1,189 @@
+package be.delomid.oneapp.mschat.mschat.interceptor;
+
+import be.delomid.oneapp.mschat.mschat.config.AppConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Per-session outbound flow control for STOMP over WebSocket.
+ * <p>
+ * Every frame headed to a session is counted when it enters {@code clientOutboundChannel} and uncounted once
+ * it has been written to the socket, which gives the session's queue depth. Above
+ * {@code app.websocket.slow-consumer-soft-limit} frames, typing and presence frames for that session are
+ * dropped: both are superseded by the next event anyway. Above {@code slow-consumer-hard-limit}, or when a
+ * single write has been blocked for {@code slow-consumer-max-send-ms}, the session is closed with
+ * {@link #SLOW_CONSUMER} so the client reconnects and resumes instead of treating it as a failure.
+ * These limits sit below Spring's own send time and buffer limits, which remain the last resort.
+ */
+@Slf4j
+@Component
+public class SlowConsumerInterceptor implements ChannelInterceptor {
+
+    public static final CloseStatus SLOW_CONSUMER = new CloseStatus(4008, "Slow consumer, reconnect and resume");
+
+    private static final Pattern DROPPABLE = Pattern.compile("^/topic/(channel/\\d+/typing|building/[^/]+/presence)$");
+
+    private final AppConfig.WebSocket config;
+    private final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+    private final Counter droppedTyping;
+    private final Counter droppedPresence;
+    private final Counter slowConsumerClosed;
+
+    public SlowConsumerInterceptor(AppConfig appConfig, MeterRegistry meterRegistry) {
+        this.config = appConfig.getWebsocket();
+        this.droppedTyping = meterRegistry.counter("websocket.outbound.dropped", "type", "typing");
+        this.droppedPresence = meterRegistry.counter("websocket.outbound.dropped", "type", "presence");
+        this.slowConsumerClosed = meterRegistry.counter("websocket.outbound.slow_consumer.closed");
+        meterRegistry.gaugeMapSize("websocket.outbound.sessions", List.of(), sessions);
+        meterRegistry.gauge("websocket.outbound.queue.max", sessions,
+                states -> states.values().stream().mapToLong(state -> state.queuedFrames.get()).max().orElse(0));
+        meterRegistry.gauge("websocket.outbound.queue.bytes", sessions,
+                states -> states.values().stream().mapToLong(state -> state.queuedBytes.get()).sum());
+    }
+
+    /**
+     * Decorator factory for {@code WebSocketTransportRegistration}: wraps every session so that actual socket
+     * writes can be observed.
+     */
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                SessionState state = new SessionState(session);
+                sessions.put(session.getId(), state);
+                super.afterConnectionEstablished(new TrackingSession(session, state));
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                sessions.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        SessionState state = sessionId != null ? sessions.get(sessionId) : null;
+        if (state == null) {
+            return message;
+        }
+
+        long queued = state.queuedFrames.get();
+        if (queued >= config.getSlowConsumerHardLimit() || state.blockedForMs() >= config.getSlowConsumerMaxSendMs()) {
+            closeSlowConsumer(state, queued);
+            return null;
+        }
+
+        if (queued >= config.getSlowConsumerSoftLimit()
+                && SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) == SimpMessageType.MESSAGE) {
+            String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+            if (destination != null && DROPPABLE.matcher(destination).matches()) {
+                state.dropped.incrementAndGet();
+                (destination.endsWith("/typing") ? droppedTyping : droppedPresence).increment();
+                return null;
+            }
+        }
+
+        state.queuedFrames.incrementAndGet();
+        state.queuedBytes.addAndGet(payloadSize(message));
+        return message;
+    }
+
+    /**
+     * Sessions ordered by queue depth, deepest first.
+     */
+    public List<SessionQueueStats> snapshot(int limit) {
+        return sessions.values().stream()
+                .map(state -> new SessionQueueStats(state.session.getId(), state.queuedFrames.get(),
+                        state.queuedBytes.get(), state.blockedForMs(), state.dropped.get()))
+                .sorted(Comparator.comparingLong(SessionQueueStats::queuedFrames).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    private void closeSlowConsumer(SessionState state, long queued) {
+        if (!state.closing.compareAndSet(false, true)) {
+            return;
+        }
+        slowConsumerClosed.increment();
+        log.warn("Closing slow WebSocket session {}: {} frames queued, write blocked for {} ms, {} frames dropped",
+                state.session.getId(), queued, state.blockedForMs(), state.dropped.get());
+        try {
+            state.session.close(SLOW_CONSUMER);
+        } catch (IOException e) {
+            log.debug("Error closing slow WebSocket session {}: {}", state.session.getId(), e.getMessage());
+        }
+    }
+
+    private static int payloadSize(Message<?> message) {
+        return message.getPayload() instanceof byte[] bytes ? bytes.length : 0;
+    }
+
+    public record SessionQueueStats(String sessionId, long queuedFrames, long queuedBytes, long blockedForMs, long dropped) {
+    }
+
+    private static final class SessionState {
+        private final WebSocketSession session;
+        private final AtomicLong queuedFrames = new AtomicLong();
+        private final AtomicLong queuedBytes = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private final AtomicBoolean closing = new AtomicBoolean();
+        private volatile long sendStartedAt;
+
+        private SessionState(WebSocketSession session) {
+            this.session = session;
+        }
+
+        private long blockedForMs() {
+            long startedAt = sendStartedAt;
+            return startedAt == 0 ? 0 : System.currentTimeMillis() - startedAt;
+        }
+    }
+
+    // Sous le ConcurrentWebSocketSessionDecorator de Spring : ne voit que les écritures réelles sur la socket
+    private static final class TrackingSession extends WebSocketSessionDecorator {
+        private final SessionState state;
+
+        private TrackingSession(WebSocketSession session, SessionState state) {
+            super(session);
+            this.state = state;
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            state.sendStartedAt = System.currentTimeMillis();
+            try {
+                super.sendMessage(message);
+            } finally {
+                state.sendStartedAt = 0;
+                // Les trames hors canal (heartbeats, erreurs) ne doivent pas rendre les compteurs négatifs
+                state.queuedFrames.updateAndGet(value -> Math.max(0, value - 1));
+                state.queuedBytes.updateAndGet(value -> Math.max(0, value - message.getPayloadLength()));
+            }
+        }
+    }
+}
@@ -55,6 +55,10 @@ public class Channel {
     @Column(name = "is_private")
     private Boolean isPrivate = false;
 
+    @Builder.Default
+    @Column(name = "last_message_sequence")
+    private Long lastMessageSequence = 0L;
+
     @OneToMany(mappedBy = "channel", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @Builder.Default
     private Set<ChannelMember> members = new HashSet<>();
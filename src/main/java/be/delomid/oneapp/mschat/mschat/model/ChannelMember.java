@@ -12,7 +12,9 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "channel_members")
+@Table(name = "channel_members", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_channel_members_channel_user", columnNames = {"channel_id", "user_id"})
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,7 @@
+package be.delomid.oneapp.mschat.mschat.model;
+
+public enum EmailOutboxStatus {
+    PENDING,    // En attente d'envoi (ou de nouvelle tentative)
+    SENT,       // Envoyé avec succès
+    FAILED      // Abandonné après le nombre maximum de tentatives
+}
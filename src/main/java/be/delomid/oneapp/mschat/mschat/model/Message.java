@@ -13,7 +13,11 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "messages")
+// Non unique : une table partitionnée n'accepte que des index uniques contenant created_at ; l'unicité
+// des numéros est garantie par leur attribution sous le verrou du canal
+@Table(name = "messages", indexes = {
+        @Index(name = "idx_messages_channel_sequence", columnList = "channel_id, sequence_number")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -30,6 +34,10 @@ public class Message {
     @JoinColumn(name = "channel_id", nullable = false)
     private Channel channel;
 
+    // Attribué sous le verrou de ligne du canal : l'ordre des numéros est l'ordre des commits
+    @Column(name = "sequence_number")
+    private Long sequenceNumber;
+
     @Column(name = "sender_id", nullable = false)
     private String senderId;
 
@@ -55,6 +63,11 @@ public class Message {
     @Column(name = "is_deleted")
     private Boolean isDeleted = false;
 
+    // Incrémentée à chaque modification ou suppression, transmise dans les événements du canal
+    @Builder.Default
+    @Column(name = "version")
+    private Long version = 0L;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
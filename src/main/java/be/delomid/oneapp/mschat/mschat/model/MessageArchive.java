@@ -0,0 +1,46 @@
+package be.delomid.oneapp.mschat.mschat.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "message_archives", indexes = {
+        @Index(name = "idx_message_archives_range_start", columnList = "range_start")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MessageArchive {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "partition_name", nullable = false, unique = true)
+    private String partitionName;
+
+    // Bornes de la partition : [rangeStart, rangeEnd)
+    @Column(name = "range_start", nullable = false)
+    private LocalDate rangeStart;
+
+    @Column(name = "range_end", nullable = false)
+    private LocalDate rangeEnd;
+
+    @Column(name = "file_path", nullable = false)
+    private String filePath;
+
+    @Column(name = "row_count", nullable = false)
+    private Long rowCount;
+
+    @CreationTimestamp
+    @Column(name = "archived_at", nullable = false, updatable = false)
+    private LocalDateTime archivedAt;
+}
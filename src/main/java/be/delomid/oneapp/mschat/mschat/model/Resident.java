@@ -78,6 +78,15 @@ public class Resident implements UserDetails {
     @Column(name = "is_enabled")
     private Boolean isEnabled = false;
 
+    // Incrémenté à chaque révocation des tokens (blocage, changement de mot de passe...)
+    @Builder.Default
+    @Column(name = "token_version")
+    private Long tokenVersion = 0L;
+
+    // Écrit en différé par PresenceService à la déconnexion de la dernière session
+    @Column(name = "last_seen_at")
+    private LocalDateTime lastSeenAt;
+
     @OneToOne(mappedBy = "resident", fetch = FetchType.LAZY)
     private Apartment apartment;
 
@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -27,6 +28,9 @@ public interface ApartmentRepository extends JpaRepository<Apartment, String> {
 
     Optional<Apartment> findByResidentIdUsers(String userId);
 
+    @Query("SELECT a.idApartment FROM Apartment a WHERE a.idApartment IN :apartmentIds")
+    List<String> findExistingIds(@Param("apartmentIds") Collection<String> apartmentIds);
+
     @Query("SELECT a FROM Apartment a WHERE a.resident.email = :email")
     Optional<Apartment> findByResidentEmail(@Param("email") String email);
 
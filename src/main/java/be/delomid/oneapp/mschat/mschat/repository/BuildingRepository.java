@@ -3,25 +3,47 @@ package be.delomid.oneapp.mschat.mschat.repository;
  import be.delomid.oneapp.mschat.mschat.model.Building;
  import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface BuildingRepository extends JpaRepository<Building, String> {
 
-    @Query("SELECT b FROM Building b WHERE b.address.ville = :ville")
+    @Query("SELECT b FROM Building b JOIN FETCH b.address ad WHERE ad.ville = :ville")
     List<Building> findByCity(@Param("ville") String ville);
 
-    @Query("SELECT b FROM Building b WHERE b.address.codePostal = :codePostal")
+    @Query("SELECT b FROM Building b JOIN FETCH b.address ad WHERE ad.codePostal = :codePostal")
     List<Building> findByPostalCode(@Param("codePostal") String codePostal);
 
+    @EntityGraph(attributePaths = "address")
+    @Query("SELECT b FROM Building b")
+    Page<Building> findAllWithAddress(Pageable pageable);
+
     @Query("SELECT b FROM Building b WHERE b.buildingLabel LIKE %:label%")
     Page<Building> findByBuildingLabelContaining(@Param("label") String label, Pageable pageable);
 
+    @Query("SELECT b.buildingId FROM Building b WHERE b.buildingId IN :buildingIds")
+    List<String> findExistingIds(@Param("buildingIds") Collection<String> buildingIds);
+
+    // buildingId, libellé, ville, code postal : alimentent l'index de recherche
+    @Query("SELECT b.buildingId, b.buildingLabel, ad.ville, ad.codePostal FROM Building b LEFT JOIN b.address ad")
+    List<Object[]> findSearchEntries();
+
+    @Query("SELECT b.buildingId, b.buildingLabel, ad.ville, ad.codePostal FROM Building b LEFT JOIN b.address ad " +
+           "WHERE b.buildingId = :buildingId")
+    List<Object[]> findSearchEntry(@Param("buildingId") String buildingId);
+
+    // buildingId, total appartements, appartements occupés
+    @Query("SELECT b.buildingId, COUNT(a), COUNT(a.resident) FROM Building b LEFT JOIN b.apartments a " +
+           "WHERE b.buildingId IN :buildingIds GROUP BY b.buildingId")
+    List<Object[]> findOccupancyByBuildingIds(@Param("buildingIds") Collection<String> buildingIds);
+
     @Query("SELECT COUNT(a) FROM Apartment a WHERE a.building.buildingId = :buildingId")
     Long countApartmentsByBuildingId(@Param("buildingId") String buildingId);
 
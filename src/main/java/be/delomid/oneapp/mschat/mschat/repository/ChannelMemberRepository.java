@@ -3,10 +3,13 @@ package be.delomid.oneapp.mschat.mschat.repository;
   import be.delomid.oneapp.mschat.mschat.model.ChannelMember;
   import be.delomid.oneapp.mschat.mschat.model.MemberRole;
   import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,6 +25,23 @@ public interface ChannelMemberRepository extends JpaRepository<ChannelMember, Lo
     @Query("SELECT cm FROM ChannelMember cm WHERE cm.channel.id = :channelId AND cm.role IN :roles AND cm.isActive = true")
     List<ChannelMember> findByChannelIdAndRoles(@Param("channelId") Long channelId, @Param("roles") List<MemberRole> roles);
 
+    @Query("SELECT COUNT(cm) > 0 FROM ChannelMember cm WHERE cm.channel.id = :channelId AND cm.userId = :userId AND cm.isActive = true")
+    boolean existsActiveMember(@Param("channelId") Long channelId, @Param("userId") String userId);
+
     @Query("SELECT COUNT(cm) FROM ChannelMember cm WHERE cm.channel.id = :channelId AND cm.isActive = true")
     Long countActiveByChannelId(@Param("channelId") Long channelId);
+
+    @Query("SELECT cm.userId, cm.isActive, cm.role FROM ChannelMember cm WHERE cm.channel.id = :channelId")
+    List<Object[]> findMembershipStatesByChannelId(@Param("channelId") Long channelId);
+
+    @Modifying
+    @Query("UPDATE ChannelMember cm SET cm.isActive = true, cm.leftAt = null " +
+            "WHERE cm.channel.id = :channelId AND cm.userId IN :userIds AND cm.isActive = false")
+    int reactivateMembers(@Param("channelId") Long channelId, @Param("userIds") Collection<String> userIds);
+
+    @Modifying
+    @Query("UPDATE ChannelMember cm SET cm.isActive = false, cm.leftAt = :now " +
+            "WHERE cm.channel.id = :channelId AND cm.userId IN :userIds AND cm.role = :role AND cm.isActive = true")
+    int deactivateMembers(@Param("channelId") Long channelId, @Param("userIds") Collection<String> userIds,
+                          @Param("role") MemberRole role, @Param("now") LocalDateTime now);
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import be.delomid.oneapp.mschat.mschat.model.ChannelType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -15,6 +16,14 @@ import java.util.Optional;
 @Repository
 public interface ChannelRepository extends JpaRepository<Channel, Long> {
 
+    // Verrouille la ligne du canal jusqu'au commit : les envois d'un même canal sont sérialisés
+    @Modifying
+    @Query("UPDATE Channel c SET c.lastMessageSequence = COALESCE(c.lastMessageSequence, 0) + 1 WHERE c.id = :channelId")
+    int incrementMessageSequence(@Param("channelId") Long channelId);
+
+    @Query("SELECT c.lastMessageSequence FROM Channel c WHERE c.id = :channelId")
+    Long findMessageSequence(@Param("channelId") Long channelId);
+
     @Query("SELECT c FROM Channel c JOIN c.members m WHERE m.userId = :userId AND m.isActive = true AND c.isActive = true")
     Page<Channel> findChannelsByUserId(@Param("userId") String userId, Pageable pageable);
 
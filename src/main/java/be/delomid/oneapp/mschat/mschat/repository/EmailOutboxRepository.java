@@ -0,0 +1,30 @@
+package be.delomid.oneapp.mschat.mschat.repository;
+
+import be.delomid.oneapp.mschat.mschat.model.EmailOutbox;
+import be.delomid.oneapp.mschat.mschat.model.EmailOutboxStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    // SKIP LOCKED : plusieurs nœuds peuvent réclamer des lots disjoints sans se bloquer
+    @Query(value = "SELECT * FROM email_outbox WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+            "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<EmailOutbox> lockDueBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    long countByStatus(EmailOutboxStatus status);
+
+    // Une seule instruction ; statuts en littéraux pour que PostgreSQL retienne l'index partiel idx_email_outbox_finished
+    @Modifying
+    @Query("DELETE FROM EmailOutbox e WHERE e.status IN (" +
+            "be.delomid.oneapp.mschat.mschat.model.EmailOutboxStatus.SENT, " +
+            "be.delomid.oneapp.mschat.mschat.model.EmailOutboxStatus.FAILED) AND e.createdAt < :before")
+    int deleteFinishedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,14 @@
+package be.delomid.oneapp.mschat.mschat.repository;
+
+import be.delomid.oneapp.mschat.mschat.model.MessageArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface MessageArchiveRepository extends JpaRepository<MessageArchive, Long> {
+
+    List<MessageArchive> findByRangeStartBeforeOrderByRangeStartDesc(LocalDate before);
+}
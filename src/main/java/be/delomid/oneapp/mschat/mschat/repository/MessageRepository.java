@@ -5,6 +5,7 @@ package be.delomid.oneapp.mschat.mschat.repository;
  import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -14,6 +15,14 @@ import java.util.List;
 @Repository
 public interface MessageRepository extends JpaRepository<Message, Long> {
 
+    // Verrouille la ligne du message jusqu'au commit : les modifications d'un même message sont sérialisées
+    @Modifying
+    @Query("UPDATE Message m SET m.version = COALESCE(m.version, 0) + 1 WHERE m.id = :messageId")
+    int incrementVersion(@Param("messageId") Long messageId);
+
+    @Query("SELECT m.version FROM Message m WHERE m.id = :messageId")
+    Long findVersion(@Param("messageId") Long messageId);
+
     @Query("SELECT m FROM Message m WHERE m.channel.id = :channelId AND m.isDeleted = false ORDER BY m.createdAt DESC")
     Page<Message> findByChannelIdOrderByCreatedAtDesc(@Param("channelId") Long channelId, Pageable pageable);
 
@@ -32,4 +41,11 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
 
     @Query("SELECT m FROM Message m WHERE m.channel.id = :channelId AND m.type = :type AND m.isDeleted = false ORDER BY m.createdAt DESC")
     Page<Message> findByChannelIdAndType(@Param("channelId") Long channelId, @Param("type") MessageType type, Pageable pageable);
-}
\ No newline at end of file
+
+    // Rattrapage par clé : index (channel_id, sequence_number), messages supprimés inclus pour garder la suite continue
+    @Query("SELECT m FROM Message m LEFT JOIN FETCH m.fileAttachment " +
+            "WHERE m.channel.id = :channelId AND m.sequenceNumber > :afterSequence ORDER BY m.sequenceNumber ASC")
+    List<Message> findByChannelIdAfterSequence(@Param("channelId") Long channelId,
+                                               @Param("afterSequence") Long afterSequence,
+                                               Pageable pageable);
+}
@@ -19,6 +19,8 @@ public interface OtpTokenRepository extends JpaRepository<OtpToken, Long> {
                                    @Param("otpType") OtpType otpType,
                                    @Param("now") LocalDateTime now);
     
+    Optional<OtpToken> findFirstByEmailAndOtpTypeAndIsUsedFalseOrderByCreatedAtDesc(String email, OtpType otpType);
+    
     void deleteByEmailAndOtpType(String email, OtpType otpType);
     
     void deleteByExpiresAtBefore(LocalDateTime dateTime);
@@ -1,12 +1,16 @@
 package be.delomid.oneapp.mschat.mschat.repository;
 
+import be.delomid.oneapp.mschat.mschat.dto.DirectoryEntryDto;
 import be.delomid.oneapp.mschat.mschat.model.ResidentBuilding;
 import be.delomid.oneapp.mschat.mschat.model.UserRole;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,6 +32,35 @@ public interface ResidentBuildingRepository extends JpaRepository<ResidentBuildi
     @Query("SELECT rb FROM ResidentBuilding rb WHERE rb.building.buildingId = :buildingId AND rb.isActive = true")
     List<ResidentBuilding> findActiveByBuildingId(@Param("buildingId") String buildingId);
 
+    // Annuaire d'un immeuble en une seule requête ; l'appartement vient du lien ou, à défaut, du résident
+    @Query(value = "SELECT new be.delomid.oneapp.mschat.mschat.dto.DirectoryEntryDto(" +
+                   "r.idUsers, r.fname, r.lname, r.email, r.phoneNumber, r.picture, " +
+                   "COALESCE(la.idApartment, ra.idApartment), COALESCE(la.apartmentLabel, ra.apartmentLabel), " +
+                   "COALESCE(la.apartmentNumber, ra.apartmentNumber), COALESCE(la.apartmentFloor, ra.apartmentFloor), " +
+                   "rb.roleInBuilding) " +
+                   "FROM ResidentBuilding rb JOIN rb.resident r " +
+                   "LEFT JOIN rb.apartment la " +
+                   "LEFT JOIN r.apartment ra ON ra.building.buildingId = :buildingId " +
+                   "WHERE rb.building.buildingId = :buildingId AND rb.isActive = true " +
+                   "ORDER BY COALESCE(la.apartmentFloor, ra.apartmentFloor), r.lname, r.fname, r.idUsers",
+           countQuery = "SELECT COUNT(rb) FROM ResidentBuilding rb WHERE rb.building.buildingId = :buildingId AND rb.isActive = true")
+    Page<DirectoryEntryDto> findDirectoryByBuildingId(@Param("buildingId") String buildingId, Pageable pageable);
+
+    // buildingId, idUsers, prénom, nom, email, photo
+    @Query("SELECT rb.building.buildingId, r.idUsers, r.fname, r.lname, r.email, r.picture " +
+           "FROM ResidentBuilding rb JOIN rb.resident r WHERE rb.isActive = true")
+    List<Object[]> findActiveDirectoryEntries();
+
+    @Query("SELECT rb.building.buildingId, r.idUsers, r.fname, r.lname, r.email, r.picture " +
+           "FROM ResidentBuilding rb JOIN rb.resident r WHERE rb.isActive = true AND rb.building.buildingId = :buildingId")
+    List<Object[]> findActiveDirectoryEntriesByBuildingId(@Param("buildingId") String buildingId);
+
+    @Query("SELECT rb.resident.idUsers, rb.building.buildingId FROM ResidentBuilding rb WHERE rb.resident.idUsers IN :residentIds")
+    List<Object[]> findLinksByResidentIds(@Param("residentIds") Collection<String> residentIds);
+
+    @Query("SELECT DISTINCT rb.resident.idUsers FROM ResidentBuilding rb WHERE rb.building.buildingId = :buildingId AND rb.isActive = true")
+    List<String> findActiveResidentIdsByBuildingId(@Param("buildingId") String buildingId);
+
     @Query("SELECT rb FROM ResidentBuilding rb WHERE rb.building.buildingId = :buildingId AND rb.roleInBuilding = :role AND rb.isActive = true")
     List<ResidentBuilding> findByBuildingIdAndRole(@Param("buildingId") String buildingId, @Param("role") UserRole role);
 }
\ No newline at end of file
@@ -10,6 +10,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
  import java.util.UUID;
@@ -19,6 +21,9 @@ public interface ResidentRepository extends JpaRepository<Resident, String> {
 
     Optional<Resident> findByEmail(String email);
 
+    @Query("SELECT r.email, r.idUsers FROM Resident r WHERE LOWER(r.email) IN :emails")
+    List<Object[]> findIdsByEmails(@Param("emails") Collection<String> emails);
+
     @Query("SELECT r FROM Resident r WHERE r.apartment.building.buildingId = :buildingId")
     List<Resident> findByBuildingId(@Param("buildingId") String buildingId);
 
@@ -37,6 +42,12 @@ public interface ResidentRepository extends JpaRepository<Resident, String> {
     @Query("SELECT r FROM Resident r WHERE r.role = :role AND r.managedBuildingGroupId = :buildingGroupId")
     List<Resident> findBuildingGroupAdmins(@Param("role") UserRole  role, @Param("buildingGroupId") String buildingGroupId);
     
+    @Query("SELECT r.tokenVersion FROM Resident r WHERE r.idUsers = :residentId")
+    Optional<Long> findTokenVersionById(@Param("residentId") String residentId);
+
+    @Query("SELECT r.idUsers, r.tokenVersion FROM Resident r WHERE r.updatedAt >= :since")
+    List<Object[]> findTokenVersionsUpdatedSince(@Param("since") LocalDateTime since);
+
     @Query("SELECT r FROM Resident r WHERE r.accountStatus = :status")
     Page<Resident> findByAccountStatus(@Param("status") AccountStatus status, Pageable pageable);
 }
\ No newline at end of file
@@ -1,8 +1,11 @@
 package be.delomid.oneapp.mschat.mschat.service;
 
+import be.delomid.oneapp.mschat.mschat.dto.MembershipSyncResult;
 import be.delomid.oneapp.mschat.mschat.dto.ResidentDto;
+import be.delomid.oneapp.mschat.mschat.exception.ChannelNotFoundException;
 import be.delomid.oneapp.mschat.mschat.model.*;
 import be.delomid.oneapp.mschat.mschat.repository.ApartmentRepository;
+import be.delomid.oneapp.mschat.mschat.repository.ChannelRepository;
 import be.delomid.oneapp.mschat.mschat.repository.ResidentRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -23,6 +26,10 @@ public class AdminService {
     private final ResidentRepository residentRepository;
     private final ApartmentRepository apartmentRepository;
     private final EmailService emailService;
+    private final TokenVersionService tokenVersionService;
+    private final ChannelRepository channelRepository;
+    private final ChannelMembershipService channelMembershipService;
+    private final ResidentDirectoryService residentDirectoryService;
     
     @PreAuthorize("hasRole('BUILDING_ADMIN') or hasRole('GROUP_ADMIN') or hasRole('SUPER_ADMIN')")
     public Page<ResidentDto> getPendingRegistrations(String adminId, Pageable pageable) {
@@ -64,6 +71,7 @@ public class AdminService {
             
             apartment.setResident(resident);
             apartmentRepository.save(apartment);
+            residentDirectoryService.invalidate(apartment.getBuilding().getBuildingId());
         }
         
         resident.setAccountStatus(AccountStatus.ACTIVE);
@@ -111,6 +119,7 @@ public class AdminService {
         
         resident.setAccountStatus(AccountStatus.BLOCKED);
         resident.setIsAccountNonLocked(false);
+        tokenVersionService.revoke(resident);
         resident = residentRepository.save(resident);
         
         // Envoyer email de blocage
@@ -157,6 +166,18 @@ public class AdminService {
                 .collect(Collectors.toList());
     }
     
+    @PreAuthorize("hasRole('BUILDING_ADMIN') or hasRole('GROUP_ADMIN') or hasRole('SUPER_ADMIN')")
+    public MembershipSyncResult syncBuildingChannel(String adminId, String buildingId) {
+        validateBuildingAdminAccess(adminId, buildingId);
+        
+        Channel channel = channelRepository.findSingleByTypeAndBuildingId(ChannelType.BUILDING, buildingId)
+                .orElseThrow(() -> new ChannelNotFoundException("No building channel for building: " + buildingId));
+        
+        MembershipSyncResult result = channelMembershipService.syncBuildingChannel(channel.getId(), buildingId);
+        log.debug("Building channel {} synced by admin {}: {}", channel.getId(), adminId, result);
+        return result;
+    }
+    
     private void validateAdminAccess(String adminId, String residentId) {
         Resident admin = residentRepository.findById(adminId)
                 .orElseThrow(() -> new IllegalArgumentException("Admin not found"));
@@ -181,7 +202,8 @@ public class AdminService {
     }
     
     private void validateBuildingAdminAccess(String adminId, String buildingId) {
-        Resident admin = residentRepository.findById(adminId)
+        Resident admin = residentRepository.findByEmail(adminId)
+                .or(() -> residentRepository.findById(adminId))
                 .orElseThrow(() -> new IllegalArgumentException("Admin not found"));
         
         if (admin.getRole() == UserRole.BUILDING_ADMIN && 
@@ -30,6 +30,7 @@ public class ApartmentService {
     private final ApartmentRepository apartmentRepository;
     private final BuildingRepository buildingRepository;
     private final ResidentRepository residentRepository;
+    private final ResidentDirectoryService residentDirectoryService;
 
     @Transactional
     public ApartmentDto createApartment(CreateApartmentRequest request) {
@@ -102,6 +103,7 @@ public class ApartmentService {
 
         apartment.setResident(resident);
         apartment = apartmentRepository.save(apartment);
+        residentDirectoryService.invalidate(apartment.getBuilding().getBuildingId());
 
         log.debug("Resident {} assigned to apartment {}", userId, apartmentId);
         return convertToDto(apartment);
@@ -114,6 +116,7 @@ public class ApartmentService {
 
         apartment.setResident(null);
         apartment = apartmentRepository.save(apartment);
+        residentDirectoryService.invalidate(apartment.getBuilding().getBuildingId());
 
         log.debug("Resident removed from apartment {}", apartmentId);
         return convertToDto(apartment);
@@ -134,6 +137,7 @@ public class ApartmentService {
         apartment.setIsFurnished(request.getIsFurnished());
 
         apartment = apartmentRepository.save(apartment);
+        residentDirectoryService.invalidate(apartment.getBuilding().getBuildingId());
         return convertToDto(apartment);
     }
 
@@ -0,0 +1,85 @@
+package be.delomid.oneapp.mschat.mschat.service;
+
+import be.delomid.oneapp.mschat.mschat.config.AppConfig;
+import be.delomid.oneapp.mschat.mschat.exception.TooManyRequestsException;
+import be.delomid.oneapp.mschat.mschat.util.TokenBucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-IP and per-account token buckets for the login and OTP verification endpoints.
+ * Login attempts are limited per email; OTP verifications per email and IP, so that requests sent from
+ * elsewhere cannot use up the attempts of the account owner (the OTP store already caps the guesses per code).
+ */
+@Service
+@Slf4j
+public class AuthRateLimiter {
+
+    private final AppConfig.Security.RateLimit config;
+    private final Map<String, TokenBucket> ipBuckets = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> loginBuckets = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> verificationBuckets = new ConcurrentHashMap<>();
+    private final Counter ipRejections;
+    private final Counter loginRejections;
+    private final Counter verificationRejections;
+
+    public AuthRateLimiter(AppConfig appConfig, MeterRegistry meterRegistry) {
+        this.config = appConfig.getSecurity().getRateLimit();
+        this.ipRejections = meterRegistry.counter("auth.rate_limited", "key", "ip");
+        this.loginRejections = meterRegistry.counter("auth.rate_limited", "key", "email");
+        this.verificationRejections = meterRegistry.counter("auth.rate_limited", "key", "email_ip");
+    }
+
+    public void checkLogin(String ipAddress, String email) {
+        checkIp(ipAddress);
+        if (email != null && !tryConsume(loginBuckets, normalize(email))) {
+            loginRejections.increment();
+            log.warn("Login rate limit reached for email: {}", email);
+            throw new TooManyRequestsException("Trop de tentatives pour ce compte. Veuillez réessayer plus tard.");
+        }
+    }
+
+    public void checkVerification(String ipAddress, String email) {
+        checkIp(ipAddress);
+        if (email != null && !tryConsume(verificationBuckets, normalize(email) + '|' + ipAddress)) {
+            verificationRejections.increment();
+            log.warn("OTP verification rate limit reached for email: {} from IP: {}", email, ipAddress);
+            throw new TooManyRequestsException("Trop de tentatives pour ce compte. Veuillez réessayer plus tard.");
+        }
+    }
+
+    private void checkIp(String ipAddress) {
+        if (ipAddress != null && !ipBuckets
+                .computeIfAbsent(ipAddress, ip -> new TokenBucket(config.getIpCapacity(), config.getIpRefillPerMinute()))
+                .tryConsume()) {
+            ipRejections.increment();
+            log.warn("Auth rate limit reached for IP: {}", ipAddress);
+            throw new TooManyRequestsException("Trop de tentatives. Veuillez réessayer plus tard.");
+        }
+    }
+
+    private boolean tryConsume(Map<String, TokenBucket> buckets, String key) {
+        return buckets
+                .computeIfAbsent(key, k -> new TokenBucket(config.getEmailCapacity(), config.getEmailRefillPerMinute()))
+                .tryConsume();
+    }
+
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Oublier les compteurs revenus au maximum pour borner la mémoire
+    @Scheduled(fixedRate = 300000)
+    public void evictIdleBuckets() {
+        ipBuckets.values().removeIf(TokenBucket::isFull);
+        loginBuckets.values().removeIf(TokenBucket::isFull);
+        verificationBuckets.values().removeIf(TokenBucket::isFull);
+    }
+}
@@ -1,13 +1,13 @@
 package be.delomid.oneapp.mschat.mschat.service;
 
 import be.delomid.oneapp.mschat.mschat.config.JwtConfig;
+import be.delomid.oneapp.mschat.mschat.config.VerifiedToken;
 import be.delomid.oneapp.mschat.mschat.dto.*;
 import be.delomid.oneapp.mschat.mschat.model.*;
 import be.delomid.oneapp.mschat.mschat.repository.ResidentRepository;
 import be.delomid.oneapp.mschat.mschat.repository.ResidentBuildingRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,11 +21,12 @@ import java.util.UUID;
 public class AuthService {
 
     private final ResidentRepository residentRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final JwtConfig jwtConfig;
     private final OtpService otpService;
     private final EmailService emailService;
     private final ResidentBuildingRepository residentBuildingRepository;
+    private final TokenVersionService tokenVersionService;
 
     @Transactional
     public AuthResponse register(RegisterRequest request) {
@@ -42,7 +43,7 @@ public class AuthService {
                 .fname(request.getFname())
                 .lname(request.getLname())
                 .email(request.getEmail())
-                .password(passwordEncoder.encode(request.getPassword()))
+                .password(passwordHashingService.encode(request.getPassword()))
                 .phoneNumber(request.getPhoneNumber())
                 .picture(request.getPicture())
                 .role(UserRole.RESIDENT)
@@ -97,7 +98,7 @@ public class AuthService {
         Resident resident = residentRepository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new IllegalArgumentException("Email ou mot de passe incorrect"));
 
-        if (!passwordEncoder.matches(request.getPassword(), resident.getPassword())) {
+        if (!passwordHashingService.matches(request.getPassword(), resident.getPassword())) {
             throw new IllegalArgumentException("Email ou mot de passe incorrect");
         }
 
@@ -145,7 +146,8 @@ public class AuthService {
         String tempToken = jwtConfig.generateToken(
                 resident.getEmail(),
                 resident.getIdUsers(),
-                resident.getRole().name()
+                resident.getRole().name(),
+                tokenVersionService.versionOf(resident)
         );
 
         if (userBuildings.size() > 1) {
@@ -177,11 +179,14 @@ public class AuthService {
                 resident.getEmail(),
                 resident.getIdUsers(),
                 residentBuilding.getRoleInBuilding().name(),
-                residentBuilding.getBuilding().getBuildingId()
+                residentBuilding.getBuilding().getBuildingId(),
+                resident.getRole().name(),
+                tokenVersionService.versionOf(resident)
         );
         String refreshToken = jwtConfig.generateRefreshToken(
                 resident.getEmail(),
-                resident.getIdUsers()
+                resident.getIdUsers(),
+                tokenVersionService.versionOf(resident)
         );
 
         String apartmentId = null;
@@ -209,11 +214,13 @@ public class AuthService {
         String token = jwtConfig.generateToken(
                 resident.getEmail(),
                 resident.getIdUsers(),
-                resident.getRole().name()
+                resident.getRole().name(),
+                tokenVersionService.versionOf(resident)
         );
         String refreshToken = jwtConfig.generateRefreshToken(
                 resident.getEmail(),
-                resident.getIdUsers()
+                resident.getIdUsers(),
+                tokenVersionService.versionOf(resident)
         );
 
         String buildingId = null;
@@ -241,16 +248,24 @@ public class AuthService {
 
     public AuthResponse refreshToken(String refreshToken) {
         try {
-            String email = jwtConfig.extractUsername(refreshToken);
+            VerifiedToken verifiedToken = jwtConfig.verify(refreshToken);
+            String email = verifiedToken.getSubject();
 
-            if (jwtConfig.validateToken(refreshToken, email)) {
+            if (jwtConfig.isValid(verifiedToken, email)) {
                 Resident resident = residentRepository.findByEmail(email)
                         .orElseThrow(() -> new IllegalArgumentException("Utilisateur non trouvé"));
 
+                // Refuser les tokens de rafraîchissement révoqués
+                if (verifiedToken.getTokenVersion() != null &&
+                        verifiedToken.getTokenVersion() != tokenVersionService.versionOf(resident)) {
+                    throw new IllegalArgumentException("Token de rafraîchissement révoqué");
+                }
+
                 String newToken = jwtConfig.generateToken(
                         resident.getEmail(),
                         resident.getIdUsers(),
-                        resident.getRole().name()
+                        resident.getRole().name(),
+                        tokenVersionService.versionOf(resident)
                 );
 
                 return AuthResponse.builder()
@@ -23,6 +23,7 @@ public class BuildingSelectionService {
     private final ResidentBuildingRepository residentBuildingRepository;
     private final ResidentRepository residentRepository;
     private final JwtConfig jwtConfig;
+    private final TokenVersionService tokenVersionService;
 
     public List<BuildingSelectionDto> getUserBuildings(String userId) {
         log.debug("Getting buildings for user: {}", userId);
@@ -58,12 +59,15 @@ public class BuildingSelectionService {
                 resident.getEmail(),
                 resident.getIdUsers(),
                 residentBuilding.getRoleInBuilding().name(),
-                buildingId
+                buildingId,
+                resident.getRole().name(),
+                tokenVersionService.versionOf(resident)
         );
 
         String refreshToken = jwtConfig.generateRefreshToken(
                 resident.getEmail(),
-                resident.getIdUsers()
+                resident.getIdUsers(),
+                tokenVersionService.versionOf(resident)
         );
 
         String apartmentId = null;
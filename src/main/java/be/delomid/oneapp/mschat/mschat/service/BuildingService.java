@@ -18,7 +18,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.security.SecureRandom;
 import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,6 +30,8 @@ public class BuildingService {
 
     private final BuildingRepository buildingRepository;
 private final CountryRepository countryRepository;
+    private final DirectorySearchService directorySearchService;
+    private final ResidentDirectoryService residentDirectoryService;
     private final SecureRandom random = new SecureRandom();
 
     public int generateFourDigitNumber() {
@@ -66,6 +70,7 @@ private final CountryRepository countryRepository;
                 .build();
 
         building = buildingRepository.save(building);
+        directorySearchService.indexBuilding(building);
         log.debug("Building created successfully: {}", building.getBuildingId());
 
         return convertToDto(building);
@@ -73,8 +78,9 @@ private final CountryRepository countryRepository;
 
     public Page<BuildingDto> getAllBuildings(Pageable pageable) {
         log.debug("Getting all buildings with pagination");
-        Page<Building> buildings = buildingRepository.findAll(pageable);
-        return buildings.map(this::convertToDto);
+        Page<Building> buildings = buildingRepository.findAllWithAddress(pageable);
+        Map<String, long[]> occupancy = loadOccupancy(buildings.getContent());
+        return buildings.map(building -> convertToDto(building, occupancy));
     }
 
     public BuildingDto getBuildingById(String buildingId) {
@@ -84,17 +90,11 @@ private final CountryRepository countryRepository;
     }
 
     public List<BuildingDto> getBuildingsByCity(String ville) {
-        List<Building> buildings = buildingRepository.findByCity(ville);
-        return buildings.stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return convertAll(buildingRepository.findByCity(ville));
     }
 
     public List<BuildingDto> getBuildingsByPostalCode(String codePostal) {
-        List<Building> buildings = buildingRepository.findByPostalCode(codePostal);
-        return buildings.stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return convertAll(buildingRepository.findByPostalCode(codePostal));
     }
 
     @Transactional
@@ -118,6 +118,7 @@ private final CountryRepository countryRepository;
         address.setObservation(request.getAddress().getObservation());
 
         building = buildingRepository.save(building);
+        directorySearchService.indexBuilding(building);
         return convertToDto(building);
     }
 
@@ -127,12 +128,39 @@ private final CountryRepository countryRepository;
             throw new IllegalArgumentException("Building not found: " + buildingId);
         }
         buildingRepository.deleteById(buildingId);
+        directorySearchService.removeBuilding(buildingId);
+        residentDirectoryService.invalidate(buildingId);
         log.debug("Building deleted: {}", buildingId);
     }
 
+    private List<BuildingDto> convertAll(List<Building> buildings) {
+        Map<String, long[]> occupancy = loadOccupancy(buildings);
+        return buildings.stream()
+                .map(building -> convertToDto(building, occupancy))
+                .collect(Collectors.toList());
+    }
+
+    // Une seule requête groupée pour toute la liste au lieu de deux COUNT par immeuble
+    private Map<String, long[]> loadOccupancy(List<Building> buildings) {
+        Map<String, long[]> occupancy = new HashMap<>();
+        if (buildings.isEmpty()) {
+            return occupancy;
+        }
+        List<String> buildingIds = buildings.stream().map(Building::getBuildingId).collect(Collectors.toList());
+        for (Object[] row : buildingRepository.findOccupancyByBuildingIds(buildingIds)) {
+            occupancy.put((String) row[0], new long[]{(Long) row[1], (Long) row[2]});
+        }
+        return occupancy;
+    }
+
     private BuildingDto convertToDto(Building building) {
-        Long totalApartments = buildingRepository.countApartmentsByBuildingId(building.getBuildingId());
-        Long occupiedApartments = buildingRepository.countOccupiedApartmentsByBuildingId(building.getBuildingId());
+        return convertToDto(building, loadOccupancy(List.of(building)));
+    }
+
+    private BuildingDto convertToDto(Building building, Map<String, long[]> occupancy) {
+        long[] counts = occupancy.getOrDefault(building.getBuildingId(), new long[2]);
+        Long totalApartments = counts[0];
+        Long occupiedApartments = counts[1];
 
         AddressDto addressDto = null;
         if (building.getAddress() != null) {
@@ -0,0 +1,127 @@
+package be.delomid.oneapp.mschat.mschat.service;
+
+import be.delomid.oneapp.mschat.mschat.dto.MembershipSyncResult;
+import be.delomid.oneapp.mschat.mschat.model.MemberRole;
+import be.delomid.oneapp.mschat.mschat.repository.ChannelMemberRepository;
+import be.delomid.oneapp.mschat.mschat.repository.ResidentBuildingRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Array;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Set-based channel membership provisioning: computes the difference between the wanted members and the
+ * existing {@code channel_members} rows, then inserts, reactivates and deactivates with one statement each.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ChannelMembershipService {
+
+    private static final String INSERT_MEMBERS_SQL =
+            "INSERT INTO channel_members (channel_id, user_id, role, can_write, is_active, joined_at) " +
+            "SELECT ?, u.user_id, ?, true, true, ? FROM unnest(?) AS u(user_id) " +
+            "ON CONFLICT (channel_id, user_id) DO NOTHING";
+
+    private final ChannelMemberRepository channelMemberRepository;
+    private final ResidentBuildingRepository residentBuildingRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ChannelSubscriptionService channelSubscriptionService;
+
+    /**
+     * Aligns the members of a building channel with the active {@code ResidentBuilding} links of the building.
+     * Owners and channel admins are never removed.
+     */
+    @Transactional
+    public MembershipSyncResult syncBuildingChannel(Long channelId, String buildingId) {
+        List<String> residentIds = residentBuildingRepository.findActiveResidentIdsByBuildingId(buildingId);
+        return syncMembers(channelId, new HashSet<>(residentIds), true);
+    }
+
+    /**
+     * Adds the given users as members, reactivating former members instead of duplicating their rows.
+     */
+    @Transactional
+    public MembershipSyncResult addMembers(Long channelId, Collection<String> userIds) {
+        return syncMembers(channelId, new HashSet<>(userIds), false);
+    }
+
+    private MembershipSyncResult syncMembers(Long channelId, Set<String> wanted, boolean removeOthers) {
+        Set<String> active = new HashSet<>();
+        Set<String> inactive = new HashSet<>();
+        Set<String> removable = new HashSet<>();
+
+        for (Object[] row : channelMemberRepository.findMembershipStatesByChannelId(channelId)) {
+            String userId = (String) row[0];
+            if (Boolean.TRUE.equals(row[1])) {
+                active.add(userId);
+                if (row[2] == MemberRole.MEMBER) {
+                    removable.add(userId);
+                }
+            } else {
+                inactive.add(userId);
+            }
+        }
+        inactive.removeAll(active);
+
+        Set<String> toReactivate = new HashSet<>(wanted);
+        toReactivate.retainAll(inactive);
+
+        Set<String> toInsert = new HashSet<>(wanted);
+        toInsert.removeAll(active);
+        toInsert.removeAll(inactive);
+
+        Set<String> toDeactivate = new HashSet<>();
+        if (removeOthers) {
+            toDeactivate.addAll(removable);
+            toDeactivate.removeAll(wanted);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        int added = insertMembers(channelId, toInsert, now);
+        int reactivated = toReactivate.isEmpty() ? 0 : channelMemberRepository.reactivateMembers(channelId, toReactivate);
+        int deactivated = toDeactivate.isEmpty() ? 0
+                : channelMemberRepository.deactivateMembers(channelId, toDeactivate, MemberRole.MEMBER, now);
+
+        toInsert.forEach(userId -> channelSubscriptionService.membershipGranted(channelId, userId));
+        toReactivate.forEach(userId -> channelSubscriptionService.membershipGranted(channelId, userId));
+        channelSubscriptionService.membershipsRevoked(channelId, toDeactivate);
+
+        long activeMembers = active.size() - deactivated + added + reactivated;
+        log.debug("Channel {} membership synced: {} added, {} reactivated, {} deactivated",
+                channelId, added, reactivated, deactivated);
+
+        return MembershipSyncResult.builder()
+                .channelId(channelId)
+                .added(added)
+                .reactivated(reactivated)
+                .deactivated(deactivated)
+                .activeMembers(activeMembers)
+                .build();
+    }
+
+    private int insertMembers(Long channelId, Set<String> userIds, LocalDateTime now) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        // Une seule instruction, quel que soit le nombre de membres ; un membre ajouté entre-temps est ignoré
+        return jdbcTemplate.update(connection -> {
+            var statement = connection.prepareStatement(INSERT_MEMBERS_SQL);
+            Array userIdArray = connection.createArrayOf("varchar", userIds.toArray());
+            statement.setLong(1, channelId);
+            statement.setString(2, MemberRole.MEMBER.name());
+            statement.setTimestamp(3, Timestamp.valueOf(now));
+            statement.setArray(4, userIdArray);
+            return statement;
+        });
+    }
+}
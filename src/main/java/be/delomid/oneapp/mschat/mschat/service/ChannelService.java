@@ -2,6 +2,7 @@ package be.delomid.oneapp.mschat.mschat.service;
 
 import be.delomid.oneapp.mschat.mschat.dto.ChannelDto;
 import be.delomid.oneapp.mschat.mschat.dto.CreateChannelRequest;
+import be.delomid.oneapp.mschat.mschat.dto.MembershipSyncResult;
 import be.delomid.oneapp.mschat.mschat.dto.ResidentDto;
 import be.delomid.oneapp.mschat.mschat.interceptor.JwtWebSocketInterceptor;
 import be.delomid.oneapp.mschat.mschat.exception.ChannelNotFoundException;
@@ -35,6 +36,8 @@ public class ChannelService {
     private final ResidentRepository residentRepository;
     private final ApartmentRepository apartmentRepository;
     private final ResidentBuildingRepository residentBuildingRepository;
+    private final ChannelMembershipService channelMembershipService;
+    private final ChannelSubscriptionService channelSubscriptionService;
 
     @Transactional
     public ChannelDto createChannel(CreateChannelRequest request, String createdBy) {
@@ -104,6 +107,7 @@ public class ChannelService {
                 existingMember.get().setIsActive(true);
                 existingMember.get().setLeftAt(null);
                 channelMemberRepository.save(existingMember.get());
+                channelSubscriptionService.membershipGranted(channelId, memberIdToAdd);
             }
         } else {
             addChannelMember(channel, memberIdToAdd, MemberRole.MEMBER);
@@ -129,6 +133,7 @@ public class ChannelService {
         member.setIsActive(false);
         member.setLeftAt(LocalDateTime.now());
         channelMemberRepository.save(member);
+        channelSubscriptionService.membershipRevoked(channelId, member.getUserId());
 
         log.debug("User {} removed from channel {} by admin {}", memberIdToRemove, channelId, adminId);
     }
@@ -196,6 +201,7 @@ public class ChannelService {
                 existingMember.get().setIsActive(true);
                 existingMember.get().setLeftAt(null);
                 channelMemberRepository.save(existingMember.get());
+                channelSubscriptionService.membershipGranted(channelId, existingMember.get().getUserId());
             }
         } else {
             addChannelMember(channel, userId, MemberRole.MEMBER);
@@ -215,6 +221,7 @@ public class ChannelService {
         member.setIsActive(false);
         member.setLeftAt(LocalDateTime.now());
         channelMemberRepository.save(member);
+        channelSubscriptionService.membershipRevoked(channelId, member.getUserId());
 
         log.debug("User {} left channel {}", userId, channelId);
     }
@@ -316,15 +323,9 @@ public class ChannelService {
 
         ChannelDto channel = createChannel(request, createdBy);
 
-        // Ajouter automatiquement tous les résidents du bâtiment
-        List<Resident> residents = residentRepository.findByBuildingId(buildingId);
-        Channel channelEntity = channelRepository.findById(channel.getId()).get();
-
-        for (Resident resident : residents) {
-            if (!resident.getIdUsers().equals(createdBy)) {
-                addChannelMember(channelEntity, resident.getIdUsers(), MemberRole.MEMBER);
-            }
-        }
+        // Ajouter automatiquement tous les résidents du bâtiment, en une seule instruction
+        MembershipSyncResult result = channelMembershipService.syncBuildingChannel(channel.getId(), buildingId);
+        channel.setMemberCount(result.getActiveMembers());
 
         return channel;
     }
@@ -545,6 +546,7 @@ public class ChannelService {
                 .build();
 
         channelMemberRepository.save(member);
+        channelSubscriptionService.membershipGranted(channel.getId(), realUserId);
         log.debug("Added user {} as {} to channel {}", realUserId, role, channel.getId());
     }
 
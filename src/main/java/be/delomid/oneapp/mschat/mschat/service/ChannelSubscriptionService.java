@@ -0,0 +1,215 @@
+package be.delomid.oneapp.mschat.mschat.service;
+
+import be.delomid.oneapp.mschat.mschat.config.AppConfig;
+import be.delomid.oneapp.mschat.mschat.interceptor.JwtWebSocketInterceptor;
+import be.delomid.oneapp.mschat.mschat.repository.ChannelMemberRepository;
+import be.delomid.oneapp.mschat.mschat.repository.ResidentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static be.delomid.oneapp.mschat.mschat.util.TransactionCallbacks.afterCommit;
+
+/**
+ * Authorizes STOMP SUBSCRIBE frames once per subscription, so the broker only fans out to legitimate
+ * subscribers and messages need no per-recipient check.
+ * <p>
+ * {@code /topic/channel/{id}}, {@code .../typing} and {@code .../events} require an active membership of the
+ * channel, looked up once and cached for {@code app.websocket.subscription-cache-ttl-seconds}.
+ * {@code /topic/building/{id}} and {@code .../presence} require a token issued for that building, and
+ * {@code /user/**} is scoped to the session by the broker. Every other destination is denied, as are patterns,
+ * which the simple broker would match against every channel. Accepted subscriptions are tracked so that
+ * removing a member from a channel also unsubscribes their open sessions from it.
+ */
+@Service
+@Slf4j
+public class ChannelSubscriptionService {
+
+    private static final Pattern CHANNEL_TOPIC = Pattern.compile("^/topic/channel/(\\d+)(/typing|/events)?$");
+    private static final Pattern BUILDING_TOPIC = Pattern.compile("^/topic/building/([^/]+)(/presence)?$");
+
+    private final ChannelMemberRepository channelMemberRepository;
+    private final ResidentRepository residentRepository;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final MessageChannel brokerChannel;
+    private final AppConfig.WebSocket config;
+
+    // channelId|userId -> décision, la moins récemment consultée évincée au-delà de la taille configurée
+    private final Map<String, Decision> decisions;
+    // sessionId -> (subscriptionId -> abonnement)
+    private final Map<String, Map<String, Subscription>> subscriptions = new ConcurrentHashMap<>();
+
+    // @Lazy : l'intercepteur qui nous utilise est construit avant le broker et ses canaux
+    public ChannelSubscriptionService(ChannelMemberRepository channelMemberRepository,
+                                      ResidentRepository residentRepository,
+                                      @Lazy SimpMessagingTemplate messagingTemplate,
+                                      @Lazy @Qualifier("brokerChannel") MessageChannel brokerChannel,
+                                      AppConfig appConfig) {
+        this.channelMemberRepository = channelMemberRepository;
+        this.residentRepository = residentRepository;
+        this.messagingTemplate = messagingTemplate;
+        this.brokerChannel = brokerChannel;
+        this.config = appConfig.getWebsocket();
+        int maxDecisions = config.getSubscriptionCacheSize();
+        this.decisions = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Decision> eldest) {
+                return size() > maxDecisions;
+            }
+        });
+    }
+
+    /**
+     * Returns whether the principal may subscribe to the destination and, if so, records the subscription.
+     */
+    public boolean authorizeSubscribe(Principal principal, String sessionId, String subscriptionId, String destination) {
+        if (principal == null || destination == null) {
+            return false;
+        }
+        // Le broker simple interprète les motifs Ant : /topic/channel/* recevrait tous les canaux
+        if (destination.indexOf('*') >= 0 || destination.indexOf('?') >= 0 || destination.indexOf('{') >= 0) {
+            return false;
+        }
+
+        Matcher channelTopic = CHANNEL_TOPIC.matcher(destination);
+        if (channelTopic.matches()) {
+            Long channelId = Long.valueOf(channelTopic.group(1));
+            String userId = resolveUserId(principal.getName());
+            if (!isMember(channelId, userId)) {
+                return false;
+            }
+            if (sessionId != null && subscriptionId != null) {
+                subscriptions.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>())
+                        .put(subscriptionId, new Subscription(channelId, userId, principal.getName()));
+            }
+            return true;
+        }
+
+        Matcher buildingTopic = BUILDING_TOPIC.matcher(destination);
+        if (buildingTopic.matches()) {
+            return principal instanceof JwtWebSocketInterceptor.JwtPrincipal jwtPrincipal
+                    && buildingTopic.group(1).equals(jwtPrincipal.getBuildingId());
+        }
+
+        // Destinations /user/** : limitées à la session par le broker ; /queue/...-user<session> brutes refusées
+        return destination.startsWith("/user/");
+    }
+
+    /**
+     * Same membership check as a channel subscription, for reads over STOMP such as the resume handshake.
+     */
+    public boolean canRead(String principalName, Long channelId) {
+        return principalName != null && isMember(channelId, resolveUserId(principalName));
+    }
+
+    public void unsubscribed(String sessionId, String subscriptionId) {
+        if (sessionId == null || subscriptionId == null) {
+            return;
+        }
+        Map<String, Subscription> sessionSubscriptions = subscriptions.get(sessionId);
+        if (sessionSubscriptions != null) {
+            sessionSubscriptions.remove(subscriptionId);
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        subscriptions.remove(event.getSessionId());
+    }
+
+    /**
+     * Clears the cached decision after a membership is granted, so a previous denial is not reused.
+     */
+    public void membershipGranted(Long channelId, String userId) {
+        afterCommit(() -> decisions.remove(decisionKey(channelId, userId)));
+    }
+
+    /**
+     * Drops the cached decision and unsubscribes every open session of the user from the channel topics.
+     */
+    public void membershipRevoked(Long channelId, String userId) {
+        membershipsRevoked(channelId, List.of(userId));
+    }
+
+    public void membershipsRevoked(Long channelId, Collection<String> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        Set<String> revoked = Set.copyOf(userIds);
+        afterCommit(() -> {
+            revoked.forEach(userId -> decisions.remove(decisionKey(channelId, userId)));
+            subscriptions.forEach((sessionId, sessionSubscriptions) ->
+                    sessionSubscriptions.forEach((subscriptionId, subscription) -> {
+                        if (subscription.channelId().equals(channelId) && revoked.contains(subscription.userId())) {
+                            sessionSubscriptions.remove(subscriptionId);
+                            unsubscribe(sessionId, subscriptionId, subscription);
+                        }
+                    }));
+        });
+    }
+
+    private boolean isMember(Long channelId, String userId) {
+        String key = decisionKey(channelId, userId);
+        Decision decision = decisions.get(key);
+        if (decision != null && !decision.isExpired()) {
+            return decision.allowed();
+        }
+
+        boolean allowed = channelMemberRepository.existsActiveMember(channelId, userId);
+        decisions.put(key, new Decision(allowed, System.currentTimeMillis() + config.getSubscriptionCacheTtlSeconds() * 1000));
+        return allowed;
+    }
+
+    // Anciens tokens sans claim userId : le principal porte l'email
+    private String resolveUserId(String userId) {
+        if (!userId.contains("@")) {
+            return userId;
+        }
+        return residentRepository.findByEmail(userId).map(resident -> resident.getIdUsers()).orElse(userId);
+    }
+
+    private void unsubscribe(String sessionId, String subscriptionId, Subscription subscription) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.UNSUBSCRIBE);
+        headers.setSessionId(sessionId);
+        headers.setSubscriptionId(subscriptionId);
+        headers.setLeaveMutable(true);
+        brokerChannel.send(MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders()));
+
+        messagingTemplate.convertAndSendToUser(subscription.principalName(), "/queue/channels",
+                Map.of("type", "channel.removed", "channelId", subscription.channelId()));
+        log.debug("Session {} unsubscribed from channel {} (user {})", sessionId, subscription.channelId(), subscription.userId());
+    }
+
+    private static String decisionKey(Long channelId, String userId) {
+        return channelId + "|" + userId;
+    }
+
+    private record Decision(boolean allowed, long expiresAt) {
+
+        boolean isExpired() {
+            return System.currentTimeMillis() > expiresAt;
+        }
+    }
+
+    private record Subscription(Long channelId, String userId, String principalName) {
+    }
+}
@@ -0,0 +1,491 @@
+package be.delomid.oneapp.mschat.mschat.service;
+
+import be.delomid.oneapp.mschat.mschat.config.AppConfig;
+import be.delomid.oneapp.mschat.mschat.dto.ImportReport;
+import be.delomid.oneapp.mschat.mschat.model.AccountStatus;
+import be.delomid.oneapp.mschat.mschat.model.UserRole;
+import be.delomid.oneapp.mschat.mschat.repository.ApartmentRepository;
+import be.delomid.oneapp.mschat.mschat.repository.BuildingRepository;
+import be.delomid.oneapp.mschat.mschat.repository.ResidentBuildingRepository;
+import be.delomid.oneapp.mschat.mschat.repository.ResidentRepository;
+import be.delomid.oneapp.mschat.mschat.util.CsvLineParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Streams a CSV or NDJSON file of buildings, apartments and resident links into the database.
+ * <p>
+ * The request thread parses and validates rows while a writer thread persists the previous chunk, so at most
+ * two chunks are held in memory whatever the file size. Each chunk does one bulk lookup per entity type,
+ * hashes new passwords on the shared {@link PasswordHashingService} pool and writes with JDBC batches in its own
+ * transaction. A row that fails validation creates nothing, not even the building or apartment it describes.
+ * <p>
+ * Columns (CSV header or NDJSON keys): {@code building_id, building_label, building_number, address,
+ * code_postal, ville, apartment_id, apartment_label, apartment_number, apartment_floor, email, fname, lname,
+ * phone_number, password, role_in_building}. Only {@code building_id} is mandatory on every row, and
+ * {@code role_in_building} is {@code RESIDENT} (default) or {@code BUILDING_ADMIN}.
+ */
+@Service
+@Slf4j
+public class DirectoryImportService {
+
+    // Les seuls rôles d'immeuble attribués par l'application ; les rôles globaux ne s'importent pas
+    private static final Map<String, UserRole> IMPORTABLE_ROLES = Map.of(
+            UserRole.RESIDENT.name(), UserRole.RESIDENT,
+            UserRole.BUILDING_ADMIN.name(), UserRole.BUILDING_ADMIN);
+
+    private static final String INSERT_ADDRESS_SQL =
+            "INSERT INTO addresses (address, code_postal, ville) VALUES (?, ?, ?)";
+    private static final String INSERT_BUILDING_SQL =
+            "INSERT INTO buildings (building_id, building_label, building_number, address_id, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_RESIDENT_SQL =
+            "INSERT INTO residents (id_users, fname, lname, email, password, phone_number, role, account_status, " +
+            "is_account_non_expired, is_account_non_locked, is_credentials_non_expired, is_enabled, token_version, " +
+            "created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, true, true, true, true, 0, ?, ?)";
+    private static final String INSERT_APARTMENT_SQL =
+            "INSERT INTO apartments (id_apartment, apartment_label, apartment_number, apartment_floor, " +
+            "have_balcony_or_terrace, is_furnished, building_id, resident_id, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, false, false, ?, ?, ?, ?)";
+    private static final String INSERT_LINK_SQL =
+            "INSERT INTO resident_buildings (resident_id, building_id, apartment_id, role_in_building, is_active, created_at) " +
+            "VALUES (?, ?, ?, ?, true, ?)";
+
+    private final BuildingRepository buildingRepository;
+    private final ApartmentRepository apartmentRepository;
+    private final ResidentRepository residentRepository;
+    private final ResidentBuildingRepository residentBuildingRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PasswordHashingService passwordHashingService;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final DirectorySearchService directorySearchService;
+    private final ResidentDirectoryService residentDirectoryService;
+    private final AppConfig.DirectoryImport config;
+
+    public DirectoryImportService(BuildingRepository buildingRepository,
+                                  ApartmentRepository apartmentRepository,
+                                  ResidentRepository residentRepository,
+                                  ResidentBuildingRepository residentBuildingRepository,
+                                  JdbcTemplate jdbcTemplate,
+                                  PasswordHashingService passwordHashingService,
+                                  PlatformTransactionManager transactionManager,
+                                  ObjectMapper objectMapper,
+                                  DirectorySearchService directorySearchService,
+                                  ResidentDirectoryService residentDirectoryService,
+                                  AppConfig appConfig) {
+        this.buildingRepository = buildingRepository;
+        this.apartmentRepository = apartmentRepository;
+        this.residentRepository = residentRepository;
+        this.residentBuildingRepository = residentBuildingRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.passwordHashingService = passwordHashingService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.directorySearchService = directorySearchService;
+        this.residentDirectoryService = residentDirectoryService;
+        this.config = appConfig.getDirectoryImport();
+    }
+
+    @PreAuthorize("hasRole('GROUP_ADMIN') or hasRole('SUPER_ADMIN')")
+    public ImportReport importDirectory(InputStream input, boolean ndjson) throws IOException {
+        ImportReport report = new ImportReport();
+        ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "directory-import-writer"));
+        // Un chunk en cours d'écriture, un en préparation : mémoire constante
+        Semaphore inFlight = new Semaphore(2);
+        Future<?> lastWrite = null;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            List<String> header = null;
+            List<ImportRow> chunk = new ArrayList<>(config.getChunkSize());
+            String line;
+            long lineNumber = 0;
+
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (!ndjson && header == null) {
+                    header = CsvLineParser.parse(line.replace("﻿", ""));
+                    continue;
+                }
+
+                synchronized (report) {
+                    report.setRowsRead(report.getRowsRead() + 1);
+                }
+                try {
+                    chunk.add(parseRow(lineNumber, ndjson ? parseJson(line) : toMap(header, CsvLineParser.parse(line))));
+                } catch (IllegalArgumentException e) {
+                    addError(report, lineNumber, e.getMessage());
+                }
+
+                if (chunk.size() >= config.getChunkSize()) {
+                    lastWrite = submit(writer, inFlight, chunk, report);
+                    chunk = new ArrayList<>(config.getChunkSize());
+                }
+            }
+
+            if (!chunk.isEmpty()) {
+                lastWrite = submit(writer, inFlight, chunk, report);
+            }
+            if (lastWrite != null) {
+                lastWrite.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Import failed", e.getCause());
+        } finally {
+            writer.shutdown();
+        }
+
+        log.info("Directory import finished: {} rows read, {} imported, {} errors",
+                report.getRowsRead(), report.getRowsImported(), report.getErrorCount());
+        return report;
+    }
+
+    private Future<?> submit(ExecutorService writer, Semaphore inFlight, List<ImportRow> chunk, ImportReport report)
+            throws InterruptedException {
+        inFlight.acquire();
+        return writer.submit(() -> {
+            try {
+                writeChunk(chunk, report);
+            } catch (Exception e) {
+                log.error("Import chunk starting at line {} failed", chunk.get(0).line, e);
+                for (ImportRow row : chunk) {
+                    addError(report, row.line, "Chunk rejected: " + e.getMessage());
+                }
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    private void writeChunk(List<ImportRow> chunk, ImportReport report) {
+        // Recherches groupées : une requête par type d'entité pour tout le chunk
+        Set<String> buildingIds = new HashSet<>();
+        Set<String> apartmentIds = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (ImportRow row : chunk) {
+            buildingIds.add(row.buildingId);
+            if (row.apartmentId != null) {
+                apartmentIds.add(row.apartmentId);
+            }
+            if (row.email != null) {
+                emails.add(row.email);
+            }
+        }
+
+        Set<String> existingBuildings = new HashSet<>(buildingRepository.findExistingIds(buildingIds));
+        Set<String> existingApartments = apartmentIds.isEmpty() ? Set.of()
+                : new HashSet<>(apartmentRepository.findExistingIds(apartmentIds));
+        Map<String, String> residentIdsByEmail = new HashMap<>();
+        if (!emails.isEmpty()) {
+            for (Object[] row : residentRepository.findIdsByEmails(emails)) {
+                residentIdsByEmail.put(((String) row[0]).toLowerCase(), (String) row[1]);
+            }
+        }
+        Set<String> existingLinks = new HashSet<>();
+        if (!residentIdsByEmail.isEmpty()) {
+            for (Object[] row : residentBuildingRepository.findLinksByResidentIds(residentIdsByEmail.values())) {
+                existingLinks.add(row[0] + "|" + row[1]);
+            }
+        }
+
+        // Planifier les créations ; la première ligne qui décrit une entité l'emporte
+        Map<String, ImportRow> newBuildings = new LinkedHashMap<>();
+        Map<String, ImportRow> newApartments = new LinkedHashMap<>();
+        Map<String, ImportRow> newResidents = new LinkedHashMap<>();
+        Map<String, String> apartmentOccupants = new HashMap<>();
+        List<ImportRow> accepted = new ArrayList<>();
+
+        for (ImportRow row : chunk) {
+            boolean newBuilding = !existingBuildings.contains(row.buildingId) && !newBuildings.containsKey(row.buildingId);
+            boolean newApartment = row.apartmentId != null && !existingApartments.contains(row.apartmentId)
+                    && !newApartments.containsKey(row.apartmentId);
+            boolean newResident = row.email != null && !residentIdsByEmail.containsKey(row.email);
+            try {
+                if (newBuilding) {
+                    require(row.get("building_label"), "building_label is required for a new building");
+                }
+                if (newApartment) {
+                    require(row.get("apartment_label"), "apartment_label is required for a new apartment");
+                }
+                if (newResident) {
+                    require(row.get("fname"), "fname is required for a new resident");
+                    require(row.get("lname"), "lname is required for a new resident");
+                    require(row.get("password"), "password is required for a new resident");
+                }
+            } catch (IllegalArgumentException e) {
+                addError(report, row.line, e.getMessage());
+                continue;
+            }
+
+            // Ligne valide : ses nouvelles entités peuvent être planifiées
+            if (newBuilding) {
+                newBuildings.put(row.buildingId, row);
+            }
+            if (newApartment) {
+                newApartments.put(row.apartmentId, row);
+            }
+            if (newResident) {
+                row.residentId = UUID.randomUUID().toString();
+                residentIdsByEmail.put(row.email, row.residentId);
+                newResidents.put(row.email, row);
+                if (row.apartmentId != null && newApartments.get(row.apartmentId) != null
+                        && !apartmentOccupants.containsKey(row.apartmentId)) {
+                    apartmentOccupants.put(row.apartmentId, row.residentId);
+                }
+            } else if (row.email != null) {
+                row.residentId = residentIdsByEmail.get(row.email);
+            }
+            accepted.add(row);
+        }
+
+        Map<String, String> passwordHashes = hashPasswords(newResidents.values());
+
+        List<ImportRow> links = new ArrayList<>();
+        for (ImportRow row : accepted) {
+            if (row.residentId != null && existingLinks.add(row.residentId + "|" + row.buildingId)) {
+                links.add(row);
+            }
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        transactionTemplate.executeWithoutResult(status -> {
+            insertBuildings(newBuildings.values(), now);
+            insertResidents(newResidents.values(), passwordHashes, now);
+            insertApartments(newApartments.values(), apartmentOccupants, now);
+            insertLinks(links, now);
+        });
+        if (!newBuildings.isEmpty() || !links.isEmpty()) {
+            directorySearchService.reindexBuildings(buildingIds);
+            residentDirectoryService.invalidate(buildingIds);
+        }
+
+        synchronized (report) {
+            report.setRowsImported(report.getRowsImported() + accepted.size());
+            report.setBuildingsCreated(report.getBuildingsCreated() + newBuildings.size());
+            report.setApartmentsCreated(report.getApartmentsCreated() + newApartments.size());
+            report.setResidentsCreated(report.getResidentsCreated() + newResidents.size());
+            report.setLinksCreated(report.getLinksCreated() + links.size());
+        }
+    }
+
+    private Map<String, String> hashPasswords(Collection<ImportRow> residents) {
+        List<String> rawPasswords = new ArrayList<>(residents.size());
+        for (ImportRow row : residents) {
+            rawPasswords.add(row.get("password"));
+        }
+        List<String> encoded = passwordHashingService.encodeAll(rawPasswords);
+        Map<String, String> hashes = new HashMap<>();
+        int i = 0;
+        for (ImportRow row : residents) {
+            hashes.put(row.email, encoded.get(i++));
+        }
+        return hashes;
+    }
+
+    private void insertBuildings(Iterable<ImportRow> buildings, Timestamp now) {
+        List<Object[]> batch = new ArrayList<>();
+        for (ImportRow row : buildings) {
+            batch.add(new Object[]{row.buildingId, row.get("building_label"), row.get("building_number"),
+                    insertAddress(row), now, now});
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_BUILDING_SQL, batch,
+                    new int[]{Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.BIGINT, Types.TIMESTAMP, Types.TIMESTAMP});
+        }
+    }
+
+    private Long insertAddress(ImportRow row) {
+        String address = row.get("address");
+        String codePostal = row.get("code_postal");
+        String ville = row.get("ville");
+        if (address == null || codePostal == null || ville == null) {
+            return null;
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT_ADDRESS_SQL, new String[]{"id_address"});
+            statement.setString(1, address);
+            statement.setString(2, codePostal);
+            statement.setString(3, ville);
+            return statement;
+        }, keyHolder);
+        Number key = keyHolder.getKey();
+        return key != null ? key.longValue() : null;
+    }
+
+    private void insertResidents(Iterable<ImportRow> residents, Map<String, String> passwordHashes, Timestamp now) {
+        List<Object[]> batch = new ArrayList<>();
+        for (ImportRow row : residents) {
+            batch.add(new Object[]{row.residentId, row.get("fname"), row.get("lname"), row.email,
+                    passwordHashes.get(row.email), row.get("phone_number"), UserRole.RESIDENT.name(),
+                    AccountStatus.ACTIVE.name(), now, now});
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_RESIDENT_SQL, batch);
+        }
+    }
+
+    private void insertApartments(Iterable<ImportRow> apartments, Map<String, String> occupants, Timestamp now) {
+        List<Object[]> batch = new ArrayList<>();
+        for (ImportRow row : apartments) {
+            batch.add(new Object[]{row.apartmentId, row.get("apartment_label"), row.get("apartment_number"),
+                    row.floor, row.buildingId, occupants.get(row.apartmentId), now, now});
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_APARTMENT_SQL, batch,
+                    new int[]{Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.INTEGER, Types.VARCHAR,
+                            Types.VARCHAR, Types.TIMESTAMP, Types.TIMESTAMP});
+        }
+    }
+
+    private void insertLinks(List<ImportRow> links, Timestamp now) {
+        List<Object[]> batch = new ArrayList<>();
+        for (ImportRow row : links) {
+            batch.add(new Object[]{row.residentId, row.buildingId, row.apartmentId, row.role.name(), now});
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_LINK_SQL, batch,
+                    new int[]{Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.TIMESTAMP});
+        }
+    }
+
+    private ImportRow parseRow(long line, Map<String, String> values) {
+        ImportRow row = new ImportRow(line, values);
+        row.buildingId = require(row.get("building_id"), "building_id is required");
+
+        String apartmentNumber = row.get("apartment_number");
+        row.apartmentId = row.get("apartment_id");
+        if (row.apartmentId == null && apartmentNumber != null) {
+            // Même convention que ApartmentService.createApartment
+            row.apartmentId = row.buildingId + "-" + LocalDate.now().getYear() + apartmentNumber;
+        }
+
+        String floor = row.get("apartment_floor");
+        if (floor != null) {
+            try {
+                row.floor = Integer.valueOf(floor);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("apartment_floor must be an integer: " + floor);
+            }
+        }
+
+        String email = row.get("email");
+        if (email != null) {
+            if (!email.contains("@")) {
+                throw new IllegalArgumentException("Invalid email: " + email);
+            }
+            row.email = email.toLowerCase();
+        }
+
+        // Le rôle devient le claim "role" du token d'immeuble
+        String role = row.get("role_in_building");
+        row.role = role != null ? IMPORTABLE_ROLES.get(role.toUpperCase(Locale.ROOT)) : UserRole.RESIDENT;
+        if (row.role == null) {
+            throw new IllegalArgumentException("role_in_building must be RESIDENT or BUILDING_ADMIN: " + role);
+        }
+        return row;
+    }
+
+    private Map<String, String> parseJson(String line) {
+        try {
+            Map<String, Object> json = objectMapper.readValue(line, new TypeReference<>() {
+            });
+            Map<String, String> values = new HashMap<>();
+            json.forEach((key, value) -> values.put(key, value != null ? value.toString() : null));
+            return values;
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private Map<String, String> toMap(List<String> header, List<String> fields) {
+        if (fields.size() > header.size()) {
+            throw new IllegalArgumentException("Expected " + header.size() + " columns but found " + fields.size());
+        }
+        Map<String, String> values = new HashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            values.put(header.get(i), fields.get(i));
+        }
+        return values;
+    }
+
+    private static String require(String value, String message) {
+        if (value == null) {
+            throw new IllegalArgumentException(message);
+        }
+        return value;
+    }
+
+    private void addError(ImportReport report, long line, String message) {
+        synchronized (report) {
+            report.setErrorCount(report.getErrorCount() + 1);
+            if (report.getErrors().size() < config.getMaxReportedErrors()) {
+                report.getErrors().add(new ImportReport.RowError(line, message));
+            } else {
+                report.setErrorsTruncated(true);
+            }
+        }
+    }
+
+    private static final class ImportRow {
+        private final long line;
+        private final Map<String, String> values;
+        private String buildingId;
+        private String apartmentId;
+        private Integer floor;
+        private String email;
+        private UserRole role;
+        private String residentId;
+
+        private ImportRow(long line, Map<String, String> values) {
+            this.line = line;
+            this.values = values;
+        }
+
+        private String get(String column) {
+            String value = values.get(column);
+            return value == null || value.isBlank() ? null : value.trim();
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package be.delomid.oneapp.mschat.mschat.service;
+
+import be.delomid.oneapp.mschat.mschat.dto.TypeaheadResultDto;
+import be.delomid.oneapp.mschat.mschat.exception.UnauthorizedAccessException;
+import be.delomid.oneapp.mschat.mschat.model.Address;
+import be.delomid.oneapp.mschat.mschat.model.Building;
+import be.delomid.oneapp.mschat.mschat.model.Resident;
+import be.delomid.oneapp.mschat.mschat.repository.BuildingRepository;
+import be.delomid.oneapp.mschat.mschat.repository.ResidentBuildingRepository;
+import be.delomid.oneapp.mschat.mschat.util.TrigramIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static be.delomid.oneapp.mschat.mschat.util.TransactionCallbacks.afterCommit;
+
+/**
+ * Typeahead over building labels, cities and postal codes, and over resident names per building.
+ * The index lives in memory: it is rebuilt at startup and kept current by the services that create,
+ * update or delete buildings and residents. Updates are applied after the surrounding transaction commits.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DirectorySearchService {
+
+    private static final int MAX_RESULTS = 50;
+    private static final Set<String> ADMIN_AUTHORITIES = Set.of("ROLE_SUPER_ADMIN", "ROLE_GROUP_ADMIN", "ROLE_BUILDING_ADMIN");
+
+    private final BuildingRepository buildingRepository;
+    private final ResidentBuildingRepository residentBuildingRepository;
+
+    private final TrigramIndex<String> buildingIndex = new TrigramIndex<>();
+    private final Map<String, BuildingEntry> buildings = new ConcurrentHashMap<>();
+    private final Map<String, TrigramIndex<String>> residentIndexes = new ConcurrentHashMap<>();
+    private final Map<String, ResidentEntry> residents = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> buildingsByResident = new ConcurrentHashMap<>();
+    private final Map<String, String> residentIdsByEmail = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        buildingIndex.clear();
+        buildings.clear();
+        residentIndexes.clear();
+        residents.clear();
+        buildingsByResident.clear();
+        residentIdsByEmail.clear();
+
+        buildingRepository.findSearchEntries().forEach(this::putBuilding);
+        List<Object[]> entries = residentBuildingRepository.findActiveDirectoryEntries();
+        entries.forEach(this::putMembership);
+
+        log.info("Directory search index built: {} buildings, {} residents in {} ms",
+                buildings.size(), residents.size(), System.currentTimeMillis() - start);
+    }
+
+    public void indexBuilding(Building building) {
+        Address address = building.getAddress();
+        Object[] row = {building.getBuildingId(), building.getBuildingLabel(),
+                address != null ? address.getVille() : null, address != null ? address.getCodePostal() : null};
+        afterCommit(() -> putBuilding(row));
+    }
+
+    public void removeBuilding(String buildingId) {
+        afterCommit(() -> {
+            buildingIndex.remove(buildingId);
+            buildings.remove(buildingId);
+            residentIndexes.remove(buildingId);
+            buildingsByResident.values().forEach(ids -> ids.remove(buildingId));
+        });
+    }
+
+    /**
+     * Reloads one building and its active members from the database, for bulk paths such as the
+     * directory import that write without going through the entity services.
+     */
+    public void reindexBuildings(Collection<String> buildingIds) {
+        afterCommit(() -> {
+            for (String buildingId : buildingIds) {
+                buildingRepository.findSearchEntry(buildingId).forEach(this::putBuilding);
+                residentBuildingRepository.findActiveDirectoryEntriesByBuildingId(buildingId).forEach(this::putMembership);
+            }
+        });
+    }
+
+    public void indexResident(Resident resident) {
+        ResidentEntry entry = new ResidentEntry(resident.getIdUsers(), resident.getFname(), resident.getLname(),
+                resident.getEmail().toLowerCase(Locale.ROOT), resident.getPicture());
+        afterCommit(() -> {
+            ResidentEntry previous = residents.put(entry.id(), entry);
+            if (previous != null && !previous.email().equals(entry.email())) {
+                residentIdsByEmail.remove(previous.email());
+            }
+            residentIdsByEmail.put(entry.email(), entry.id());
+            for (String buildingId : buildingsByResident.getOrDefault(entry.id(), Set.of())) {
+                residentIndex(buildingId).put(entry.id(), entry.fname(), entry.lname());
+            }
+        });
+    }
+
+    public void removeResident(String residentId) {
+        afterCommit(() -> {
+            ResidentEntry previous = residents.remove(residentId);
+            if (previous != null) {
+                residentIdsByEmail.remove(previous.email());
+            }
+            Set<String> buildingIds = buildingsByResident.remove(residentId);
+            if (buildingIds != null) {
+                buildingIds.forEach(buildingId -> residentIndex(buildingId).remove(residentId));
+            }
+        });
+    }
+
+    public List<TypeaheadResultDto> searchBuildings(String query, int limit) {
+        return buildingIndex.search(query, Math.min(limit, MAX_RESULTS)).stream()
+                .map(buildings::get)
+                .filter(entry -> entry != null)
+                .map(entry -> TypeaheadResultDto.builder()
+                        .id(entry.id())
+                        .label(entry.label())
+                        .detail(joinNonNull(entry.codePostal(), entry.ville()))
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    public List<TypeaheadResultDto> searchResidents(String buildingId, String query, int limit, Authentication authentication) {
+        checkBuildingAccess(buildingId, authentication);
+        TrigramIndex<String> index = residentIndexes.get(buildingId);
+        if (index == null) {
+            return List.of();
+        }
+        return index.search(query, Math.min(limit, MAX_RESULTS)).stream()
+                .map(residents::get)
+                .filter(entry -> entry != null)
+                .map(entry -> TypeaheadResultDto.builder()
+                        .id(entry.id())
+                        .label(joinNonNull(entry.fname(), entry.lname()))
+                        .picture(entry.picture())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Members of the building and admins may read its directory. Membership comes from the index,
+     * so the check costs no query.
+     */
+    public void checkBuildingAccess(String buildingId, Authentication authentication) {
+        if (!isAdmin(authentication) && !isMember(buildingId, authentication.getName())) {
+            throw new UnauthorizedAccessException("Access denied to building: " + buildingId);
+        }
+    }
+
+    private boolean isMember(String buildingId, String email) {
+        String residentId = email != null ? residentIdsByEmail.get(email.toLowerCase(Locale.ROOT)) : null;
+        return residentId != null && buildingsByResident.getOrDefault(residentId, Set.of()).contains(buildingId);
+    }
+
+    private static boolean isAdmin(Authentication authentication) {
+        return authentication.getAuthorities().stream()
+                .anyMatch(authority -> ADMIN_AUTHORITIES.contains(authority.getAuthority()));
+    }
+
+    private void putBuilding(Object[] row) {
+        BuildingEntry entry = new BuildingEntry((String) row[0], (String) row[1], (String) row[2], (String) row[3]);
+        buildings.put(entry.id(), entry);
+        buildingIndex.put(entry.id(), entry.label(), entry.ville(), entry.codePostal());
+    }
+
+    private void putMembership(Object[] row) {
+        String buildingId = (String) row[0];
+        ResidentEntry entry = new ResidentEntry((String) row[1], (String) row[2], (String) row[3],
+                ((String) row[4]).toLowerCase(Locale.ROOT), (String) row[5]);
+        residents.put(entry.id(), entry);
+        residentIdsByEmail.put(entry.email(), entry.id());
+        buildingsByResident.computeIfAbsent(entry.id(), id -> ConcurrentHashMap.newKeySet()).add(buildingId);
+        residentIndex(buildingId).put(entry.id(), entry.fname(), entry.lname());
+    }
+
+    private TrigramIndex<String> residentIndex(String buildingId) {
+        return residentIndexes.computeIfAbsent(buildingId, id -> new TrigramIndex<>());
+    }
+
+    private static String joinNonNull(String first, String second) {
+        if (first == null) {
+            return second;
+        }
+        return second == null ? first : first + " " + second;
+    }
+
+    private record BuildingEntry(String id, String label, String ville, String codePostal) {
+    }
+
+    private record ResidentEntry(String id, String fname, String lname, String email, String picture) {
+    }
+}
@@ -17,7 +17,6 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -34,6 +33,7 @@ public class DocumentService {
     private final BuildingRepository buildingRepository;
     private final ResidentBuildingRepository residentBuildingRepository;
     private final FolderPermissionRepository folderPermissionRepository;
+    private final StorageMetrics storageMetrics;
 
     @Value("${app.documents.base-dir:documents}")
     private String baseDocumentsDir;
@@ -323,7 +323,7 @@ public class DocumentService {
             Files.createDirectories(folderPhysicalPath);
 
             Path filePath = folderPhysicalPath.resolve(storedFilename);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+            storageMetrics.write("documents", file.getInputStream(), filePath);
             log.info("Fichier physique sauvegardé: {}", filePath.toAbsolutePath());
 
             String relativePath = Paths.get(folder.getFolderPath(), storedFilename).toString();
@@ -469,7 +469,7 @@ public class DocumentService {
 
         log.info("Téléchargement du document: {} (ID: {}) pour immeuble: {}",
                 document.getOriginalFilename(), documentId, buildingId);
-        return Files.readAllBytes(filePath);
+        return storageMetrics.read("documents", filePath);
     }
 
     @Transactional(readOnly = true)
@@ -572,7 +572,7 @@ public class DocumentService {
                 .build();
     }
 
-    private boolean checkFolderReadPermission(Folder folder, String residentId, String apartmentId) {
+    boolean checkFolderReadPermission(Folder folder, String residentId, String apartmentId) {
         if (folder.getCreatedBy().equals(residentId)) {
             return true;
         }
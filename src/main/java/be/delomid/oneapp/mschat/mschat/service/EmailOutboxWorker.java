@@ -0,0 +1,233 @@
+package be.delomid.oneapp.mschat.mschat.service;
+
+import be.delomid.oneapp.mschat.mschat.config.AppConfig;
+import be.delomid.oneapp.mschat.mschat.model.EmailOutbox;
+import be.delomid.oneapp.mschat.mschat.model.EmailOutboxStatus;
+import be.delomid.oneapp.mschat.mschat.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers queued emails from {@code email_outbox}.
+ * Each poll claims due rows with {@code SKIP LOCKED}, splits them into batches and sends every batch
+ * over a single SMTP connection on a bounded worker pool. Failed deliveries are retried with
+ * exponential backoff until {@code app.email-outbox.max-attempts} is reached. Emails past their
+ * {@code expires_at} (OTP codes) are abandoned instead of sent, and bodies are cleared once a row is
+ * SENT or FAILED so that codes do not linger in the table until the purge.
+ */
+@Service
+@Slf4j
+public class EmailOutboxWorker {
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final JavaMailSender mailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final AppConfig.EmailOutbox config;
+    private final ExecutorService deliveryPool;
+
+    private final AtomicLong pendingCount = new AtomicLong();
+    private final Timer deliveryLatency;
+    private final Timer sendDuration;
+    private final Counter sentCounter;
+    private final Counter retriedCounter;
+    private final Counter failedCounter;
+    private final Counter expiredCounter;
+
+    public EmailOutboxWorker(EmailOutboxRepository emailOutboxRepository,
+                             JavaMailSender mailSender,
+                             PlatformTransactionManager transactionManager,
+                             AppConfig appConfig,
+                             MeterRegistry meterRegistry) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.mailSender = mailSender;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.config = appConfig.getEmailOutbox();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.deliveryPool = Executors.newFixedThreadPool(config.getWorkers(), runnable -> {
+            Thread thread = new Thread(runnable, "email-outbox-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        meterRegistry.gauge("email.outbox.pending", pendingCount);
+        this.deliveryLatency = Timer.builder("email.outbox.delivery.latency")
+                .description("Time between queueing an email and its successful delivery")
+                .register(meterRegistry);
+        this.sendDuration = Timer.builder("email.outbox.send.duration")
+                .description("SMTP time per delivered batch")
+                .register(meterRegistry);
+        this.sentCounter = meterRegistry.counter("email.outbox.sent");
+        this.retriedCounter = meterRegistry.counter("email.outbox.retried");
+        this.failedCounter = meterRegistry.counter("email.outbox.failed");
+        this.expiredCounter = meterRegistry.counter("email.outbox.expired");
+    }
+
+    @Scheduled(fixedDelayString = "${app.email-outbox.poll-interval-ms:1000}")
+    public void deliverDueEmails() {
+        List<EmailOutbox> claimed = claimDueEmails(config.getWorkers() * config.getBatchSize());
+
+        if (!claimed.isEmpty()) {
+            List<CompletableFuture<Void>> deliveries = new ArrayList<>();
+            for (int i = 0; i < claimed.size(); i += config.getBatchSize()) {
+                List<EmailOutbox> batch = claimed.subList(i, Math.min(i + config.getBatchSize(), claimed.size()));
+                deliveries.add(CompletableFuture.runAsync(() -> deliverBatch(batch), deliveryPool));
+            }
+            CompletableFuture.allOf(deliveries.toArray(new CompletableFuture[0])).join();
+            log.debug("Email outbox poll delivered {} emails in {} batches", claimed.size(), deliveries.size());
+        }
+
+        pendingCount.set(emailOutboxRepository.countByStatus(EmailOutboxStatus.PENDING));
+    }
+
+    // Supprimer les emails envoyés ou abandonnés depuis plus de quelques jours
+    @Scheduled(fixedRate = 3600000)
+    public void cleanupSentEmails() {
+        Integer deleted = transactionTemplate.execute(status -> emailOutboxRepository.deleteFinishedBefore(
+                LocalDateTime.now().minusDays(config.getRetentionDays())));
+        log.debug("{} sent and failed emails cleaned up from outbox", deleted);
+    }
+
+    private List<EmailOutbox> claimDueEmails(int limit) {
+        List<EmailOutbox> claimed = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<EmailOutbox> due = emailOutboxRepository.lockDueBatch(now, limit);
+            List<EmailOutbox> deliverable = new ArrayList<>(due.size());
+            for (EmailOutbox email : due) {
+                if (email.getExpiresAt() != null && !email.getExpiresAt().isAfter(now)) {
+                    markExpired(email);
+                    continue;
+                }
+                // Le bail empêche un autre nœud de reprendre ces lignes pendant l'envoi
+                email.setAttempts(email.getAttempts() + 1);
+                email.setNextAttemptAt(now.plusSeconds(config.getLeaseSeconds()));
+                deliverable.add(email);
+            }
+            emailOutboxRepository.saveAll(due);
+            return deliverable;
+        });
+        return claimed != null ? claimed : Collections.emptyList();
+    }
+
+    void deliverBatch(List<EmailOutbox> batch) {
+        SimpleMailMessage[] messages = new SimpleMailMessage[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            messages[i] = toMailMessage(batch.get(i));
+        }
+
+        Map<Object, Exception> failures = Collections.emptyMap();
+        Exception batchFailure = null;
+        long start = System.nanoTime();
+        try {
+            // Un seul appel : JavaMailSender réutilise la même connexion SMTP pour tout le lot
+            mailSender.send(messages);
+        } catch (MailSendException e) {
+            failures = e.getFailedMessages();
+            if (failures.isEmpty()) {
+                batchFailure = e;
+            }
+        } catch (MailException e) {
+            batchFailure = e;
+        }
+        sendDuration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < batch.size(); i++) {
+            EmailOutbox email = batch.get(i);
+            Exception failure = batchFailure != null ? batchFailure : failures.get(messages[i]);
+            if (failure == null) {
+                markSent(email, now);
+            } else {
+                scheduleRetry(email, failure, now);
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> emailOutboxRepository.saveAll(batch));
+    }
+
+    private void markSent(EmailOutbox email, LocalDateTime now) {
+        email.setStatus(EmailOutboxStatus.SENT);
+        email.setSentAt(now);
+        email.setLastError(null);
+        email.setBody(null);
+        sentCounter.increment();
+        if (email.getCreatedAt() != null) {
+            deliveryLatency.record(Duration.between(email.getCreatedAt(), now));
+        }
+    }
+
+    private void scheduleRetry(EmailOutbox email, Exception failure, LocalDateTime now) {
+        email.setLastError(truncate(failure.getMessage()));
+
+        if (email.getAttempts() >= config.getMaxAttempts()
+                || (email.getExpiresAt() != null && !email.getExpiresAt().isAfter(now))) {
+            email.setStatus(EmailOutboxStatus.FAILED);
+            email.setBody(null);
+            failedCounter.increment();
+            log.error("Giving up on email {} to {} after {} attempts", email.getId(), email.getRecipient(), email.getAttempts(), failure);
+            return;
+        }
+
+        email.setNextAttemptAt(now.plus(backoff(email.getAttempts())));
+        retriedCounter.increment();
+        log.warn("Email {} to {} failed (attempt {}), retrying at {}: {}",
+                email.getId(), email.getRecipient(), email.getAttempts(), email.getNextAttemptAt(), failure.getMessage());
+    }
+
+    void markExpired(EmailOutbox email) {
+        email.setStatus(EmailOutboxStatus.FAILED);
+        email.setLastError("Expired before delivery");
+        email.setBody(null);
+        expiredCounter.increment();
+        log.debug("Email {} to {} expired before delivery", email.getId(), email.getRecipient());
+    }
+
+    Duration backoff(int attempts) {
+        long delay = config.getInitialBackoffMs() << Math.min(Math.max(attempts - 1, 0), 20);
+        return Duration.ofMillis(Math.min(delay, config.getMaxBackoffMs()));
+    }
+
+    private SimpleMailMessage toMailMessage(EmailOutbox email) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setTo(email.getRecipient());
+        message.setSubject(email.getSubject());
+        message.setText(email.getBody());
+        return message;
+    }
+
+    private static String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() > 1000 ? error.substring(0, 1000) : error;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        deliveryPool.shutdown();
+    }
+}
@@ -1,62 +1,67 @@
 package be.delomid.oneapp.mschat.mschat.service;
 
+import be.delomid.oneapp.mschat.mschat.model.EmailOutbox;
+import be.delomid.oneapp.mschat.mschat.repository.EmailOutboxRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Emails are written to the {@code email_outbox} table inside the caller's transaction
+ * and delivered asynchronously by {@link EmailOutboxWorker}.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EmailService {
     
-    private final JavaMailSender mailSender;
+    private final EmailOutboxRepository emailOutboxRepository;
     
-    public void sendOtpEmail(String to, String otpCode, String purpose) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setTo(to);
-            message.setSubject("Code de vérification - MSChat");
-            message.setText(buildOtpEmailContent(otpCode, purpose));
-            
-            mailSender.send(message);
-            log.debug("OTP email sent to: {}", to);
-            
-        } catch (Exception e) {
-            log.error("Failed to send OTP email to: {}", to, e);
-            throw new RuntimeException("Failed to send OTP email", e);
-        }
+    /**
+     * Queues an OTP email that is dropped instead of delivered once the code itself has expired.
+     */
+    @Transactional
+    public void sendOtpEmail(String to, String otpCode, String purpose, Duration ttl) {
+        LocalDateTime now = LocalDateTime.now();
+        enqueue(to, "Code de vérification - MSChat", buildOtpEmailContent(otpCode, purpose, ttl), now, now.plus(ttl));
+        log.debug("OTP email queued for: {}", to);
     }
     
+    @Transactional
     public void sendAccountStatusEmail(String to, String status, String reason) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setTo(to);
-            message.setSubject("Statut de votre compte - MSChat");
-            message.setText(buildAccountStatusEmailContent(status, reason));
-            
-            mailSender.send(message);
-            log.debug("Account status email sent to: {}", to);
-            
-        } catch (Exception e) {
-            log.error("Failed to send account status email to: {}", to, e);
-        }
+        enqueue(to, "Statut de votre compte - MSChat", buildAccountStatusEmailContent(status, reason), LocalDateTime.now(), null);
+        log.debug("Account status email queued for: {}", to);
+    }
+    
+    private void enqueue(String to, String subject, String body, LocalDateTime now, LocalDateTime expiresAt) {
+        EmailOutbox email = EmailOutbox.builder()
+                .recipient(to)
+                .subject(subject)
+                .body(body)
+                .nextAttemptAt(now)
+                .expiresAt(expiresAt)
+                .build();
+        
+        emailOutboxRepository.save(email);
     }
     
-    private String buildOtpEmailContent(String otpCode, String purpose) {
+    private String buildOtpEmailContent(String otpCode, String purpose, Duration ttl) {
         return String.format("""
             Bonjour,
             
             Votre code de vérification pour %s est : %s
             
-            Ce code expire dans 10 minutes.
+            Ce code expire dans %d minutes.
             
             Si vous n'avez pas demandé ce code, veuillez ignorer cet email.
             
             Cordialement,
             L'équipe MSChat
-            """, purpose, otpCode);
+            """, purpose, otpCode, ttl.toMinutes());
     }
     
     private String buildAccountStatusEmailContent(String status, String reason) {
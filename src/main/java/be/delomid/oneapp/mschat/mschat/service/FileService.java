@@ -13,7 +13,6 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
@@ -23,6 +22,8 @@ import java.util.UUID;
 @Slf4j
 public class FileService {
 
+    private final StorageMetrics storageMetrics;
+
     @Value("${app.file.upload-dir:uploads}")
     private String uploadDir;
 
@@ -46,7 +47,7 @@ public class FileService {
 
             // Sauvegarder le fichier
             Path filePath = uploadPath.resolve(filename);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+            storageMetrics.write("files", file.getInputStream(), filePath);
 
             // Construire l'URL complète pour l'accès au fichier
             String baseUrl = "http://192.168.1.8:9090/api/v1/files/";
@@ -81,7 +82,7 @@ public class FileService {
                 return ResponseEntity.notFound().build();
             }
 
-            byte[] fileContent = Files.readAllBytes(filePath);
+            byte[] fileContent = storageMetrics.read("files", filePath);
             String contentType = Files.probeContentType(filePath);
 
             if (contentType == null) {
@@ -107,7 +108,7 @@ public class FileService {
                 return ResponseEntity.notFound().build();
             }
 
-            byte[] fileContent = Files.readAllBytes(filePath);
+            byte[] fileContent = storageMetrics.read("files", filePath);
             String contentType = Files.probeContentType(filePath);
 
             if (contentType == null) {
@@ -0,0 +1,112 @@
+package be.delomid.oneapp.mschat.mschat.service;
+
+import be.delomid.oneapp.mschat.mschat.config.AppConfig;
+import be.delomid.oneapp.mschat.mschat.model.OtpType;
+import be.delomid.oneapp.mschat.mschat.util.HashedTimingWheel;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Node-local OTP store. Codes live in a map and are evicted by a hashed timing wheel,
+ * so issuing and verifying a code never touches the database.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.otp", name = "store", havingValue = "memory", matchIfMissing = true)
+@Slf4j
+public class InMemoryOtpStore implements OtpStore {
+
+    private final AppConfig.Otp config;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final HashedTimingWheel<String> expiryWheel;
+
+    public InMemoryOtpStore(AppConfig appConfig) {
+        this.config = appConfig.getOtp();
+        this.expiryWheel = new HashedTimingWheel<>("otp-expiry", config.getWheelTickMillis(), config.getWheelSize(),
+                key -> entries.computeIfPresent(key, (k, entry) -> entry.isExpired(System.currentTimeMillis()) ? null : entry));
+    }
+
+    @Override
+    public boolean save(String email, OtpType otpType, String otpCode, Duration ttl) {
+        String key = key(email, otpType);
+        long now = System.currentTimeMillis();
+        long resendIntervalMillis = config.getResendIntervalSeconds() * 1000L;
+        Entry created = new Entry(otpCode, now, now + ttl.toMillis());
+
+        Entry stored = entries.compute(key, (k, previous) ->
+                previous != null && !previous.isExpired(now) && now - previous.issuedAt < resendIntervalMillis
+                        ? previous
+                        : created);
+
+        if (stored != created) {
+            log.debug("OTP resend throttled for email: {} and type: {}", email, otpType);
+            return false;
+        }
+        expiryWheel.schedule(key, ttl.toMillis());
+        return true;
+    }
+
+    @Override
+    public Verification verify(String email, OtpType otpType, String otpCode) {
+        String key = key(email, otpType);
+        long now = System.currentTimeMillis();
+        Verification[] result = new Verification[1];
+
+        entries.compute(key, (k, entry) -> {
+            boolean matches = OtpStore.codesMatch(entry != null ? entry.code : null, otpCode);
+            if (entry == null || entry.isExpired(now)) {
+                result[0] = Verification.EXPIRED;
+                return null;
+            }
+            if (matches) {
+                result[0] = Verification.VALID;
+                return null;
+            }
+            entry.failedAttempts++;
+            if (entry.failedAttempts >= config.getMaxAttempts()) {
+                // Le code est invalidé : il faut en demander un nouveau
+                result[0] = Verification.TOO_MANY_ATTEMPTS;
+                return null;
+            }
+            result[0] = Verification.INVALID;
+            return entry;
+        });
+
+        return result[0];
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        expiryWheel.close();
+    }
+
+    private static String key(String email, OtpType otpType) {
+        return otpType.name() + ':' + email;
+    }
+
+    private static final class Entry {
+        private final String code;
+        private final long issuedAt;
+        private final long expiresAt;
+        private int failedAttempts;
+
+        private Entry(String code, long issuedAt, long expiresAt) {
+            this.code = code;
+            this.issuedAt = issuedAt;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return expiresAt <= now;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package be.delomid.oneapp.mschat.mschat.service;
+
+import be.delomid.oneapp.mschat.mschat.config.AppConfig;
+import be.delomid.oneapp.mschat.mschat.model.OtpToken;
+import be.delomid.oneapp.mschat.mschat.model.OtpType;
+import be.delomid.oneapp.mschat.mschat.repository.OtpTokenRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * OTP store backed by {@code otp_tokens}, shared by every node of the cluster.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.otp", name = "store", havingValue = "jpa")
+@Slf4j
+public class JpaOtpStore implements OtpStore {
+
+    private final OtpTokenRepository otpTokenRepository;
+    private final AppConfig.Otp config;
+
+    public JpaOtpStore(OtpTokenRepository otpTokenRepository, AppConfig appConfig) {
+        this.otpTokenRepository = otpTokenRepository;
+        this.config = appConfig.getOtp();
+    }
+
+    @Override
+    @Transactional
+    public boolean save(String email, OtpType otpType, String otpCode, Duration ttl) {
+        LocalDateTime now = LocalDateTime.now();
+        Optional<OtpToken> previous = otpTokenRepository.findFirstByEmailAndOtpTypeAndIsUsedFalseOrderByCreatedAtDesc(email, otpType);
+        if (previous.isPresent() && previous.get().getExpiresAt().isAfter(now)
+                && previous.get().getCreatedAt().isAfter(now.minusSeconds(config.getResendIntervalSeconds()))) {
+            log.debug("OTP resend throttled for email: {} and type: {}", email, otpType);
+            return false;
+        }
+
+        // Supprimer les anciens OTP pour cet email et ce type
+        otpTokenRepository.deleteByEmailAndOtpType(email, otpType);
+
+        otpTokenRepository.save(OtpToken.builder()
+                .email(email)
+                .otpCode(otpCode)
+                .otpType(otpType)
+                .expiresAt(now.plus(ttl))
+                .build());
+        return true;
+    }
+
+    @Override
+    @Transactional
+    public Verification verify(String email, OtpType otpType, String otpCode) {
+        Optional<OtpToken> latest = otpTokenRepository.findFirstByEmailAndOtpTypeAndIsUsedFalseOrderByCreatedAtDesc(email, otpType);
+        boolean matches = OtpStore.codesMatch(latest.map(OtpToken::getOtpCode).orElse(null), otpCode);
+
+        if (latest.isEmpty() || !latest.get().getExpiresAt().isAfter(LocalDateTime.now())) {
+            return Verification.EXPIRED;
+        }
+
+        OtpToken otpToken = latest.get();
+        if (matches) {
+            // Marquer l'OTP comme utilisé
+            otpToken.setIsUsed(true);
+            otpTokenRepository.save(otpToken);
+            return Verification.VALID;
+        }
+
+        int attempts = (otpToken.getAttempts() != null ? otpToken.getAttempts() : 0) + 1;
+        if (attempts >= config.getMaxAttempts()) {
+            otpTokenRepository.delete(otpToken);
+            return Verification.TOO_MANY_ATTEMPTS;
+        }
+        otpToken.setAttempts(attempts);
+        otpTokenRepository.save(otpToken);
+        return Verification.INVALID;
+    }
+
+    // Nettoyer les OTP expirés toutes les heures
+    @Scheduled(fixedRate = 3600000)
+    @Transactional
+    public void cleanupExpiredOtps() {
+        otpTokenRepository.deleteByExpiresAtBefore(LocalDateTime.now());
+        log.debug("Expired OTPs cleaned up");
+    }
+}
@@ -0,0 +1,317 @@
+package be.delomid.oneapp.mschat.mschat.service;
+
+import be.delomid.oneapp.mschat.mschat.config.AppConfig;
+import be.delomid.oneapp.mschat.mschat.dto.MessageDto;
+import be.delomid.oneapp.mschat.mschat.model.MessageArchive;
+import be.delomid.oneapp.mschat.mschat.model.MessageType;
+import be.delomid.oneapp.mschat.mschat.repository.MessageArchiveRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Monthly partitions of {@code messages} (see {@code db/partitioning/messages_partitioning.sql}).
+ * <p>
+ * A daily job creates the partitions of the coming {@code app.message-archive.premake-months} months and
+ * archives those older than {@code retention-months}: each one is locked against writes, exported to
+ * {@code <directory>/<partition>.ndjson.gz}, then detached, dropped and recorded in {@code message_archives}
+ * in one transaction, so no edit or deletion can land between the export and the drop. {@link #findArchived}
+ * reads those files back for the rare lookups past the retention window. The archiving node is whichever
+ * holds the advisory lock and every node reads the files back, so {@code directory} must be storage shared by
+ * all nodes. On a database where {@code messages} is not partitioned the job does nothing.
+ */
+@Service
+@Slf4j
+public class MessageArchiveService {
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("^messages_p(\\d{4})_(\\d{2})$");
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+    // Verrou consultatif : un seul nœud maintient les partitions à la fois
+    private static final long MAINTENANCE_LOCK_KEY = 0x6d73675f61726368L;
+    private static final int EXPORT_FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MessageArchiveRepository messageArchiveRepository;
+    private final ObjectMapper objectMapper;
+    private final AppConfig.MessageArchive config;
+
+    public MessageArchiveService(JdbcTemplate jdbcTemplate,
+                                 MessageArchiveRepository messageArchiveRepository,
+                                 ObjectMapper objectMapper,
+                                 AppConfig appConfig) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.messageArchiveRepository = messageArchiveRepository;
+        this.objectMapper = objectMapper;
+        this.config = appConfig.getMessageArchive();
+    }
+
+    @Scheduled(cron = "${app.message-archive.cron:0 30 3 * * *}")
+    public void maintainPartitions() {
+        if (!config.isEnabled() || !isPartitioned()) {
+            return;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            if (!tryLock(connection)) {
+                log.debug("Message partition maintenance already running on another node");
+                return null;
+            }
+            try {
+                createUpcomingPartitions(connection);
+                archiveExpiredPartitions(connection);
+            } finally {
+                unlock(connection);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Archived messages of a channel created before {@code before}, newest first, at most {@code limit}.
+     * Reads at most {@code app.message-archive.rehydrate-max-archives} monthly files, newest first.
+     */
+    public List<MessageDto> findArchived(Long channelId, LocalDateTime before, int limit) {
+        List<MessageDto> found = new ArrayList<>();
+        List<MessageArchive> archives = messageArchiveRepository.findByRangeStartBeforeOrderByRangeStartDesc(
+                before.toLocalDate().plusDays(1));
+
+        for (MessageArchive archive : archives.stream().limit(config.getRehydrateMaxArchives()).toList()) {
+            // Chaque fichier est trié par id croissant : on garde les plus récents dans une fenêtre bornée
+            Deque<MessageDto> newest = new ArrayDeque<>();
+            readArchive(Paths.get(archive.getFilePath()), row -> {
+                // Les messages supprimés restent dans l'archive mais sont masqués comme dans l'historique
+                if (channelId.equals(asLong(row.get("channel_id"))) && !Boolean.TRUE.equals(row.get("is_deleted"))) {
+                    MessageDto message = toDto(row);
+                    if (message.getCreatedAt() != null && message.getCreatedAt().isBefore(before)) {
+                        newest.addLast(message);
+                        if (newest.size() > limit - found.size()) {
+                            newest.removeFirst();
+                        }
+                    }
+                }
+            });
+            while (!newest.isEmpty()) {
+                found.add(newest.removeLast());
+            }
+            if (found.size() >= limit) {
+                break;
+            }
+        }
+        return found;
+    }
+
+    private boolean isPartitioned() {
+        Boolean partitioned = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table pt JOIN pg_class c ON c.oid = pt.partrelid " +
+                        "WHERE c.relname = 'messages' AND pg_table_is_visible(c.oid))", Boolean.class);
+        return Boolean.TRUE.equals(partitioned);
+    }
+
+    private void createUpcomingPartitions(Connection connection) throws SQLException {
+        LocalDate month = LocalDate.now().withDayOfMonth(1);
+        try (Statement statement = connection.createStatement()) {
+            for (int i = 0; i <= config.getPremakeMonths(); i++) {
+                LocalDate start = month.plusMonths(i);
+                statement.execute("CREATE TABLE IF NOT EXISTS " + partitionName(start) + " PARTITION OF messages " +
+                        "FOR VALUES FROM ('" + start + "') TO ('" + start.plusMonths(1) + "')");
+            }
+        }
+    }
+
+    private void archiveExpiredPartitions(Connection connection) throws SQLException {
+        LocalDate cutoff = LocalDate.now().withDayOfMonth(1).minusMonths(config.getRetentionMonths());
+
+        for (String partition : listPartitions(connection)) {
+            Matcher matcher = PARTITION_NAME.matcher(partition);
+            if (!matcher.matches()) {
+                continue;
+            }
+            LocalDate month = LocalDate.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)), 1);
+            if (!month.plusMonths(1).isAfter(cutoff)) {
+                archivePartition(connection, partition, month);
+            }
+        }
+    }
+
+    private void archivePartition(Connection connection, String partition, LocalDate month) throws SQLException {
+        long start = System.currentTimeMillis();
+        Path target = Paths.get(config.getDirectory()).resolve(partition + ".ndjson.gz");
+
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        // Verrou, export, détachement, suppression et inscription dans message_archives dans la même transaction :
+        // SHARE laisse lire la partition mais bloque éditions et suppressions jusqu'à sa suppression
+        try (Statement statement = connection.createStatement();
+             PreparedStatement record = connection.prepareStatement(
+                     "INSERT INTO message_archives (partition_name, range_start, range_end, file_path, row_count, archived_at) " +
+                             "VALUES (?, ?, ?, ?, ?, now())")) {
+            statement.execute("LOCK TABLE " + partition + " IN SHARE MODE");
+            long rowCount = export(connection, partition, target);
+            statement.execute("ALTER TABLE messages DETACH PARTITION " + partition);
+            statement.execute("DROP TABLE " + partition);
+            record.setString(1, partition);
+            record.setObject(2, month);
+            record.setObject(3, month.plusMonths(1));
+            record.setString(4, target.toString());
+            record.setLong(5, rowCount);
+            record.executeUpdate();
+            connection.commit();
+            log.info("Partition {} archived to {}: {} messages in {} ms", partition, target, rowCount,
+                    System.currentTimeMillis() - start);
+        } catch (SQLException | RuntimeException e) {
+            // Le fichier éventuellement écrit sans inscription sera remplacé à la prochaine exécution
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    // Écrit dans un fichier temporaire puis le renomme : une archive présente est toujours complète.
+    // Appelé dans la transaction d'archivage : le curseur côté serveur (fetchSize) exige l'autocommit désactivé
+    private long export(Connection connection, String partition, Path target) throws SQLException {
+        try {
+            Files.createDirectories(target.getParent());
+            Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+            long rowCount = 0;
+            try (PreparedStatement statement = connection.prepareStatement("SELECT * FROM " + partition + " ORDER BY id");
+                 BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                         new GZIPOutputStream(Files.newOutputStream(temporary)), StandardCharsets.UTF_8))) {
+                statement.setFetchSize(EXPORT_FETCH_SIZE);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    ResultSetMetaData metaData = resultSet.getMetaData();
+                    while (resultSet.next()) {
+                        Map<String, Object> row = new LinkedHashMap<>();
+                        for (int column = 1; column <= metaData.getColumnCount(); column++) {
+                            Object value = resultSet.getObject(column);
+                            row.put(metaData.getColumnName(column),
+                                    value instanceof Timestamp timestamp ? timestamp.toLocalDateTime().toString() : value);
+                        }
+                        writer.write(objectMapper.writeValueAsString(row));
+                        writer.newLine();
+                        rowCount++;
+                    }
+                }
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return rowCount;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not export partition " + partition, e);
+        }
+    }
+
+    private List<String> listPartitions(Connection connection) throws SQLException {
+        List<String> partitions = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(
+                     "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                             "JOIN pg_class p ON p.oid = i.inhparent WHERE p.relname = 'messages' AND pg_table_is_visible(p.oid) " +
+                             "ORDER BY c.relname")) {
+            while (resultSet.next()) {
+                partitions.add(resultSet.getString(1));
+            }
+        }
+        return partitions;
+    }
+
+    private void readArchive(Path file, Consumer<Map<String, Object>> consumer) {
+        // Un fichier absent (répertoire non partagé entre les nœuds) rendrait un historique incomplet sans le dire
+        if (!Files.exists(file)) {
+            throw new UncheckedIOException(new NoSuchFileException(file.toString(),
+                    null, "message archive missing, app.message-archive.directory must be shared by all nodes"));
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    consumer.accept(objectMapper.readValue(line, new TypeReference<Map<String, Object>>() { }));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read message archive " + file, e);
+        }
+    }
+
+    private static MessageDto toDto(Map<String, Object> row) {
+        return MessageDto.builder()
+                .id(asLong(row.get("id")))
+                .channelId(asLong(row.get("channel_id")))
+                .sequenceNumber(asLong(row.get("sequence_number")))
+                .senderId((String) row.get("sender_id"))
+                .content((String) row.get("content"))
+                .type(row.get("type") != null ? MessageType.valueOf((String) row.get("type")) : null)
+                .replyToId(asLong(row.get("reply_to_id")))
+                .isEdited((Boolean) row.get("is_edited"))
+                .isDeleted((Boolean) row.get("is_deleted"))
+                .version(asLong(row.get("version")))
+                .createdAt(asDateTime(row.get("created_at")))
+                .updatedAt(asDateTime(row.get("updated_at")))
+                .build();
+    }
+
+    private static Long asLong(Object value) {
+        return value instanceof Number number ? number.longValue() : null;
+    }
+
+    private static LocalDateTime asDateTime(Object value) {
+        return value instanceof String text ? LocalDateTime.parse(text) : null;
+    }
+
+    private static String partitionName(LocalDate month) {
+        return "messages_p" + month.format(PARTITION_SUFFIX);
+    }
+
+    private static boolean tryLock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            statement.setLong(1, MAINTENANCE_LOCK_KEY);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+
+    private static void unlock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+            statement.setLong(1, MAINTENANCE_LOCK_KEY);
+            statement.execute();
+        }
+    }
+}
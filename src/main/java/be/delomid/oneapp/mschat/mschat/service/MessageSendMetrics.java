@@ -0,0 +1,67 @@
+package be.delomid.oneapp.mschat.mschat.service;
+
+import be.delomid.oneapp.mschat.mschat.model.Channel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static be.delomid.oneapp.mschat.mschat.util.TransactionCallbacks.afterCommit;
+
+/**
+ * Timers of the message send path, {@code messages.send} tagged by stage: authorization checks, persistence up
+ * to the commit, broadcast to the channel's subscribers. Committed messages are counted in {@code messages.sent}
+ * per channel type and building, the building values being capped by {@code app.metrics.max-building-tags}.
+ */
+@Component
+public class MessageSendMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final Timer authorization;
+    private final Timer persistence;
+    private final Timer broadcast;
+    private final Map<String, Counter> sentCounters = new ConcurrentHashMap<>();
+
+    public MessageSendMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.authorization = meterRegistry.timer("messages.send", "stage", "authorization");
+        this.persistence = meterRegistry.timer("messages.send", "stage", "persistence");
+        this.broadcast = meterRegistry.timer("messages.send", "stage", "broadcast");
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(meterRegistry);
+    }
+
+    public void authorized(Timer.Sample sample) {
+        sample.stop(authorization);
+    }
+
+    /**
+     * Stops the persistence timer and counts the message once the transaction commits, right away outside of
+     * a transaction.
+     */
+    public void persisted(Timer.Sample sample, Channel channel) {
+        Runnable done = () -> {
+            sample.stop(persistence);
+            sentCounter(channel).increment();
+        };
+        afterCommit(done);
+    }
+
+    public void broadcast(Runnable send) {
+        broadcast.record(send);
+    }
+
+    private Counter sentCounter(Channel channel) {
+        String type = channel.getType() != null ? channel.getType().name() : "NONE";
+        String building = channel.getBuildingId() != null ? channel.getBuildingId() : "none";
+        return sentCounters.computeIfAbsent(type + '|' + building, key -> Counter.builder("messages.sent")
+                .tag("type", type)
+                .tag("building", building)
+                .register(meterRegistry));
+    }
+}
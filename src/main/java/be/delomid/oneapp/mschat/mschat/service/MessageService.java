@@ -1,7 +1,11 @@
 package be.delomid.oneapp.mschat.mschat.service;
 
 
+import be.delomid.oneapp.mschat.mschat.config.AppConfig;
 import be.delomid.oneapp.mschat.mschat.dto.MessageDto;
+import be.delomid.oneapp.mschat.mschat.dto.MessageEventDto;
+import be.delomid.oneapp.mschat.mschat.dto.ResumeRequest;
+import be.delomid.oneapp.mschat.mschat.dto.ResumeResponseDto;
 import be.delomid.oneapp.mschat.mschat.dto.SendMessageRequest;
 import be.delomid.oneapp.mschat.mschat.dto.FileAttachmentDto;
 import be.delomid.oneapp.mschat.mschat.dto.SharedMediaDto;
@@ -10,19 +14,27 @@ import be.delomid.oneapp.mschat.mschat.exception.ChannelNotFoundException;
 import be.delomid.oneapp.mschat.mschat.exception.UnauthorizedAccessException;
 import be.delomid.oneapp.mschat.mschat.model.*;
 import be.delomid.oneapp.mschat.mschat.repository.*;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import static be.delomid.oneapp.mschat.mschat.util.TransactionCallbacks.afterCommit;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -34,10 +46,17 @@ public class MessageService {
     private final ResidentRepository residentRepository;
     private final FileAttachmentRepository fileAttachmentRepository;
     private final ResidentBuildingRepository residentBuildingRepository;
+    private final ChannelSubscriptionService channelSubscriptionService;
+    private final RecentMessageCache recentMessageCache;
+    private final AppConfig appConfig;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final MessageArchiveService messageArchiveService;
+    private final MessageSendMetrics messageSendMetrics;
 
     @Transactional
     public MessageDto sendMessage(SendMessageRequest request, String senderId) {
         log.debug("Sending message to channel {} from user {}", request.getChannelId(), senderId);
+        Timer.Sample authorization = messageSendMetrics.start();
 
         // Vérifier que le canal existe
         Channel channel = channelRepository.findById(request.getChannelId())
@@ -58,6 +77,9 @@ public class MessageService {
             }
         }
 
+        messageSendMetrics.authorized(authorization);
+        Timer.Sample persistence = messageSendMetrics.start();
+
         // Pour les messages avec fichiers, le contenu peut être vide
         String content = request.getContent();
         if (content == null || content.trim().isEmpty()) {
@@ -73,8 +95,13 @@ public class MessageService {
             }
         }
 
+        // Le verrou posé par l'incrément est gardé jusqu'au commit : numéros consécutifs, commits dans l'ordre
+        channelRepository.incrementMessageSequence(channel.getId());
+        Long sequenceNumber = channelRepository.findMessageSequence(channel.getId());
+
         Message message = Message.builder()
                 .channel(channel)
+                .sequenceNumber(sequenceNumber)
                 .senderId(senderId)
                 .content(content)
                 .type(request.getType())
@@ -83,9 +110,57 @@ public class MessageService {
                 .build();
 
         message = messageRepository.save(message);
-        log.debug("Message saved with ID: {}", message.getId());
+        log.debug("Message saved with ID: {} (sequence {})", message.getId(), sequenceNumber);
+
+        MessageDto dto = convertToDto(message);
+        recentMessageCache.append(dto);
+        messageSendMetrics.persisted(persistence, channel);
+        return dto;
+    }
+
+    /**
+     * Messages missed by a reconnecting client: for each channel, everything after the last sequence number
+     * it received, from memory when the recent window covers it and from a keyset query otherwise.
+     * Channels the user is not a member of are skipped.
+     */
+    @Transactional(readOnly = true)
+    public List<ResumeResponseDto> resume(ResumeRequest request, String userId) {
+        AppConfig.Messages config = appConfig.getMessages();
+        int maxMessages = config.getResumeMaxMessages();
+        List<ResumeResponseDto> responses = new ArrayList<>();
+
+        request.getChannels().entrySet().stream()
+                .filter(entry -> entry.getKey() != null)
+                .limit(config.getResumeMaxChannels())
+                .forEach(entry -> {
+                    Long channelId = entry.getKey();
+                    if (!channelSubscriptionService.canRead(userId, channelId)) {
+                        log.debug("Resume of channel {} denied for user {}", channelId, userId);
+                        return;
+                    }
 
-        return convertToDto(message);
+                    long afterSequence = entry.getValue() != null ? Math.max(0, entry.getValue()) : 0;
+                    RecentMessageCache.Slice slice = recentMessageCache.after(channelId, afterSequence, maxMessages);
+                    List<MessageDto> messages = new ArrayList<>(slice.messages());
+                    boolean complete = slice.upToDate();
+
+                    if (!complete && messages.size() < maxMessages) {
+                        long from = messages.isEmpty() ? afterSequence : messages.get(messages.size() - 1).getSequenceNumber();
+                        int remaining = maxMessages - messages.size();
+                        List<Message> rows = messageRepository.findByChannelIdAfterSequence(
+                                channelId, from, PageRequest.of(0, remaining + 1));
+                        rows.stream().limit(remaining).map(this::convertToDto).forEach(messages::add);
+                        complete = rows.size() <= remaining;
+                    }
+
+                    responses.add(ResumeResponseDto.builder()
+                            .channelId(channelId)
+                            .messages(messages)
+                            .lastSequence(messages.isEmpty() ? afterSequence : messages.get(messages.size() - 1).getSequenceNumber())
+                            .complete(complete)
+                            .build());
+                });
+        return responses;
     }
 
     public Page<MessageDto> getChannelMessages(Long channelId, String userId, Pageable pageable) {
@@ -95,14 +170,36 @@ public class MessageService {
         validateChannelAccess(channelId, userId);
         validateChannelBuildingAccess(channelId, userId);
 
-        Page<Message> messages = messageRepository.findByChannelIdOrderByCreatedAtDesc(channelId, pageable);
-        return messages.map(this::convertToDto);
+        // Première page servie depuis la mémoire : c'est la quasi-totalité des lectures
+        boolean firstPage = pageable.isPaged() && pageable.getPageNumber() == 0 && pageable.getSort().isUnsorted();
+        if (firstPage) {
+            Optional<RecentMessageCache.FirstPage> cached = recentMessageCache.firstPage(channelId, pageable.getPageSize());
+            if (cached.isPresent()) {
+                return new PageImpl<>(cached.get().messages(), pageable, cached.get().totalElements());
+            }
+        }
+
+        // Pris avant la lecture : une modification validée pendant celle-ci annule le seed
+        RecentMessageCache.SeedToken seedToken = firstPage ? recentMessageCache.beginSeed(channelId) : null;
+        Page<MessageDto> messages = messageRepository.findByChannelIdOrderByCreatedAtDesc(channelId, pageable)
+                .map(this::convertToDto);
+        if (firstPage) {
+            recentMessageCache.seed(seedToken, messages.getContent(), messages.getTotalElements());
+        }
+        return messages;
+    }
+
+    /**
+     * Messages older than the retention window, read back from the monthly archives.
+     */
+    public List<MessageDto> getArchivedMessages(Long channelId, String userId, LocalDateTime before, int size) {
+        validateReadAccess(channelId, userId);
+        return messageArchiveService.findArchived(channelId, before, Math.max(1, Math.min(size, 100)));
     }
 
     @Transactional
     public MessageDto editMessage(Long messageId, String content, String userId) {
-        Message message = messageRepository.findById(messageId)
-                .orElseThrow(() -> new IllegalArgumentException("Message not found: " + messageId));
+        Message message = lockForUpdate(messageId);
 
         // Vérifier que l'utilisateur est l'auteur du message
         if (!message.getSenderId().equals(userId)) {
@@ -113,26 +210,63 @@ public class MessageService {
         message.setIsEdited(true);
         message = messageRepository.save(message);
 
-        return convertToDto(message);
+        MessageDto dto = convertToDto(message);
+        recentMessageCache.update(dto);
+        publishEvent(MessageEventDto.builder()
+                .type(MessageEventDto.UPDATED)
+                .messageId(message.getId())
+                .channelId(dto.getChannelId())
+                .content(message.getContent())
+                .version(message.getVersion())
+                .build());
+        return dto;
     }
 
     @Transactional
     public void deleteMessage(Long messageId, String userId) {
-        Message message = messageRepository.findById(messageId)
-                .orElseThrow(() -> new IllegalArgumentException("Message not found: " + messageId));
+        Message message = lockForUpdate(messageId);
 
         // Vérifier que l'utilisateur est l'auteur du message ou admin du canal
         if (!message.getSenderId().equals(userId) && !isChannelAdmin(message.getChannel().getId(), userId)) {
             throw new UnauthorizedAccessException("User can only delete their own messages");
         }
 
+        boolean alreadyDeleted = Boolean.TRUE.equals(message.getIsDeleted());
         message.setIsDeleted(true);
         message.setContent("[Message deleted]");
-        messageRepository.save(message);
+        message = messageRepository.save(message);
+        MessageDto dto = convertToDto(message);
+        recentMessageCache.markDeleted(dto, alreadyDeleted);
+        publishEvent(MessageEventDto.builder()
+                .type(MessageEventDto.DELETED)
+                .messageId(message.getId())
+                .channelId(dto.getChannelId())
+                .version(message.getVersion())
+                .build());
 
         log.debug("Message {} deleted by user {}", messageId, userId);
     }
 
+    /**
+     * Bumps the message version in the database before loading it: the row stays locked until the commit,
+     * so concurrent edits and deletions of one message get distinct versions and never overwrite each other.
+     */
+    private Message lockForUpdate(Long messageId) {
+        if (messageRepository.incrementVersion(messageId) == 0) {
+            throw new IllegalArgumentException("Message not found: " + messageId);
+        }
+        Message message = messageRepository.findById(messageId)
+                .orElseThrow(() -> new IllegalArgumentException("Message not found: " + messageId));
+        message.setVersion(messageRepository.findVersion(messageId));
+        return message;
+    }
+
+    // Publié après le commit, pour les chemins REST comme STOMP : un client ne voit jamais un changement annulé
+    private void publishEvent(MessageEventDto event) {
+        Runnable publish = () -> messagingTemplate.convertAndSend("/topic/channel/" + event.getChannelId() + "/events", event);
+        afterCommit(publish);
+    }
+
     private void validateChannelBuildingAccess(Long channelId, String userId) {
         Channel channel = channelRepository.findById(channelId)
                 .orElseThrow(() -> new ChannelNotFoundException("Channel not found: " + channelId));
@@ -255,7 +389,7 @@ public class MessageService {
                 .orElse(false);
     }
 
-    private MessageDto convertToDto(Message message) {
+    MessageDto convertToDto(Message message) {
         FileAttachmentDto fileAttachmentDto = null;
         if (message.getFileAttachment() != null) {
             FileAttachment file = message.getFileAttachment();
@@ -282,6 +416,7 @@ public class MessageService {
         return MessageDto.builder()
                 .id(message.getId())
                 .channelId(message.getChannel().getId())
+                .sequenceNumber(message.getSequenceNumber())
                 .senderId(message.getSenderId())
                 .content(message.getContent())
                 .type(message.getType())
@@ -289,6 +424,7 @@ public class MessageService {
                 .fileAttachment(fileAttachmentDto)
                 .isEdited(message.getIsEdited())
                 .isDeleted(message.getIsDeleted())
+                .version(message.getVersion())
                 .createdAt(message.getCreatedAt())
                 .updatedAt(message.getUpdatedAt())
                 .build();
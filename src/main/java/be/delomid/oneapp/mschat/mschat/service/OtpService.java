@@ -1,44 +1,55 @@
 package be.delomid.oneapp.mschat.mschat.service;
 
-import be.delomid.oneapp.mschat.mschat.model.OtpToken;
+import be.delomid.oneapp.mschat.mschat.config.AppConfig;
 import be.delomid.oneapp.mschat.mschat.model.OtpType;
-import be.delomid.oneapp.mschat.mschat.repository.OtpTokenRepository;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.security.SecureRandom;
-import java.time.LocalDateTime;
-import java.util.Optional;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class OtpService {
     
-    private final OtpTokenRepository otpTokenRepository;
+    private final OtpStore otpStore;
     private final EmailService emailService;
+    private final AppConfig appConfig;
     private final SecureRandom random = new SecureRandom();
+    private final Map<OtpType, Timer> generateTimers = new EnumMap<>(OtpType.class);
+    private final Counter throttled;
+    
+    public OtpService(OtpStore otpStore, EmailService emailService, AppConfig appConfig, MeterRegistry meterRegistry) {
+        this.otpStore = otpStore;
+        this.emailService = emailService;
+        this.appConfig = appConfig;
+        // Génération, enregistrement et mise en file de l'email : l'envoi SMTP est mesuré par l'outbox
+        for (OtpType type : OtpType.values()) {
+            generateTimers.put(type, meterRegistry.timer("auth.otp.generate", "type", type.name()));
+        }
+        this.throttled = meterRegistry.counter("auth.otp.throttled");
+    }
     
     @Transactional
     public void generateAndSendOtp(String email, OtpType otpType) {
-        // Supprimer les anciens OTP pour cet email et ce type
-        otpTokenRepository.deleteByEmailAndOtpType(email, otpType);
-        
+        long start = System.nanoTime();
         // Générer un nouveau code OTP
         String otpCode = generateOtpCode();
         
-        // Créer et sauvegarder le token OTP
-        OtpToken otpToken = OtpToken.builder()
-                .email(email)
-                .otpCode(otpCode)
-                .otpType(otpType)
-                .expiresAt(LocalDateTime.now().plusMinutes(10)) // Expire dans 10 minutes
-                .build();
-        
-        otpTokenRepository.save(otpToken);
+        // Remplacer l'ancien code, sauf si un code vient déjà d'être envoyé
+        Duration ttl = Duration.ofMinutes(appConfig.getOtp().getExpirationMinutes());
+        if (!otpStore.save(normalize(email), otpType, otpCode, ttl)) {
+            throttled.increment();
+            throw new IllegalArgumentException("Un code vient d'être envoyé. Veuillez patienter avant d'en demander un nouveau.");
+        }
         
         // Envoyer l'email
         String purpose = switch (otpType) {
@@ -47,38 +58,32 @@ public class OtpService {
             case PASSWORD_RESET -> "la réinitialisation du mot de passe";
         };
         
-        emailService.sendOtpEmail(email, otpCode, purpose);
+        emailService.sendOtpEmail(email, otpCode, purpose, ttl);
+        generateTimers.get(otpType).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         log.debug("OTP generated and sent for email: {} and type: {}", email, otpType);
     }
     
-    @Transactional
     public boolean verifyOtp(String email, String otpCode, OtpType otpType) {
-        Optional<OtpToken> otpToken = otpTokenRepository.findValidOtp(
-                email, otpCode, otpType, LocalDateTime.now()
-        );
+        OtpStore.Verification verification = otpStore.verify(normalize(email), otpType, otpCode);
         
-        if (otpToken.isPresent()) {
-            // Marquer l'OTP comme utilisé
-            otpToken.get().setIsUsed(true);
-            otpTokenRepository.save(otpToken.get());
-            
+        if (verification == OtpStore.Verification.VALID) {
             log.debug("OTP verified successfully for email: {}", email);
             return true;
         }
         
-        log.debug("OTP verification failed for email: {}", email);
+        log.debug("OTP verification failed for email: {} ({})", email, verification);
+        if (verification == OtpStore.Verification.TOO_MANY_ATTEMPTS) {
+            throw new IllegalArgumentException("Trop de tentatives. Veuillez demander un nouveau code.");
+        }
         return false;
     }
     
+    // Même clé pour les deux stores, quelle que soit la casse saisie à la connexion puis à la vérification
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
     private String generateOtpCode() {
         return String.format("%06d", random.nextInt(1000000));
     }
-    
-    // Nettoyer les OTP expirés toutes les heures
-    @Scheduled(fixedRate = 3600000)
-    @Transactional
-    public void cleanupExpiredOtps() {
-        otpTokenRepository.deleteByExpiresAtBefore(LocalDateTime.now());
-        log.debug("Expired OTPs cleaned up");
-    }
-}
\ No newline at end of file
+}
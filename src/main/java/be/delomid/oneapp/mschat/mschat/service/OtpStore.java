@@ -0,0 +1,41 @@
+package be.delomid.oneapp.mschat.mschat.service;
+
+import be.delomid.oneapp.mschat.mschat.model.OtpType;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+
+/**
+ * Storage for one-time passwords, selected with {@code app.otp.store}.
+ * {@code memory} keeps codes on the local node; {@code jpa} shares them across nodes through {@code otp_tokens}.
+ * Both enforce {@code app.otp.max-attempts} and {@code app.otp.resend-interval-seconds}.
+ */
+public interface OtpStore {
+
+    enum Verification {
+        VALID,
+        INVALID,
+        EXPIRED,
+        TOO_MANY_ATTEMPTS
+    }
+
+    /**
+     * Replaces any previous code for this email and type.
+     *
+     * @return false when a code was issued too recently and the request is throttled
+     */
+    boolean save(String email, OtpType otpType, String otpCode, Duration ttl);
+
+    Verification verify(String email, OtpType otpType, String otpCode);
+
+    /**
+     * Compares codes in constant time. A missing expected code is compared against a dummy value
+     * so that unknown emails take as long as wrong codes.
+     */
+    static boolean codesMatch(String expected, String provided) {
+        byte[] expectedBytes = (expected != null ? expected : "\0\0\0\0\0\0").getBytes(StandardCharsets.UTF_8);
+        byte[] providedBytes = (provided != null ? provided : "").getBytes(StandardCharsets.UTF_8);
+        return MessageDigest.isEqual(expectedBytes, providedBytes) && expected != null;
+    }
+}
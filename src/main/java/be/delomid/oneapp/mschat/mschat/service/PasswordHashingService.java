@@ -0,0 +1,164 @@
+package be.delomid.oneapp.mschat.mschat.service;
+
+import be.delomid.oneapp.mschat.mschat.config.AppConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs BCrypt on a dedicated, bounded pool so that a login burst cannot take every core away from the rest
+ * of the API. When the queue is full the request is rejected immediately with a
+ * {@link RejectedExecutionException}, which the API maps to 503.
+ * <p>
+ * BCrypt does not check for interruption, so a hash that has started always runs to completion. A request that
+ * times out only withdraws its task from the queue; if the hash is already running, its result is discarded.
+ * Unless configured, the timeout is derived from one hash measured at startup with the configured strength.
+ */
+@Service
+@Slf4j
+public class PasswordHashingService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+
+    private final Timer matchTimer;
+    private final Timer encodeTimer;
+    private final Counter rejectedCounter;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder, AppConfig appConfig, MeterRegistry meterRegistry) {
+        this.passwordEncoder = passwordEncoder;
+        AppConfig.Security.PasswordHashing config = appConfig.getSecurity().getPasswordHashing();
+
+        int threads = config.getThreads() > 0
+                ? config.getThreads()
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.timeoutMs = config.getTimeoutMs() > 0
+                ? config.getTimeoutMs()
+                : calibrateTimeout(threads, config.getQueueCapacity());
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(config.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.matchTimer = Timer.builder("auth.password.hash").tag("operation", "matches").register(meterRegistry);
+        this.encodeTimer = Timer.builder("auth.password.hash").tag("operation", "encode").register(meterRegistry);
+        this.rejectedCounter = meterRegistry.counter("auth.password.rejected");
+        meterRegistry.gauge("auth.password.queue", executor.getQueue(), java.util.Queue::size);
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return run(() -> matchTimer.recordCallable(() -> passwordEncoder.matches(rawPassword, encodedPassword)));
+    }
+
+    public String encode(String rawPassword) {
+        return run(() -> encodeTimer.recordCallable(() -> passwordEncoder.encode(rawPassword)));
+    }
+
+    /**
+     * Hashes a batch on the same pool, with at most one task per pool thread queued for it at a time so that
+     * logins still find room in the queue. A task refused by a full queue is hashed on the calling thread.
+     */
+    public List<String> encodeAll(List<String> rawPasswords) {
+        Semaphore window = new Semaphore(executor.getMaximumPoolSize());
+        List<Future<String>> futures = new ArrayList<>(rawPasswords.size());
+        try {
+            for (String rawPassword : rawPasswords) {
+                window.acquire();
+                try {
+                    futures.add(executor.submit(() -> {
+                        try {
+                            return encodeTimer.record(() -> passwordEncoder.encode(rawPassword));
+                        } finally {
+                            window.release();
+                        }
+                    }));
+                } catch (RejectedExecutionException e) {
+                    window.release();
+                    futures.add(CompletableFuture.completedFuture(encodeTimer.record(() -> passwordEncoder.encode(rawPassword))));
+                }
+            }
+            List<String> hashes = new ArrayList<>(futures.size());
+            for (Future<String> future : futures) {
+                hashes.add(future.get());
+            }
+            return hashes;
+        } catch (InterruptedException e) {
+            futures.forEach(this::withdraw);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing passwords", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            log.warn("Password hashing queue full, rejecting request");
+            throw e;
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            withdraw(future);
+            rejectedCounter.increment();
+            throw new RejectedExecutionException("Password hashing timed out", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    // Retire la tâche de la file si elle n'a pas démarré ; un hachage en cours va jusqu'au bout, résultat ignoré
+    private void withdraw(Future<?> future) {
+        future.cancel(false);
+        if (future instanceof Runnable queued) {
+            executor.remove(queued);
+        }
+    }
+
+    // Une requête peut attendre toute la file devant elle, puis son propre hachage
+    private long calibrateTimeout(int threads, int queueCapacity) {
+        long start = System.nanoTime();
+        passwordEncoder.encode("calibration");
+        long hashMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        long timeout = hashMs * (queueCapacity / threads + 2);
+        log.info("Password hashing timeout set to {} ms ({} ms per hash)", timeout, hashMs);
+        return timeout;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
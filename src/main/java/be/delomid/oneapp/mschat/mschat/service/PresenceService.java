@@ -0,0 +1,192 @@
+package be.delomid.oneapp.mschat.mschat.service;
+
+import be.delomid.oneapp.mschat.mschat.dto.PresenceDiffDto;
+import be.delomid.oneapp.mschat.mschat.interceptor.JwtWebSocketInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Online/offline state of residents, per building, built from STOMP session events.
+ * <p>
+ * A resident is online in a building while at least one of their sessions (one per device) is connected
+ * with a token for that building. Transitions are coalesced and published as one diff per building to
+ * {@code /topic/building/{id}/presence} every {@code app.presence.flush-interval-ms}. "Last seen" is written
+ * behind in a single JDBC batch every {@code app.presence.last-seen-flush-ms}, so connects and disconnects
+ * never hit the database.
+ */
+@Service
+@Slf4j
+public class PresenceService {
+
+    private static final String UPDATE_LAST_SEEN_SQL = "UPDATE residents SET last_seen_at = ? WHERE id_users = ?";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<String, SessionInfo> sessions = new ConcurrentHashMap<>();
+    // buildingId|residentId -> sessions ouvertes de ce résident dans cet immeuble
+    private final Map<String, Set<String>> sessionsByMember = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> onlineByBuilding = new ConcurrentHashMap<>();
+    // buildingId -> (residentId -> en ligne ?), le dernier état l'emporte
+    private final Map<String, Map<String, Boolean>> pendingDiffs = new ConcurrentHashMap<>();
+    private final Map<String, LocalDateTime> pendingLastSeen = new ConcurrentHashMap<>();
+
+    public PresenceService(SimpMessagingTemplate messagingTemplate,
+                           JdbcTemplate jdbcTemplate,
+                           MeterRegistry meterRegistry) {
+        this.messagingTemplate = messagingTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        meterRegistry.gaugeMapSize("websocket.presence.sessions", List.of(), sessions);
+    }
+
+    // SessionConnectedEvent plutôt que SessionConnectEvent : le principal JWT n'est posé qu'après l'intercepteur
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        Principal user = event.getUser();
+        String sessionId = (String) event.getMessage().getHeaders().get("simpSessionId");
+        if (user == null || sessionId == null) {
+            return;
+        }
+        String buildingId = user instanceof JwtWebSocketInterceptor.JwtPrincipal jwtPrincipal
+                ? jwtPrincipal.getBuildingId() : null;
+        connect(sessionId, user.getName(), buildingId);
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        disconnect(event.getSessionId());
+    }
+
+    void connect(String sessionId, String residentId, String buildingId) {
+        SessionInfo info = new SessionInfo(residentId, buildingId);
+        if (sessions.putIfAbsent(sessionId, info) != null || buildingId == null) {
+            return;
+        }
+
+        // Transitions faites sous le verrou de la clé : connexion et déconnexion d'un même résident restent ordonnées
+        sessionsByMember.compute(info.memberKey(), (key, memberSessions) -> {
+            if (memberSessions == null) {
+                memberSessions = new HashSet<>();
+                onlineByBuilding.computeIfAbsent(buildingId, id -> ConcurrentHashMap.newKeySet()).add(residentId);
+                recordChange(buildingId, residentId, true);
+            }
+            memberSessions.add(sessionId);
+            return memberSessions;
+        });
+    }
+
+    void disconnect(String sessionId) {
+        SessionInfo info = sessions.remove(sessionId);
+        if (info == null || info.buildingId() == null) {
+            return;
+        }
+
+        sessionsByMember.computeIfPresent(info.memberKey(), (key, memberSessions) -> {
+            memberSessions.remove(sessionId);
+            if (!memberSessions.isEmpty()) {
+                return memberSessions;
+            }
+            Set<String> online = onlineByBuilding.get(info.buildingId());
+            if (online != null) {
+                online.remove(info.residentId());
+            }
+            recordChange(info.buildingId(), info.residentId(), false);
+            pendingLastSeen.put(info.residentId(), LocalDateTime.now());
+            return null;
+        });
+    }
+
+    public Set<String> getOnlineResidents(String buildingId) {
+        return Set.copyOf(onlineByBuilding.getOrDefault(buildingId, Set.of()));
+    }
+
+    public boolean isOnline(String buildingId, String residentId) {
+        return onlineByBuilding.getOrDefault(buildingId, Set.of()).contains(residentId);
+    }
+
+    private void recordChange(String buildingId, String residentId, boolean online) {
+        pendingDiffs.compute(buildingId, (id, diff) -> {
+            if (diff == null) {
+                diff = new HashMap<>();
+            }
+            diff.put(residentId, online);
+            return diff;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.presence.flush-interval-ms:1000}")
+    public void publishDiffs() {
+        for (String buildingId : new ArrayList<>(pendingDiffs.keySet())) {
+            // remove() est atomique vis-à-vis de compute() : aucune transition n'est perdue
+            Map<String, Boolean> diff = pendingDiffs.remove(buildingId);
+            if (diff == null || diff.isEmpty()) {
+                continue;
+            }
+            List<String> online = new ArrayList<>();
+            List<String> offline = new ArrayList<>();
+            diff.forEach((residentId, isOnline) -> (isOnline ? online : offline).add(residentId));
+
+            messagingTemplate.convertAndSend("/topic/building/" + buildingId + "/presence", PresenceDiffDto.builder()
+                    .buildingId(buildingId)
+                    .online(online)
+                    .offline(offline)
+                    .timestamp(System.currentTimeMillis())
+                    .build());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.presence.last-seen-flush-ms:30000}")
+    public void flushLastSeen() {
+        if (pendingLastSeen.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>();
+        for (String residentId : new ArrayList<>(pendingLastSeen.keySet())) {
+            LocalDateTime lastSeen = pendingLastSeen.remove(residentId);
+            if (lastSeen != null) {
+                batch.add(new Object[]{Timestamp.valueOf(lastSeen), residentId});
+            }
+        }
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_LAST_SEEN_SQL, batch);
+            log.debug("Last seen written for {} residents", batch.size());
+        } catch (Exception e) {
+            // Remettre les valeurs en attente sans écraser une déconnexion plus récente
+            for (Object[] row : batch) {
+                pendingLastSeen.putIfAbsent((String) row[1], ((Timestamp) row[0]).toLocalDateTime());
+            }
+            log.warn("Failed to write last seen for {} residents: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flushLastSeen();
+    }
+
+    private record SessionInfo(String residentId, String buildingId) {
+
+        String memberKey() {
+            return buildingId + "|" + residentId;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package be.delomid.oneapp.mschat.mschat.service;
+
+import be.delomid.oneapp.mschat.mschat.config.AppConfig;
+import be.delomid.oneapp.mschat.mschat.util.SecurityContextUtil;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static be.delomid.oneapp.mschat.mschat.util.TransactionCallbacks.afterCommit;
+
+/**
+ * Remembers which users committed a write in the last {@code app.read-replica.read-your-writes-ms}, so that
+ * their reads keep going to the primary until the replica has caught up with their own changes.
+ * <p>
+ * The user comes from the security context on HTTP requests, and from the STOMP session principal bound by
+ * {@code ReadYourWritesInterceptor} while an inbound WebSocket message is handled.
+ */
+@Service
+public class ReadYourWritesTracker {
+
+    private final long windowMs;
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+    private final ThreadLocal<String> stompUser = new ThreadLocal<>();
+
+    public ReadYourWritesTracker(AppConfig appConfig) {
+        this.windowMs = appConfig.getReadReplica().getReadYourWritesMs();
+    }
+
+    public String currentUser() {
+        String userId = stompUser.get();
+        return userId != null ? userId : SecurityContextUtil.getCurrentUserId();
+    }
+
+    public void bindStompUser(String userId) {
+        stompUser.set(userId);
+    }
+
+    public void clearStompUser() {
+        stompUser.remove();
+    }
+
+    /**
+     * Marks the user once the current transaction commits; a rolled back transaction changed nothing.
+     */
+    public void recordWriteAfterCommit(String userId) {
+        if (userId == null) {
+            return;
+        }
+        afterCommit(() -> lastWrites.put(userId, System.currentTimeMillis()));
+    }
+
+    public boolean wroteRecently(String userId) {
+        Long writtenAt = userId != null ? lastWrites.get(userId) : null;
+        return writtenAt != null && System.currentTimeMillis() - writtenAt < windowMs;
+    }
+
+    @Scheduled(fixedRate = 60000)
+    public void prune() {
+        long expiredBefore = System.currentTimeMillis() - windowMs;
+        lastWrites.values().removeIf(writtenAt -> writtenAt < expiredBefore);
+    }
+}
@@ -0,0 +1,349 @@
+package be.delomid.oneapp.mschat.mschat.service;
+
+import be.delomid.oneapp.mschat.mschat.config.AppConfig;
+import be.delomid.oneapp.mschat.mschat.dto.MessageDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static be.delomid.oneapp.mschat.mschat.util.TransactionCallbacks.afterCommit;
+
+/**
+ * The latest {@code app.messages.recent-window-size} messages of each channel, kept serialized and keyed by
+ * sequence number. It serves the first page of {@code GET /messages/channel/{id}} and reconnect catch-up
+ * without a query.
+ * <p>
+ * Sends, edits and deletions are applied after their transaction commits. Commits of one channel happen in
+ * sequence order, but the callbacks may run concurrently, so a window can briefly miss a sequence number;
+ * {@link #after} only returns a contiguous run. A first page read from the database is only seeded if no
+ * mutation of the channel was applied since {@link #beginSeed}, which the caller takes before the read; mutations
+ * are counted in a fixed array of generations shared by hash, so reads never create a window. All windows
+ * together stay under
+ * {@code app.messages.recent-cache-max-bytes}: past it, the least recently read channels are evicted.
+ */
+@Service
+@Slf4j
+public class RecentMessageCache {
+
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final AppConfig.Messages config;
+    private final ObjectMapper objectMapper;
+
+    private final Map<Long, ChannelWindow> windows = new ConcurrentHashMap<>();
+    // Envois, modifications et suppressions appliqués, par groupe de canaux ; une collision ne fait qu'annuler un seed
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final Counter pageHits;
+    private final Counter pageMisses;
+    private final Counter resumeHits;
+    private final Counter resumeMisses;
+    private final Counter evictions;
+
+    public RecentMessageCache(AppConfig appConfig, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.config = appConfig.getMessages();
+        this.objectMapper = objectMapper;
+        this.pageHits = meterRegistry.counter("messages.recent.requests", "path", "page", "result", "hit");
+        this.pageMisses = meterRegistry.counter("messages.recent.requests", "path", "page", "result", "miss");
+        this.resumeHits = meterRegistry.counter("messages.recent.requests", "path", "resume", "result", "hit");
+        this.resumeMisses = meterRegistry.counter("messages.recent.requests", "path", "resume", "result", "miss");
+        this.evictions = meterRegistry.counter("messages.recent.evictions");
+        meterRegistry.gauge("messages.recent.bytes", totalBytes);
+        meterRegistry.gaugeMapSize("messages.recent.channels", List.of(), windows);
+        meterRegistry.gauge("messages.recent.hit.ratio", this, RecentMessageCache::hitRatio);
+    }
+
+    public void append(MessageDto message) {
+        if (message.getSequenceNumber() == null) {
+            return;
+        }
+        byte[] json = serialize(message);
+        if (json == null) {
+            return;
+        }
+        afterCommit(() -> {
+            generations.incrementAndGet(stripe(message.getChannelId()));
+            ChannelWindow window = windows.computeIfAbsent(message.getChannelId(), id -> new ChannelWindow());
+            synchronized (window) {
+                // Déjà présent : lu en base après le commit par un seed, donc déjà compté
+                if (put(window, message.getSequenceNumber(), new Entry(json, false)) == null) {
+                    window.visibleCount.updateAndGet(count -> count < 0 ? count : count + 1);
+                }
+                trim(window);
+            }
+            enforceBudget();
+        });
+    }
+
+    /**
+     * Replaces an edited message if its channel window still holds it.
+     */
+    public void update(MessageDto message) {
+        replace(message, false);
+    }
+
+    /**
+     * Replaces a deleted message and keeps the channel's visible message count in step.
+     */
+    public void markDeleted(MessageDto message, boolean alreadyDeleted) {
+        replace(message, !alreadyDeleted);
+    }
+
+    /**
+     * Marks the start of a first-page read from the database, to be passed to {@link #seed}. Does not create
+     * the channel window.
+     */
+    public SeedToken beginSeed(Long channelId) {
+        return new SeedToken(channelId, generations.get(stripe(channelId)));
+    }
+
+    /**
+     * Seeds a channel window from a first page read from the database, along with the channel's total of
+     * visible messages, so later first-page reads are served from memory. The page is dropped if a send, edit
+     * or deletion of the channel was applied since {@link #beginSeed}: it may predate them.
+     */
+    public void seed(SeedToken token, List<MessageDto> newestFirst, long visibleCount) {
+        if (newestFirst.size() > config.getRecentWindowSize()) {
+            return;
+        }
+        List<Map.Entry<Long, byte[]>> serialized = new ArrayList<>(newestFirst.size());
+        for (MessageDto message : newestFirst) {
+            byte[] json = message.getSequenceNumber() != null ? serialize(message) : null;
+            if (json != null) {
+                serialized.add(Map.entry(message.getSequenceNumber(), json));
+            }
+        }
+
+        // Fenêtre créée seulement si rien n'a été appliqué au canal depuis beginSeed
+        ChannelWindow window = windows.compute(token.channelId, (id, existing) ->
+                generations.get(stripe(id)) != token.generation || existing != null ? existing : new ChannelWindow());
+        if (window == null) {
+            return;
+        }
+        synchronized (window) {
+            if (windows.get(token.channelId) != window || generations.get(stripe(token.channelId)) != token.generation) {
+                return;
+            }
+            for (Map.Entry<Long, byte[]> message : serialized) {
+                // Une entrée déjà présente vient d'un envoi ou d'une modification validés : elle est aussi récente
+                if (window.entries.putIfAbsent(message.getKey(), new Entry(message.getValue(), false)) == null) {
+                    window.bytes.addAndGet(message.getValue().length);
+                    totalBytes.addAndGet(message.getValue().length);
+                }
+            }
+            window.visibleCount.set(visibleCount);
+            window.touch();
+            trim(window);
+        }
+        enforceBudget();
+    }
+
+    /**
+     * First page of visible messages, newest first, or empty when the window cannot prove it holds them all.
+     */
+    public Optional<FirstPage> firstPage(Long channelId, int size) {
+        ChannelWindow window = windows.get(channelId);
+        long visibleCount = window != null ? window.visibleCount.get() : -1;
+        if (visibleCount < 0) {
+            pageMisses.increment();
+            return Optional.empty();
+        }
+
+        List<MessageDto> messages = new ArrayList<>(size);
+        for (Entry entry : window.entries.descendingMap().values()) {
+            if (messages.size() >= size) {
+                break;
+            }
+            if (!entry.deleted()) {
+                MessageDto message = deserialize(entry.json());
+                if (message == null) {
+                    pageMisses.increment();
+                    return Optional.empty();
+                }
+                messages.add(message);
+            }
+        }
+        if (messages.size() < size && messages.size() < visibleCount) {
+            pageMisses.increment();
+            return Optional.empty();
+        }
+        window.touch();
+        pageHits.increment();
+        return Optional.of(new FirstPage(messages, visibleCount));
+    }
+
+    /**
+     * Messages with a sequence number above {@code afterSequence}, in order and without gaps, at most
+     * {@code limit}. {@link Slice#upToDate()} is true when the window proves nothing else was committed
+     * after them; otherwise the caller continues from the database.
+     */
+    public Slice after(Long channelId, long afterSequence, int limit) {
+        ChannelWindow window = windows.get(channelId);
+        if (window == null || window.entries.isEmpty() || window.entries.firstKey() > afterSequence + 1) {
+            resumeMisses.increment();
+            return new Slice(List.of(), false);
+        }
+        window.touch();
+
+        List<MessageDto> messages = new ArrayList<>();
+        long expected = afterSequence + 1;
+        for (Map.Entry<Long, Entry> entry : window.entries.tailMap(afterSequence, false).entrySet()) {
+            if (messages.size() >= limit) {
+                resumeHits.increment();
+                return new Slice(messages, false);
+            }
+            MessageDto message = entry.getKey() == expected ? deserialize(entry.getValue().json()) : null;
+            if (message == null) {
+                resumeMisses.increment();
+                return new Slice(messages, false);
+            }
+            messages.add(message);
+            expected++;
+        }
+        resumeHits.increment();
+        return new Slice(messages, true);
+    }
+
+    private void replace(MessageDto message, boolean newlyDeleted) {
+        byte[] json = message.getSequenceNumber() != null ? serialize(message) : null;
+        afterCommit(() -> {
+            generations.incrementAndGet(stripe(message.getChannelId()));
+            ChannelWindow window = windows.get(message.getChannelId());
+            if (window == null) {
+                return;
+            }
+            synchronized (window) {
+                Entry cached = json != null ? window.entries.get(message.getSequenceNumber()) : null;
+                // Déjà supprimé dans la fenêtre : lu en base après le commit par un seed, donc déjà décompté
+                if (newlyDeleted && (cached == null || !cached.deleted())) {
+                    window.visibleCount.updateAndGet(count -> count <= 0 ? count : count - 1);
+                }
+                if (cached != null) {
+                    put(window, message.getSequenceNumber(), new Entry(json, Boolean.TRUE.equals(message.getIsDeleted())));
+                }
+            }
+        });
+    }
+
+    private static int stripe(Long channelId) {
+        return Math.floorMod(channelId.hashCode(), GENERATION_STRIPES);
+    }
+
+    private Entry put(ChannelWindow window, Long sequenceNumber, Entry entry) {
+        Entry previous = window.entries.put(sequenceNumber, entry);
+        long delta = entry.json().length - (previous != null ? previous.json().length : 0);
+        window.bytes.addAndGet(delta);
+        totalBytes.addAndGet(delta);
+        return previous;
+    }
+
+    private void trim(ChannelWindow window) {
+        while (window.entries.size() > config.getRecentWindowSize()) {
+            Map.Entry<Long, Entry> oldest = window.entries.pollFirstEntry();
+            if (oldest == null) {
+                break;
+            }
+            window.bytes.addAndGet(-oldest.getValue().json().length);
+            totalBytes.addAndGet(-oldest.getValue().json().length);
+        }
+    }
+
+    // Éviction des canaux les moins lus jusqu'à repasser sous 90 % du budget
+    private void enforceBudget() {
+        if (totalBytes.get() <= config.getRecentCacheMaxBytes()) {
+            return;
+        }
+        synchronized (this) {
+            long target = config.getRecentCacheMaxBytes() * 9 / 10;
+            if (totalBytes.get() <= config.getRecentCacheMaxBytes()) {
+                return;
+            }
+            List<Map.Entry<Long, ChannelWindow>> coldestFirst = new ArrayList<>(windows.entrySet());
+            coldestFirst.sort(Comparator.comparingLong(entry -> entry.getValue().lastAccess));
+            int evicted = 0;
+            for (Map.Entry<Long, ChannelWindow> entry : coldestFirst) {
+                if (totalBytes.get() <= target) {
+                    break;
+                }
+                if (windows.remove(entry.getKey(), entry.getValue())) {
+                    totalBytes.addAndGet(-entry.getValue().bytes.get());
+                    evicted++;
+                }
+            }
+            evictions.increment(evicted);
+            log.debug("Recent message cache over budget: {} channels evicted, {} bytes kept", evicted, totalBytes.get());
+        }
+    }
+
+    private double hitRatio() {
+        double hits = pageHits.count() + resumeHits.count();
+        double total = hits + pageMisses.count() + resumeMisses.count();
+        return total == 0 ? 0 : hits / total;
+    }
+
+    private byte[] serialize(MessageDto message) {
+        try {
+            return objectMapper.writeValueAsBytes(message);
+        } catch (JsonProcessingException e) {
+            log.warn("Message {} could not be cached: {}", message.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    private MessageDto deserialize(byte[] json) {
+        try {
+            return objectMapper.readValue(json, MessageDto.class);
+        } catch (IOException e) {
+            log.warn("Cached message could not be read: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    public record Slice(List<MessageDto> messages, boolean upToDate) {
+    }
+
+    public record FirstPage(List<MessageDto> messages, long totalElements) {
+    }
+
+    /**
+     * Channel generation observed before a first-page read.
+     */
+    public static final class SeedToken {
+        private final Long channelId;
+        private final long generation;
+
+        private SeedToken(Long channelId, long generation) {
+            this.channelId = channelId;
+            this.generation = generation;
+        }
+    }
+
+    private record Entry(byte[] json, boolean deleted) {
+    }
+
+    private static final class ChannelWindow {
+        private final ConcurrentSkipListMap<Long, Entry> entries = new ConcurrentSkipListMap<>();
+        private final AtomicLong bytes = new AtomicLong();
+        // Messages visibles (non supprimés) du canal, -1 tant qu'aucune première page n'a été lue en base
+        private final AtomicLong visibleCount = new AtomicLong(-1);
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        private void touch() {
+            lastAccess = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package be.delomid.oneapp.mschat.mschat.service;
+
+import be.delomid.oneapp.mschat.mschat.config.AppConfig;
+import be.delomid.oneapp.mschat.mschat.dto.DirectoryEntryDto;
+import be.delomid.oneapp.mschat.mschat.repository.ResidentBuildingRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static be.delomid.oneapp.mschat.mschat.util.TransactionCallbacks.afterCommit;
+
+/**
+ * Paginated resident directory of a building, read through one DTO projection and cached per building.
+ * Every cached page carries an ETag computed from its content, so unchanged pages are answered with
+ * {@code 304 Not Modified}. Services that change memberships, names or apartment assignments call
+ * {@link #invalidate(String)} or {@link #invalidateAll()}.
+ */
+@Service
+@Slf4j
+public class ResidentDirectoryService {
+
+    private final ResidentBuildingRepository residentBuildingRepository;
+    private final DirectorySearchService directorySearchService;
+    private final AppConfig.Directory config;
+
+    // Pages en cache, la moins récemment lue est évincée au-delà de app.directory.cache-max-entries
+    private final Map<PageKey, DirectoryPage> cache;
+
+    // Incrémentées à chaque invalidation : une page lue avant l'invalidation n'est pas gardée en cache
+    private final Map<String, Long> generations = new ConcurrentHashMap<>();
+    private final AtomicLong globalGeneration = new AtomicLong();
+
+    public ResidentDirectoryService(ResidentBuildingRepository residentBuildingRepository,
+                                    DirectorySearchService directorySearchService,
+                                    AppConfig appConfig) {
+        this.residentBuildingRepository = residentBuildingRepository;
+        this.directorySearchService = directorySearchService;
+        this.config = appConfig.getDirectory();
+        int maxEntries = config.getCacheMaxEntries();
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<PageKey, DirectoryPage> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    public DirectoryPage getDirectory(String buildingId, int page, int size, Authentication authentication) {
+        directorySearchService.checkBuildingAccess(buildingId, authentication);
+
+        int pageSize = Math.max(1, Math.min(size, config.getMaxPageSize()));
+        PageKey pageKey = new PageKey(buildingId, Math.max(0, page), pageSize);
+
+        DirectoryPage cached = cache.get(pageKey);
+        if (cached != null && !cached.isExpired(config.getCacheTtlSeconds())) {
+            return cached;
+        }
+
+        long generation = generationOf(buildingId);
+        Page<DirectoryEntryDto> result = residentBuildingRepository.findDirectoryByBuildingId(
+                buildingId, PageRequest.of(pageKey.page(), pageSize));
+        DirectoryPage directoryPage = new DirectoryPage(result, etagOf(buildingId, result), System.currentTimeMillis());
+
+        cache.put(pageKey, directoryPage);
+        // Invalidé pendant la lecture : la page peut précéder le changement, elle est servie sans être gardée
+        if (generationOf(buildingId) != generation) {
+            cache.remove(pageKey, directoryPage);
+        }
+        return directoryPage;
+    }
+
+    public void invalidate(String buildingId) {
+        afterCommit(() -> evict(buildingId));
+    }
+
+    public void invalidate(Collection<String> buildingIds) {
+        afterCommit(() -> buildingIds.forEach(this::evict));
+    }
+
+    // Pour les changements dont on ne connaît pas les immeubles concernés (nom, suppression d'un résident)
+    public void invalidateAll() {
+        afterCommit(() -> {
+            globalGeneration.incrementAndGet();
+            cache.clear();
+        });
+    }
+
+    private void evict(String buildingId) {
+        generations.merge(buildingId, 1L, Long::sum);
+        synchronized (cache) {
+            cache.keySet().removeIf(key -> key.buildingId().equals(buildingId));
+        }
+    }
+
+    private long generationOf(String buildingId) {
+        return globalGeneration.get() + generations.getOrDefault(buildingId, 0L);
+    }
+
+    private static String etagOf(String buildingId, Page<DirectoryEntryDto> page) {
+        String content = buildingId + "|" + page.getTotalElements() + "|" + page.getContent();
+        return "\"" + DigestUtils.md5DigestAsHex(content.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    private record PageKey(String buildingId, int page, int size) {
+    }
+
+    public record DirectoryPage(Page<DirectoryEntryDto> page, String etag, long loadedAt) {
+
+        boolean isExpired(long ttlSeconds) {
+            return System.currentTimeMillis() - loadedAt > ttlSeconds * 1000;
+        }
+    }
+}
@@ -30,6 +30,9 @@ public class ResidentService {
     private final ResidentRepository residentRepository;
     private final ApartmentRepository apartmentRepository;
     private final PasswordEncoder passwordEncoder;
+    private final TokenVersionService tokenVersionService;
+    private final DirectorySearchService directorySearchService;
+    private final ResidentDirectoryService residentDirectoryService;
 
     @Transactional
     public ResidentDto createResident(CreateResidentRequest request) {
@@ -100,16 +103,24 @@ public class ResidentService {
             }
         });
 
+        boolean credentialsChanged = !resident.getEmail().equals(request.getEmail());
+
         resident.setFname(request.getFname());
         resident.setLname(request.getLname());
         resident.setEmail(request.getEmail());
         if (request.getPassword() != null && !request.getPassword().isEmpty()) {
             resident.setPassword(passwordEncoder.encode(request.getPassword()));
+            credentialsChanged = true;
+        }
+        if (credentialsChanged) {
+            tokenVersionService.revoke(resident);
         }
         resident.setPhoneNumber(request.getPhoneNumber());
         resident.setPicture(request.getPicture());
 
         resident = residentRepository.save(resident);
+        directorySearchService.indexResident(resident);
+        residentDirectoryService.invalidateAll();
         return convertToDto(resident);
     }
 
@@ -126,6 +137,9 @@ public class ResidentService {
         });
 
         residentRepository.deleteById(userId);
+        tokenVersionService.forget(userId);
+        directorySearchService.removeResident(userId);
+        residentDirectoryService.invalidateAll();
         log.debug("Resident deleted: {}", userId);
     }
 
@@ -0,0 +1,55 @@
+package be.delomid.oneapp.mschat.mschat.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Disk reads and writes of uploaded files, timed in {@code storage.io} and sized in {@code storage.io.bytes},
+ * tagged by store ({@code files}, {@code documents}) and operation.
+ */
+@Component
+public class StorageMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    public StorageMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public long write(String store, InputStream content, Path target) throws IOException {
+        long start = System.nanoTime();
+        long bytes = Files.copy(content, target, StandardCopyOption.REPLACE_EXISTING);
+        record(store, "write", bytes, start);
+        return bytes;
+    }
+
+    public byte[] read(String store, Path source) throws IOException {
+        long start = System.nanoTime();
+        byte[] content = Files.readAllBytes(source);
+        record(store, "read", content.length, start);
+        return content;
+    }
+
+    private void record(String store, String operation, long bytes, long start) {
+        Timer.builder("storage.io")
+                .tag("store", store)
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("storage.io.bytes")
+                .baseUnit("bytes")
+                .tag("store", store)
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .record(bytes);
+    }
+}
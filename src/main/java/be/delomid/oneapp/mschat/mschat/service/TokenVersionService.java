@@ -0,0 +1,78 @@
+package be.delomid.oneapp.mschat.mschat.service;
+
+import be.delomid.oneapp.mschat.mschat.model.Resident;
+import be.delomid.oneapp.mschat.mschat.repository.ResidentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static be.delomid.oneapp.mschat.mschat.util.TransactionCallbacks.afterCommit;
+
+/**
+ * Per-resident token version used to revoke JWTs without a database lookup per request.
+ * The column {@code residents.token_version} is the source of truth; each node keeps an
+ * in-memory copy and picks up revocations made on other nodes through {@link #syncFromDatabase()}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TokenVersionService {
+
+    private static final long UNKNOWN_RESIDENT = -1L;
+
+    private final ResidentRepository residentRepository;
+    private final Map<String, Long> versions = new ConcurrentHashMap<>();
+    private volatile LocalDateTime lastSync = LocalDateTime.now();
+
+    public long versionOf(Resident resident) {
+        return resident.getTokenVersion() != null ? resident.getTokenVersion() : 0L;
+    }
+
+    public boolean isCurrent(String residentId, Long tokenVersion) {
+        if (residentId == null || tokenVersion == null) {
+            return false;
+        }
+        long current = versions.computeIfAbsent(residentId, id ->
+                residentRepository.findTokenVersionById(id)
+                        .map(version -> version != null ? version : 0L)
+                        .orElse(UNKNOWN_RESIDENT));
+        return current != UNKNOWN_RESIDENT && current == tokenVersion;
+    }
+
+    /**
+     * Invalidates every token issued so far for this resident.
+     * The caller is expected to save the resident in the current transaction.
+     */
+    public void revoke(Resident resident) {
+        long next = versionOf(resident) + 1;
+        resident.setTokenVersion(next);
+        String residentId = resident.getIdUsers();
+
+        afterCommit(() -> versions.put(residentId, next));
+        log.debug("Tokens revoked for resident: {} (version {})", residentId, next);
+    }
+
+    public void forget(String residentId) {
+        versions.put(residentId, UNKNOWN_RESIDENT);
+    }
+
+    // Récupérer les révocations faites sur les autres nœuds
+    @Scheduled(fixedDelayString = "${app.security.token-version-sync-ms:5000}")
+    public void syncFromDatabase() {
+        LocalDateTime now = LocalDateTime.now();
+        // Recouvrement d'une période pour ne pas rater les commits tardifs
+        List<Object[]> updated = residentRepository.findTokenVersionsUpdatedSince(lastSync.minusSeconds(30));
+        for (Object[] row : updated) {
+            String residentId = (String) row[0];
+            Long version = (Long) row[1];
+            versions.computeIfPresent(residentId, (id, cached) -> version != null ? version : 0L);
+        }
+        lastSync = now;
+    }
+}
@@ -5,6 +5,8 @@ import be.delomid.oneapp.mschat.mschat.exception.UnauthorizedAccessException;
 import be.delomid.oneapp.mschat.mschat.interceptor.JwtWebSocketInterceptor;
 import be.delomid.oneapp.mschat.mschat.model.*;
 import be.delomid.oneapp.mschat.mschat.repository.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -18,6 +20,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import static be.delomid.oneapp.mschat.mschat.util.TransactionCallbacks.afterCommit;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -30,6 +34,7 @@ public class VoteService {
     private final ChannelMemberRepository channelMemberRepository;
     private final ResidentRepository residentRepository;
     private final ResidentBuildingRepository residentBuildingRepository;
+    private final MeterRegistry meterRegistry;
 
     @Transactional
     public VoteDto createVote(CreateVoteRequest request, String createdBy) {
@@ -70,8 +75,28 @@ public class VoteService {
         return convertToDto(vote, createdBy);
     }
 
+    /**
+     * Records the ballot, timed in {@code votes.submit} by outcome and counted per building in
+     * {@code votes.submitted}. Accepted ballots are measured once the transaction commits.
+     */
     @Transactional
     public void submitVote(VoteRequest request, String userId) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Vote vote;
+        try {
+            vote = recordBallot(request, userId);
+        } catch (RuntimeException e) {
+            sample.stop(meterRegistry.timer("votes.submit", "outcome", "rejected"));
+            throw e;
+        }
+        String buildingId = vote.getChannel().getBuildingId();
+        afterCommit(() -> {
+            sample.stop(meterRegistry.timer("votes.submit", "outcome", "accepted"));
+            meterRegistry.counter("votes.submitted", "building", buildingId != null ? buildingId : "none").increment();
+        });
+    }
+
+    private Vote recordBallot(VoteRequest request, String userId) {
         Vote vote = voteRepository.findById(request.getVoteId())
                 .orElseThrow(() -> new IllegalArgumentException("Vote not found: " + request.getVoteId()));
 
@@ -120,6 +145,7 @@ public class VoteService {
         }
 
         log.debug("User {} voted on vote {}", userId, request.getVoteId());
+        return vote;
     }
 
     public List<VoteDto> getChannelVotes(Long channelId, String userId) {
@@ -0,0 +1,81 @@
+package be.delomid.oneapp.mschat.mschat.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel: expiring keys are dropped into one of {@code wheelSize} buckets according to
+ * their deadline tick, and each tick only scans its own bucket. Scheduling is O(1) and expiry costs
+ * are proportional to the number of due keys rather than to the total number of keys.
+ * Expiry may fire up to one full rotation late under contention, so callers must still check deadlines.
+ */
+@Slf4j
+public class HashedTimingWheel<K> implements AutoCloseable {
+
+    private final long tickMillis;
+    private final Queue<Slot<K>>[] buckets;
+    private final Consumer<K> onExpire;
+    private final ScheduledExecutorService ticker;
+    private volatile long currentTick;
+
+    @SuppressWarnings("unchecked")
+    public HashedTimingWheel(String name, long tickMillis, int wheelSize, Consumer<K> onExpire) {
+        this.tickMillis = tickMillis;
+        this.onExpire = onExpire;
+        this.buckets = new Queue[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void schedule(K key, long delayMillis) {
+        long ticks = Math.max(1, (delayMillis + tickMillis - 1) / tickMillis);
+        long deadlineTick = currentTick + ticks;
+        buckets[(int) (deadlineTick % buckets.length)].add(new Slot<>(key, deadlineTick));
+    }
+
+    void tick() {
+        long tick = ++currentTick;
+        Iterator<Slot<K>> iterator = buckets[(int) (tick % buckets.length)].iterator();
+        while (iterator.hasNext()) {
+            Slot<K> slot = iterator.next();
+            if (slot.deadlineTick <= tick) {
+                iterator.remove();
+                try {
+                    onExpire.accept(slot.key);
+                } catch (Exception e) {
+                    log.warn("Timing wheel expiry callback failed for {}: {}", slot.key, e.getMessage());
+                }
+            }
+        }
+    }
+
+    public int pendingCount() {
+        int count = 0;
+        for (Queue<Slot<K>> bucket : buckets) {
+            count += bucket.size();
+        }
+        return count;
+    }
+
+    @Override
+    public void close() {
+        ticker.shutdownNow();
+    }
+
+    private record Slot<K>(K key, long deadlineTick) {
+    }
+}
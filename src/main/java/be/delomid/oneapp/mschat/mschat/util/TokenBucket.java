@@ -0,0 +1,40 @@
+package be.delomid.oneapp.mschat.mschat.util;
+
+/**
+ * Classic token bucket: holds up to {@code capacity} tokens and refills continuously
+ * at {@code refillPerMinute} tokens per minute.
+ */
+public class TokenBucket {
+
+    private final double capacity;
+    private final double refillPerNanos;
+    private double tokens;
+    private long lastRefillNanos;
+
+    public TokenBucket(int capacity, int refillPerMinute) {
+        this.capacity = capacity;
+        this.refillPerNanos = refillPerMinute / 60_000_000_000d;
+        this.tokens = capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    public synchronized boolean tryConsume() {
+        refill();
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized boolean isFull() {
+        refill();
+        return tokens >= capacity;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * refillPerNanos);
+        lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,185 @@
+package be.delomid.oneapp.mschat.mschat.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory trigram index for typeahead search.
+ * <p>
+ * Every token is indexed with two leading pad characters, so one- and two-letter queries become
+ * token-prefix lookups ({@code "  j"}, {@code " je"}) and longer queries match anywhere in a token.
+ * Text is lower-cased and stripped of accents, so "Hélène" matches "hel". Multi-word queries must match
+ * every word. Reads are lock-free; writes are serialized.
+ */
+public class TrigramIndex<K> {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final Map<String, Set<K>> postings = new ConcurrentHashMap<>();
+    private final Map<K, String> texts = new ConcurrentHashMap<>();
+    private final Comparator<Match<K>> order = Comparator.<Match<K>>comparingInt(Match::rank).thenComparing(Match::text);
+
+    public synchronized void put(K key, String... fields) {
+        remove(key);
+        String text = normalize(String.join(" ", nonNull(fields)));
+        if (text.isEmpty()) {
+            return;
+        }
+        texts.put(key, text);
+        for (String gram : indexGrams(text)) {
+            postings.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(key);
+        }
+    }
+
+    public synchronized void remove(K key) {
+        String previous = texts.remove(key);
+        if (previous == null) {
+            return;
+        }
+        for (String gram : indexGrams(previous)) {
+            Set<K> keys = postings.get(gram);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        postings.clear();
+        texts.clear();
+    }
+
+    public int size() {
+        return texts.size();
+    }
+
+    /**
+     * Returns at most {@code limit} keys matching every word of the query, entries whose text starts
+     * with the first word first, then in alphabetical order of their indexed text.
+     */
+    public List<K> search(String query, int limit) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        String[] words = normalized.split(" ");
+
+        Set<String> grams = new HashSet<>();
+        for (String word : words) {
+            grams.addAll(queryGrams(word));
+        }
+
+        // Parcourir la plus petite liste et vérifier les autres
+        List<Set<K>> lists = new ArrayList<>(grams.size());
+        for (String gram : grams) {
+            Set<K> keys = postings.get(gram);
+            if (keys == null) {
+                return List.of();
+            }
+            lists.add(keys);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+
+        // Tas borné aux "limit" meilleurs : pas de tri complet pour une lettre qui matche tout l'index
+        PriorityQueue<Match<K>> best = new PriorityQueue<>(limit + 1, order.reversed());
+        boolean gramsAreExact = words.length == 1 && words[0].length() < 3;
+        for (K key : lists.get(0)) {
+            String text = texts.get(key);
+            if (text == null || !containsAll(lists, key) || (!gramsAreExact && !matchesWords(text, words))) {
+                continue;
+            }
+            int rank = text.startsWith(words[0]) ? 0 : 1;
+            Match<K> worst = best.size() == limit ? best.peek() : null;
+            if (worst != null && (rank > worst.rank() || (rank == worst.rank() && text.compareTo(worst.text()) >= 0))) {
+                continue;
+            }
+            best.add(new Match<>(key, text, rank));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+
+        List<Match<K>> matches = new ArrayList<>(best);
+        matches.sort(order);
+        List<K> result = new ArrayList<>(matches.size());
+        for (Match<K> match : matches) {
+            result.add(match.key());
+        }
+        return result;
+    }
+
+    public static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String stripped = DIACRITICS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARATORS.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private boolean containsAll(List<Set<K>> lists, K key) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).contains(key)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Les trigrammes peuvent se recouper entre mots : on confirme sur le texte
+    private static boolean matchesWords(String text, String[] words) {
+        String padded = " " + text;
+        for (String word : words) {
+            boolean found = word.length() < 3 ? padded.contains(" " + word) : text.contains(word);
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Set<String> indexGrams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (String token : text.split(" ")) {
+            String padded = "  " + token;
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                grams.add(padded.substring(i, i + 3));
+            }
+        }
+        return grams;
+    }
+
+    private static List<String> queryGrams(String word) {
+        if (word.length() < 3) {
+            return List.of(("  " + word).substring(word.length() - 1));
+        }
+        List<String> grams = new ArrayList<>(word.length() - 2);
+        for (int i = 0; i + 3 <= word.length(); i++) {
+            grams.add(word.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    private static String[] nonNull(String[] fields) {
+        String[] values = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            values[i] = fields[i] != null ? fields[i] : "";
+        }
+        return values;
+    }
+
+    private record Match<K>(K key, String text, int rank) {
+    }
+}
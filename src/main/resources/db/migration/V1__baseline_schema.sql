@@ -0,0 +1,341 @@
+-- Schéma de référence, tel que généré par Hibernate (ddl-auto=update) depuis les entités d'origine, avant
+-- les colonnes et tables ajoutées depuis (V2). Une base existante, créée par ddl-auto=update, est marquée à
+-- cette version sans l'exécuter (spring.flyway.baseline-on-migrate) ; une base vide est créée par ce script.
+
+create table addresses (
+    id_address bigint generated by default as identity,
+    pays_id bigint,
+    address varchar(255) not null,
+    address_suite varchar(255),
+    code_postal varchar(255) not null,
+    etat_dep varchar(255),
+    observation TEXT,
+    ville varchar(255) not null,
+    primary key (id_address)
+);
+
+create table apartments (
+    apartment_floor integer,
+    have_balcony_or_terrace boolean,
+    is_furnished boolean,
+    living_area_surface numeric(10,2),
+    number_of_bedrooms integer,
+    number_of_rooms integer,
+    created_at timestamp(6) not null,
+    updated_at timestamp(6),
+    apartment_label varchar(255) not null,
+    apartment_number varchar(255),
+    building_id varchar(255) not null,
+    id_apartment varchar(255) not null,
+    resident_id varchar(255) unique,
+    primary key (id_apartment)
+);
+
+create table buildings (
+    year_of_construction integer,
+    address_id bigint unique,
+    created_at timestamp(6) not null,
+    updated_at timestamp(6),
+    building_id varchar(255) not null,
+    building_label varchar(255) not null,
+    building_number varchar(255),
+    building_picture varchar(255),
+    primary key (building_id)
+);
+
+create table channel_members (
+    can_write boolean,
+    is_active boolean,
+    channel_id bigint not null,
+    id bigint generated by default as identity,
+    joined_at timestamp(6),
+    left_at timestamp(6),
+    role varchar(255) check (role in ('OWNER','ADMIN','MODERATOR','MEMBER')),
+    user_id varchar(255) not null,
+    primary key (id)
+);
+
+create table channels (
+    is_active boolean,
+    is_private boolean,
+    created_at timestamp(6) not null,
+    id bigint generated by default as identity,
+    updated_at timestamp(6),
+    building_group_id varchar(255),
+    building_id varchar(255),
+    created_by varchar(255) not null,
+    description TEXT,
+    name varchar(255) not null,
+    type varchar(255) not null check (type in ('ONE_TO_ONE','GROUP','BUILDING','BUILDING_GROUP','PUBLIC')),
+    primary key (id)
+);
+
+create table countries (
+    code_iso2 varchar(2) not null unique,
+    code_iso3 varchar(3) not null unique,
+    id bigint generated by default as identity,
+    nom varchar(255) not null unique,
+    primary key (id)
+);
+
+create table documents (
+    created_at timestamp(6) not null,
+    file_size bigint,
+    folder_id bigint not null,
+    id bigint generated by default as identity,
+    updated_at timestamp(6),
+    apartment_id varchar(255),
+    building_id varchar(255) not null,
+    description TEXT,
+    file_extension varchar(255),
+    file_path varchar(255) not null,
+    mime_type varchar(255),
+    original_filename varchar(255) not null,
+    stored_filename varchar(255) not null unique,
+    uploaded_by varchar(255) not null,
+    primary key (id)
+);
+
+create table file_attachments (
+    duration integer,
+    created_at timestamp(6) not null,
+    file_size bigint,
+    id bigint generated by default as identity,
+    file_path varchar(255) not null,
+    file_type varchar(255) not null check (file_type in ('IMAGE','AUDIO','VIDEO','DOCUMENT','OTHER')),
+    mime_type varchar(255),
+    original_filename varchar(255) not null,
+    stored_filename varchar(255) not null,
+    thumbnail_path varchar(255),
+    uploaded_by varchar(255) not null,
+    primary key (id)
+);
+
+create table folder_permissions (
+    can_read boolean not null,
+    can_upload boolean not null,
+    created_at timestamp(6) not null,
+    folder_id bigint not null,
+    id bigint generated by default as identity,
+    apartment_id varchar(255),
+    resident_id varchar(255),
+    primary key (id)
+);
+
+create table folders (
+    is_shared boolean,
+    created_at timestamp(6) not null,
+    id bigint generated by default as identity,
+    parent_folder_id bigint,
+    apartment_id varchar(255),
+    building_id varchar(255) not null,
+    created_by varchar(255) not null,
+    folder_path varchar(255) not null,
+    name varchar(255) not null,
+    share_type varchar(255) not null check (share_type in ('PRIVATE','ALL_APARTMENTS','SPECIFIC_APARTMENTS')),
+    primary key (id)
+);
+
+create table messages (
+    is_deleted boolean,
+    is_edited boolean,
+    channel_id bigint not null,
+    created_at timestamp(6) not null,
+    file_attachment_id bigint unique,
+    id bigint generated by default as identity,
+    reply_to_id bigint,
+    updated_at timestamp(6),
+    content TEXT not null,
+    sender_id varchar(255) not null,
+    type varchar(255) check (type in ('TEXT','IMAGE','FILE','AUDIO','VIDEO','SYSTEM')),
+    primary key (id)
+);
+
+create table otp_tokens (
+    is_used boolean,
+    created_at timestamp(6) not null,
+    expires_at timestamp(6) not null,
+    id bigint generated by default as identity,
+    email varchar(255) not null,
+    otp_code varchar(255) not null,
+    otp_type varchar(255) not null check (otp_type in ('LOGIN','REGISTRATION','PASSWORD_RESET')),
+    primary key (id)
+);
+
+create table resident_buildings (
+    is_active boolean,
+    created_at timestamp(6) not null,
+    id bigint generated by default as identity,
+    apartment_id varchar(255),
+    building_id varchar(255) not null,
+    resident_id varchar(255) not null,
+    role_in_building varchar(255) check (role_in_building in ('RESIDENT','BUILDING_ADMIN','GROUP_ADMIN','SUPER_ADMIN')),
+    primary key (id)
+);
+
+create table residents (
+    is_account_non_expired boolean,
+    is_account_non_locked boolean,
+    is_credentials_non_expired boolean,
+    is_enabled boolean,
+    created_at timestamp(6) not null,
+    updated_at timestamp(6),
+    account_status varchar(255) check (account_status in ('PENDING','ACTIVE','BLOCKED','REJECTED')),
+    email varchar(255) not null unique,
+    fname varchar(255) not null,
+    id_users varchar(255) not null,
+    lname varchar(255) not null,
+    managed_building_group_id varchar(255),
+    managed_building_id varchar(255),
+    password varchar(255) not null,
+    phone_number varchar(255),
+    picture varchar(255),
+    role varchar(255) check (role in ('RESIDENT','BUILDING_ADMIN','GROUP_ADMIN','SUPER_ADMIN')),
+    primary key (id_users)
+);
+
+create table user_votes (
+    id bigint generated by default as identity,
+    vote_id bigint not null,
+    vote_option_id bigint not null,
+    voted_at timestamp(6) not null,
+    user_id varchar(255) not null,
+    primary key (id)
+);
+
+create table vote_options (
+    id bigint generated by default as identity,
+    vote_id bigint not null,
+    text varchar(255) not null,
+    primary key (id)
+);
+
+create table votes (
+    is_active boolean,
+    is_anonymous boolean,
+    channel_id bigint not null,
+    created_at timestamp(6) not null,
+    end_date timestamp(6),
+    id bigint generated by default as identity,
+    updated_at timestamp(6),
+    created_by varchar(255) not null,
+    description TEXT,
+    title varchar(255) not null,
+    vote_type varchar(255) check (vote_type in ('SINGLE_CHOICE','MULTIPLE_CHOICE')),
+    primary key (id)
+);
+
+alter table if exists addresses
+   add constraint FKc54x1401rpcx7ix51c6vx8q55
+   foreign key (pays_id)
+   references countries;
+
+alter table if exists apartments
+   add constraint FKr2gnfdtdjbc8uyss7rlsf9jxk
+   foreign key (building_id)
+   references buildings;
+
+alter table if exists apartments
+   add constraint FK8vup46qhe80rq1473by7aa6h7
+   foreign key (resident_id)
+   references residents;
+
+alter table if exists buildings
+   add constraint FKp95lykb389qd8rw53byhlr75l
+   foreign key (address_id)
+   references addresses;
+
+alter table if exists channel_members
+   add constraint FK5w7mqibtg5vbjt7xq6xyhc479
+   foreign key (channel_id)
+   references channels;
+
+alter table if exists documents
+   add constraint FKhpt4i3xgapahny2swakxyyd1i
+   foreign key (apartment_id)
+   references apartments;
+
+alter table if exists documents
+   add constraint FKjq36ghqe8bbkvnuqttnj2x028
+   foreign key (building_id)
+   references buildings;
+
+alter table if exists documents
+   add constraint FK9nqrsj4vj0hi1k55nlwv33cr0
+   foreign key (folder_id)
+   references folders;
+
+alter table if exists folder_permissions
+   add constraint FKrl3vqxexjsvwg7ax6tgqj4ep4
+   foreign key (apartment_id)
+   references apartments;
+
+alter table if exists folder_permissions
+   add constraint FKlu9ek1hggl733adl2by088w80
+   foreign key (folder_id)
+   references folders;
+
+alter table if exists folder_permissions
+   add constraint FKmwwfmfjnh7uqqiqao7i85uqks
+   foreign key (resident_id)
+   references residents;
+
+alter table if exists folders
+   add constraint FKj0gvoul3pa21pyy0f6sq7ccm8
+   foreign key (apartment_id)
+   references apartments;
+
+alter table if exists folders
+   add constraint FKc1v1kw3is28wpmtoco97e13ib
+   foreign key (building_id)
+   references buildings;
+
+alter table if exists folders
+   add constraint FKiohfylsa0e068vfrh56nwqv5w
+   foreign key (parent_folder_id)
+   references folders;
+
+alter table if exists messages
+   add constraint FK3u3ckbhwq9se1cmopk2pq05b2
+   foreign key (channel_id)
+   references channels;
+
+alter table if exists messages
+   add constraint FK5t1qjodpt5u36mcpg5l5774t6
+   foreign key (file_attachment_id)
+   references file_attachments;
+
+alter table if exists resident_buildings
+   add constraint FKd7p9d6la1ln5jbu86nrooxmtn
+   foreign key (apartment_id)
+   references apartments;
+
+alter table if exists resident_buildings
+   add constraint FK247wlxc0ft82m1nw9pqec1gxw
+   foreign key (building_id)
+   references buildings;
+
+alter table if exists resident_buildings
+   add constraint FKtabd2x9rrt6oex8lo7jmv3y8v
+   foreign key (resident_id)
+   references residents;
+
+alter table if exists user_votes
+   add constraint FK9d370dd96dsbj6qwlpx3b0837
+   foreign key (vote_id)
+   references votes;
+
+alter table if exists user_votes
+   add constraint FK6jejn6mad7bdox1orjl7tluf2
+   foreign key (vote_option_id)
+   references vote_options;
+
+alter table if exists vote_options
+   add constraint FKl2akx1lll3m5b004q80729oui
+   foreign key (vote_id)
+   references votes;
+
+alter table if exists votes
+   add constraint FKt3yr49s01y22db7cowhphs3s1
+   foreign key (channel_id)
+   references channels;
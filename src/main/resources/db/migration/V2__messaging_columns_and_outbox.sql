@@ -0,0 +1,69 @@
+-- Colonnes et tables ajoutées aux entités après le schéma de référence (V1).
+-- Idempotent : une base déjà mise à jour par ddl-auto=update avec ces entités les possède en partie.
+-- Le numérotage des messages existants réécrit toute la table : fenêtre de maintenance sur une grosse base.
+
+-- Numéro de séquence par canal et version des messages (rattrapage et événements d'édition)
+ALTER TABLE channels ADD COLUMN IF NOT EXISTS last_message_sequence bigint DEFAULT 0;
+ALTER TABLE messages ADD COLUMN IF NOT EXISTS sequence_number bigint;
+ALTER TABLE messages ADD COLUMN IF NOT EXISTS version bigint DEFAULT 0;
+
+-- Révocation des jetons, présence, tentatives de vérification d'OTP
+ALTER TABLE residents ADD COLUMN IF NOT EXISTS token_version bigint DEFAULT 0;
+ALTER TABLE residents ADD COLUMN IF NOT EXISTS last_seen_at timestamp(6);
+ALTER TABLE otp_tokens ADD COLUMN IF NOT EXISTS attempts integer DEFAULT 0;
+
+-- Messages existants numérotés par ordre d'envoi, à la suite des numéros déjà attribués dans le canal
+UPDATE messages m
+SET sequence_number = numbered.sequence_number
+FROM (SELECT id,
+             COALESCE(MAX(sequence_number) OVER (PARTITION BY channel_id), 0)
+                 + ROW_NUMBER() OVER (PARTITION BY channel_id, sequence_number IS NULL ORDER BY created_at, id)
+                 AS sequence_number,
+             sequence_number IS NULL AS missing
+      FROM messages) numbered
+WHERE m.id = numbered.id
+  AND numbered.missing;
+
+UPDATE channels c
+SET last_message_sequence = latest.sequence_number
+FROM (SELECT channel_id, MAX(sequence_number) AS sequence_number FROM messages GROUP BY channel_id) latest
+WHERE c.id = latest.channel_id
+  AND COALESCE(c.last_message_sequence, 0) < latest.sequence_number;
+
+UPDATE channels SET last_message_sequence = 0 WHERE last_message_sequence IS NULL;
+UPDATE messages SET version = 0 WHERE version IS NULL;
+UPDATE residents SET token_version = 0 WHERE token_version IS NULL;
+UPDATE otp_tokens SET attempts = 0 WHERE attempts IS NULL;
+
+-- Envoi d'emails différé et réessayé (EmailOutboxWorker)
+CREATE TABLE IF NOT EXISTS email_outbox (
+    attempts integer not null,
+    created_at timestamp(6) not null,
+    id bigint generated by default as identity,
+    next_attempt_at timestamp(6) not null,
+    sent_at timestamp(6),
+    last_error varchar(1000),
+    body TEXT not null,
+    recipient varchar(255) not null,
+    status varchar(255) not null check (status in ('PENDING','SENT','FAILED')),
+    subject varchar(255) not null,
+    primary key (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_email_outbox_status_next_attempt
+    ON email_outbox (status, next_attempt_at);
+
+-- Partitions de messages archivées (MessageArchiveService)
+CREATE TABLE IF NOT EXISTS message_archives (
+    range_end date not null,
+    range_start date not null,
+    archived_at timestamp(6) not null,
+    id bigint generated by default as identity,
+    row_count bigint not null,
+    file_path varchar(255) not null,
+    partition_name varchar(255) not null unique,
+    primary key (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_message_archives_range_start
+    ON message_archives (range_start);
@@ -0,0 +1,98 @@
+-- Index dérivés des requêtes des repositories (@Query et méthodes dérivées).
+-- PostgreSQL n'indexe ni les clés étrangères ni les filtres : seuls les clés primaires et les uniques
+-- (apartments.resident_id, buildings.address_id, residents.email...) l'étaient jusqu'ici.
+-- Les filtres fixes is_active = true / is_deleted = false deviennent des index partiels.
+-- Sur une grosse base existante, chaque création bloque les écritures de sa table le temps de la construction :
+-- appliquer cette migration dans une fenêtre de maintenance.
+
+-- messages : pages d'un canal (MessageRepository), y compris après partitionnement
+CREATE INDEX IF NOT EXISTS idx_messages_channel_visible_created
+    ON messages (channel_id, created_at DESC) WHERE is_deleted = false;
+CREATE INDEX IF NOT EXISTS idx_messages_channel_sender_visible_created
+    ON messages (channel_id, sender_id, created_at DESC) WHERE is_deleted = false;
+CREATE INDEX IF NOT EXISTS idx_messages_channel_type_visible_created
+    ON messages (channel_id, type, created_at DESC) WHERE is_deleted = false;
+CREATE INDEX IF NOT EXISTS idx_messages_channel_sequence
+    ON messages (channel_id, sequence_number);
+
+-- channel_members : appartenance vérifiée à chaque envoi et abonnement, liste des canaux d'un utilisateur
+CREATE INDEX IF NOT EXISTS idx_channel_members_channel_user
+    ON channel_members (channel_id, user_id, is_active);
+CREATE INDEX IF NOT EXISTS idx_channel_members_user_active
+    ON channel_members (user_id, channel_id) WHERE is_active = true;
+
+-- channels : canaux d'immeuble, de groupe d'immeubles et publics
+CREATE INDEX IF NOT EXISTS idx_channels_building_type_active
+    ON channels (building_id, type) WHERE is_active = true;
+CREATE INDEX IF NOT EXISTS idx_channels_building_group_type_active
+    ON channels (building_group_id, type) WHERE is_active = true;
+CREATE INDEX IF NOT EXISTS idx_channels_type_active
+    ON channels (type) WHERE is_active = true;
+
+-- resident_buildings : immeubles d'un résident (non filtré pour findLinksByResidentIds), annuaire d'un immeuble
+CREATE INDEX IF NOT EXISTS idx_resident_buildings_resident_active
+    ON resident_buildings (resident_id, is_active);
+CREATE INDEX IF NOT EXISTS idx_resident_buildings_building_role_active
+    ON resident_buildings (building_id, role_in_building) WHERE is_active = true;
+
+-- residents : import d'annuaire, administrateurs, synchronisation des versions de jeton (toutes les 5 s)
+CREATE INDEX IF NOT EXISTS idx_residents_email_lower
+    ON residents (LOWER(email));
+CREATE INDEX IF NOT EXISTS idx_residents_managed_building
+    ON residents (managed_building_id, role) WHERE managed_building_id IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_residents_managed_building_group
+    ON residents (managed_building_group_id, role) WHERE managed_building_group_id IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_residents_updated_at
+    ON residents (updated_at);
+CREATE INDEX IF NOT EXISTS idx_residents_account_status
+    ON residents (account_status);
+
+-- apartments, buildings, addresses
+CREATE INDEX IF NOT EXISTS idx_apartments_building_floor
+    ON apartments (building_id, apartment_floor);
+CREATE INDEX IF NOT EXISTS idx_addresses_ville
+    ON addresses (ville);
+CREATE INDEX IF NOT EXISTS idx_addresses_code_postal
+    ON addresses (code_postal);
+
+-- documents, folders, folder_permissions
+CREATE INDEX IF NOT EXISTS idx_documents_folder_created
+    ON documents (folder_id, created_at DESC);
+CREATE INDEX IF NOT EXISTS idx_documents_building
+    ON documents (building_id);
+CREATE INDEX IF NOT EXISTS idx_documents_apartment
+    ON documents (apartment_id);
+CREATE INDEX IF NOT EXISTS idx_folders_building_parent_name
+    ON folders (building_id, parent_folder_id, name);
+CREATE INDEX IF NOT EXISTS idx_folders_apartment_parent_name
+    ON folders (apartment_id, parent_folder_id, name);
+CREATE INDEX IF NOT EXISTS idx_folders_parent
+    ON folders (parent_folder_id);
+CREATE INDEX IF NOT EXISTS idx_folder_permissions_folder
+    ON folder_permissions (folder_id);
+
+-- file_attachments : fichiers d'un utilisateur et par période
+CREATE INDEX IF NOT EXISTS idx_file_attachments_uploaded_by_type
+    ON file_attachments (uploaded_by, file_type);
+CREATE INDEX IF NOT EXISTS idx_file_attachments_created
+    ON file_attachments (created_at);
+
+-- votes
+CREATE INDEX IF NOT EXISTS idx_votes_channel_created
+    ON votes (channel_id, created_at DESC);
+CREATE INDEX IF NOT EXISTS idx_votes_end_date_active
+    ON votes (end_date) WHERE is_active = true;
+CREATE INDEX IF NOT EXISTS idx_vote_options_vote
+    ON vote_options (vote_id);
+CREATE INDEX IF NOT EXISTS idx_user_votes_vote_user
+    ON user_votes (vote_id, user_id);
+CREATE INDEX IF NOT EXISTS idx_user_votes_option
+    ON user_votes (vote_option_id);
+
+-- otp_tokens, email_outbox : vérifications d'OTP et purges planifiées
+CREATE INDEX IF NOT EXISTS idx_otp_tokens_email_type_created
+    ON otp_tokens (email, otp_type, created_at DESC);
+CREATE INDEX IF NOT EXISTS idx_otp_tokens_expires
+    ON otp_tokens (expires_at);
+CREATE INDEX IF NOT EXISTS idx_email_outbox_sent
+    ON email_outbox (sent_at) WHERE status = 'SENT';
@@ -0,0 +1,5 @@
+-- Emails OTP : abandonnés après l'expiration du code, corps effacé une fois envoyés ou abandonnés
+ALTER TABLE email_outbox ADD COLUMN IF NOT EXISTS expires_at timestamp(6);
+ALTER TABLE email_outbox ALTER COLUMN body DROP NOT NULL;
+
+UPDATE email_outbox SET body = NULL WHERE status IN ('SENT', 'FAILED') AND body IS NOT NULL;
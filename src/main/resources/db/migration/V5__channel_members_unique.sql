@@ -0,0 +1,15 @@
+-- Une seule ligne par membre et par canal : les ajouts concurrents ne créent plus de doublons
+-- Doublons existants : garder la ligne active de plus haut rôle, puis la plus ancienne
+DELETE FROM channel_members cm
+USING (SELECT id,
+              ROW_NUMBER() OVER (
+                  PARTITION BY channel_id, user_id
+                  ORDER BY COALESCE(is_active, false) DESC,
+                           CASE role WHEN 'OWNER' THEN 0 WHEN 'ADMIN' THEN 1 WHEN 'MODERATOR' THEN 2 ELSE 3 END,
+                           id) AS rank
+       FROM channel_members) ranked
+WHERE cm.id = ranked.id
+  AND ranked.rank > 1;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_channel_members_channel_user
+    ON channel_members (channel_id, user_id);
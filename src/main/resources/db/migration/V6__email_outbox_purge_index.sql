@@ -0,0 +1,5 @@
+-- Purge des emails envoyés ou abandonnés (EmailOutboxWorker.cleanupSentEmails) : filtre sur created_at
+DROP INDEX IF EXISTS idx_email_outbox_sent;
+
+CREATE INDEX IF NOT EXISTS idx_email_outbox_finished
+    ON email_outbox (created_at) WHERE status IN ('SENT', 'FAILED');
@@ -0,0 +1,77 @@
+-- Conversion unique de "messages" en table partitionnée par mois sur created_at (PostgreSQL 13+).
+-- À exécuter application arrêtée, sur un schéma à jour des migrations Flyway : psql -v ON_ERROR_STOP=1 -f messages_partitioning.sql
+-- Les partitions suivantes sont créées et archivées par MessageArchiveService (app.message-archive.*).
+-- La clé étrangère vers channels et la contrainte CHECK sur type sont reprises. En revanche, l'unicité de
+-- file_attachment_id est perdue : sur une table partitionnée, une contrainte d'unicité doit inclure created_at.
+-- Après conversion, deux messages peuvent référencer la même pièce jointe.
+
+BEGIN;
+
+LOCK TABLE messages IN ACCESS EXCLUSIVE MODE;
+
+ALTER TABLE messages RENAME TO messages_unpartitioned;
+
+-- L'ancienne table libère les noms de sa clé primaire, de sa séquence d'identité, de son CHECK et de ses index
+ALTER TABLE messages_unpartitioned RENAME CONSTRAINT messages_pkey TO messages_unpartitioned_pkey;
+ALTER TABLE messages_unpartitioned ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE messages_unpartitioned DROP CONSTRAINT IF EXISTS messages_type_check;
+DROP INDEX IF EXISTS idx_messages_channel_visible_created, idx_messages_channel_sender_visible_created,
+    idx_messages_channel_type_visible_created, idx_messages_channel_sequence;
+
+-- Plus d'identité sur la table partitionnée : une séquence reprend la numérotation
+CREATE SEQUENCE messages_id_seq;
+SELECT setval('messages_id_seq', COALESCE((SELECT MAX(id) FROM messages_unpartitioned), 0) + 1, false);
+
+CREATE TABLE messages (
+    id                 BIGINT       NOT NULL DEFAULT nextval('messages_id_seq'),
+    channel_id         BIGINT       NOT NULL REFERENCES channels (id),
+    sequence_number    BIGINT,
+    sender_id          VARCHAR(255) NOT NULL,
+    content            TEXT         NOT NULL,
+    type               VARCHAR(255) CONSTRAINT messages_type_check
+                                    CHECK (type IN ('TEXT', 'IMAGE', 'FILE', 'AUDIO', 'VIDEO', 'SYSTEM')),
+    reply_to_id        BIGINT,
+    file_attachment_id BIGINT REFERENCES file_attachments (id),
+    is_edited          BOOLEAN,
+    is_deleted         BOOLEAN,
+    version            BIGINT,
+    created_at         TIMESTAMP(6) NOT NULL,
+    updated_at         TIMESTAMP(6),
+    -- La clé de partition fait partie de toute contrainte d'unicité
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE messages_id_seq OWNED BY messages.id;
+
+-- Index de db/migration/V3__query_indexes.sql, créés automatiquement sur chaque nouvelle partition
+CREATE INDEX idx_messages_channel_visible_created ON messages (channel_id, created_at DESC) WHERE is_deleted = false;
+CREATE INDEX idx_messages_channel_sender_visible_created
+    ON messages (channel_id, sender_id, created_at DESC) WHERE is_deleted = false;
+CREATE INDEX idx_messages_channel_type_visible_created ON messages (channel_id, type, created_at DESC) WHERE is_deleted = false;
+CREATE INDEX idx_messages_channel_sequence ON messages (channel_id, sequence_number);
+
+-- Une partition par mois, du plus ancien message jusqu'à trois mois après le mois courant
+DO $$
+DECLARE
+    month_start DATE := date_trunc('month', COALESCE((SELECT MIN(created_at) FROM messages_unpartitioned), now()));
+    last_month  DATE := date_trunc('month', now()) + INTERVAL '3 months';
+BEGIN
+    WHILE month_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF messages FOR VALUES FROM (%L) TO (%L)',
+                       'messages_p' || to_char(month_start, 'YYYY_MM'),
+                       month_start, month_start + INTERVAL '1 month');
+        month_start := month_start + INTERVAL '1 month';
+    END LOOP;
+END $$;
+
+INSERT INTO messages (id, channel_id, sequence_number, sender_id, content, type, reply_to_id, file_attachment_id,
+                      is_edited, is_deleted, version, created_at, updated_at)
+SELECT id, channel_id, sequence_number, sender_id, content, type, reply_to_id, file_attachment_id,
+       is_edited, is_deleted, version, created_at, updated_at
+FROM messages_unpartitioned;
+
+DROP TABLE messages_unpartitioned;
+
+COMMIT;
+
+ANALYZE messages;
@@ -0,0 +1,48 @@
+package be.delomid.oneapp.mschat.mschat.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtConfigTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private JwtConfig jwtConfig;
+
+    @BeforeEach
+    void setUp() {
+        jwtConfig = new JwtConfig(meterRegistry);
+        ReflectionTestUtils.setField(jwtConfig, "secret", "mySecretKey123456789012345678901234567890123456789012345678901234567890");
+        ReflectionTestUtils.setField(jwtConfig, "expiration", 86400000L);
+        ReflectionTestUtils.setField(jwtConfig, "refreshExpiration", 604800000L);
+        ReflectionTestUtils.setField(jwtConfig, "verifiedCacheSize", 2);
+        jwtConfig.init();
+    }
+
+    @Test
+    void fullCacheEvictsTheLeastRecentlyUsedToken() {
+        String first = jwtConfig.generateToken("a@mschat.test", "a", "RESIDENT", 0L);
+        String second = jwtConfig.generateToken("b@mschat.test", "b", "RESIDENT", 0L);
+        String third = jwtConfig.generateToken("c@mschat.test", "c", "RESIDENT", 0L);
+
+        jwtConfig.verify(first);
+        jwtConfig.verify(second);
+        jwtConfig.verify(first);
+        jwtConfig.verify(third);
+
+        // Le nouveau token est mis en cache à la place du moins récemment utilisé
+        jwtConfig.verify(third);
+        jwtConfig.verify(first);
+        assertEquals(3.0, cacheHits());
+
+        jwtConfig.verify(second);
+        assertEquals(3.0, cacheHits());
+    }
+
+    private double cacheHits() {
+        return meterRegistry.counter("auth.jwt.verify.cached").count();
+    }
+}
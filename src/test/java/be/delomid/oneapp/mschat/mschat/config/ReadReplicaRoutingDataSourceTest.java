@@ -0,0 +1,95 @@
+package be.delomid.oneapp.mschat.mschat.config;
+
+import be.delomid.oneapp.mschat.mschat.service.ReadYourWritesTracker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReadReplicaRoutingDataSourceTest {
+
+    private final DataSource primary = mock(DataSource.class);
+    private final DataSource replica = mock(DataSource.class);
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+    private ReadYourWritesTracker tracker;
+    private ReadReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        AppConfig appConfig = new AppConfig();
+        tracker = new ReadYourWritesTracker(appConfig);
+        routing = new ReadReplicaRoutingDataSource(primary, replica, appConfig.getReadReplica(), tracker,
+                new SimpleMeterRegistry());
+        routing.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        tracker.clearStompUser();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void readOnlyTransactionsGoToTheReplicaUntilTheUserWrites() throws SQLException {
+        tracker.bindStompUser("user-1");
+        beginTransaction(true);
+        assertSame(replicaConnection, routing.getConnection());
+        endTransaction(false);
+
+        beginTransaction(false);
+        assertSame(primaryConnection, routing.getConnection());
+        endTransaction(true);
+
+        beginTransaction(true);
+        assertSame(primaryConnection, routing.getConnection());
+        endTransaction(false);
+
+        // Les autres utilisateurs restent sur le réplica
+        tracker.bindStompUser("user-2");
+        beginTransaction(true);
+        assertSame(replicaConnection, routing.getConnection());
+        endTransaction(false);
+    }
+
+    @Test
+    void unreachableReplicaSendsReadsToThePrimary() throws SQLException {
+        when(replica.getConnection()).thenThrow(new SQLException("replica down"));
+        routing.checkReplicaLag();
+
+        beginTransaction(true);
+        assertSame(primaryConnection, routing.getConnection());
+        endTransaction(false);
+        assertSame(primaryConnection, routing.getConnection());
+    }
+
+    private static void beginTransaction(boolean readOnly) {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+    }
+
+    private static void endTransaction(boolean commit) {
+        if (commit) {
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+}
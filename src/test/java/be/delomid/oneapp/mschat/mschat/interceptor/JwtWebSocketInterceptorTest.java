@@ -0,0 +1,79 @@
+package be.delomid.oneapp.mschat.mschat.interceptor;
+
+import be.delomid.oneapp.mschat.mschat.config.AppConfig;
+import be.delomid.oneapp.mschat.mschat.repository.ChannelMemberRepository;
+import be.delomid.oneapp.mschat.mschat.service.ChannelSubscriptionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class JwtWebSocketInterceptorTest {
+
+    private JwtWebSocketInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        ChannelMemberRepository channelMemberRepository = mock(ChannelMemberRepository.class);
+        when(channelMemberRepository.existsActiveMember(7L, "r1")).thenReturn(true);
+        ChannelSubscriptionService subscriptionService =
+                new ChannelSubscriptionService(channelMemberRepository, null, null, null, new AppConfig());
+
+        interceptor = new JwtWebSocketInterceptor();
+        ReflectionTestUtils.setField(interceptor, "channelSubscriptionService", subscriptionService);
+    }
+
+    @Test
+    void memberSubscribesToChannelTopics() {
+        assertNotNull(interceptor.preSend(subscribe("/topic/channel/7"), null));
+        assertNotNull(interceptor.preSend(subscribe("/topic/channel/7/typing"), null));
+        assertNotNull(interceptor.preSend(subscribe("/topic/channel/7/events"), null));
+        assertNull(interceptor.preSend(subscribe("/topic/channel/8"), null));
+    }
+
+    @Test
+    void buildingTopicsRequireTheTokenBuilding() {
+        assertNotNull(interceptor.preSend(subscribe("/topic/building/B1/presence"), null));
+        assertNull(interceptor.preSend(subscribe("/topic/building/B2/presence"), null));
+    }
+
+    @Test
+    void patternSubscriptionsAreDenied() {
+        assertNull(interceptor.preSend(subscribe("/topic/channel/*"), null));
+        assertNull(interceptor.preSend(subscribe("/topic/channel/**"), null));
+        assertNull(interceptor.preSend(subscribe("/topic/channel/7/*"), null));
+        assertNull(interceptor.preSend(subscribe("/topic/**"), null));
+        assertNull(interceptor.preSend(subscribe("/topic/building/*/presence"), null));
+        assertNull(interceptor.preSend(subscribe("/topic/channel/{id}"), null));
+        assertNull(interceptor.preSend(subscribe("/user/queue/*"), null));
+    }
+
+    @Test
+    void unknownDestinationsAreDenied() {
+        assertNull(interceptor.preSend(subscribe("/topic/channel/7/other"), null));
+        assertNull(interceptor.preSend(subscribe("/topic/admin"), null));
+        assertNull(interceptor.preSend(subscribe("/queue/errors-userabc123"), null));
+        assertNull(interceptor.preSend(subscribe("/queue/resume"), null));
+    }
+
+    @Test
+    void userDestinationsAreAllowed() {
+        assertNotNull(interceptor.preSend(subscribe("/user/queue/errors"), null));
+        assertNotNull(interceptor.preSend(subscribe("/user/queue/channels"), null));
+    }
+
+    private static Message<byte[]> subscribe(String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setSessionId("s1");
+        accessor.setSubscriptionId("sub-0");
+        accessor.setDestination(destination);
+        accessor.setUser(new JwtWebSocketInterceptor.JwtPrincipal("r1", "r1@mschat.test", "B1"));
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
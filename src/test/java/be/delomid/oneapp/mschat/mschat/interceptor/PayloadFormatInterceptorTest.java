@@ -0,0 +1,108 @@
+package be.delomid.oneapp.mschat.mschat.interceptor;
+
+import be.delomid.oneapp.mschat.mschat.dto.FileAttachmentDto;
+import be.delomid.oneapp.mschat.mschat.dto.MessageDto;
+import be.delomid.oneapp.mschat.mschat.model.FileType;
+import be.delomid.oneapp.mschat.mschat.model.MessageType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PayloadFormatInterceptorTest {
+
+    private ObjectMapper objectMapper;
+    private PayloadFormatInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper().findAndRegisterModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        interceptor = new PayloadFormatInterceptor(objectMapper, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void cborSessionReceivesSlimBinaryPayload() throws Exception {
+        connect("s1", "cbor");
+        byte[] json = objectMapper.writeValueAsBytes(message());
+
+        Message<?> sent = interceptor.preSend(broadcast("s1", json), null);
+
+        assertEquals(MimeTypeUtils.APPLICATION_OCTET_STREAM,
+                SimpMessageHeaderAccessor.wrap(sent).getContentType());
+        assertEquals("cbor", SimpMessageHeaderAccessor.wrap(sent).getFirstNativeHeader("payload-format"));
+        byte[] body = (byte[]) sent.getPayload();
+        assertTrue(body.length < json.length / 2, body.length + " bytes for " + json.length + " bytes of JSON");
+
+        JsonNode decoded = new CBORMapper().readTree(body);
+        assertEquals(42, decoded.get("sequenceNumber").asLong());
+        assertEquals("/files/download/abc.jpg", decoded.get("file").get("downloadPath").asText());
+        assertFalse(decoded.get("file").has("filePath"));
+    }
+
+    @Test
+    void sessionsWithoutHeaderKeepJson() throws Exception {
+        connect("s2", null);
+        Message<?> broadcast = broadcast("s2", objectMapper.writeValueAsBytes(message()));
+
+        assertSame(broadcast, interceptor.preSend(broadcast, null));
+    }
+
+    private void connect(String sessionId, String format) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        accessor.setSessionId(sessionId);
+        if (format != null) {
+            accessor.setNativeHeader("payload-format", format);
+        }
+        interceptor.onConnect(new SessionConnectEvent(this, MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders())));
+    }
+
+    private static Message<byte[]> broadcast(String sessionId, byte[] payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setDestination("/topic/channel/7");
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    private static MessageDto message() {
+        return MessageDto.builder()
+                .id(1001L)
+                .channelId(7L)
+                .sequenceNumber(42L)
+                .senderId("0d4f6c1e-6f6b-4d9e-9a43-2f1c0b7a9e11")
+                .content("Bonjour à tous")
+                .type(MessageType.IMAGE)
+                .fileAttachment(FileAttachmentDto.builder()
+                        .id(5L)
+                        .originalFilename("photo.jpg")
+                        .storedFilename("abc.jpg")
+                        .filePath("/var/oneapp/uploads/abc.jpg")
+                        .downloadUrl("http://192.168.1.8:9090/api/v1/files/download/abc.jpg")
+                        .fileSize(120000L)
+                        .mimeType("image/jpeg")
+                        .fileType(FileType.IMAGE)
+                        .uploadedBy("0d4f6c1e-6f6b-4d9e-9a43-2f1c0b7a9e11")
+                        .createdAt(LocalDateTime.now())
+                        .build())
+                .isEdited(false)
+                .isDeleted(false)
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,129 @@
+package be.delomid.oneapp.mschat.mschat.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs {@code EXPLAIN} for the hot repository queries against a seeded PostgreSQL schema built by the Flyway
+ * migrations, and fails when a plan reads one of their tables with a sequential scan.
+ * <p>
+ * Needs a local PostgreSQL; the {@code query_plans} schema is dropped and recreated on every run:
+ * {@code mvn test -Dtest=QueryPlanTest -Dquery-plans.url=jdbc:postgresql://localhost:5432/mschat_db
+ * -Dquery-plans.username=admin -Dquery-plans.password=...}
+ */
+@EnabledIfSystemProperty(named = "query-plans.url", matches = ".+")
+class QueryPlanTest {
+
+    private static final String SCHEMA = "query_plans";
+
+    // Requêtes SQL telles qu'Hibernate les génère pour les @Query concernés, paramètres remplacés par des valeurs du jeu de test
+    private static final Map<String, String> HOT_QUERIES = new LinkedHashMap<>();
+
+    static {
+        HOT_QUERIES.put("MessageRepository.findByChannelIdOrderByCreatedAtDesc",
+                "SELECT * FROM messages WHERE channel_id = 42 AND is_deleted = false ORDER BY created_at DESC LIMIT 20");
+        HOT_QUERIES.put("MessageRepository.countByChannelId",
+                "SELECT COUNT(*) FROM messages WHERE channel_id = 42 AND is_deleted = false");
+        HOT_QUERIES.put("MessageRepository.findByChannelIdAndSenderIdOrderByCreatedAtDesc",
+                "SELECT * FROM messages WHERE channel_id = 42 AND sender_id = 'user-42' AND is_deleted = false "
+                        + "ORDER BY created_at DESC LIMIT 20");
+        HOT_QUERIES.put("MessageRepository.findByChannelIdAndType",
+                "SELECT * FROM messages WHERE channel_id = 42 AND type = 'IMAGE' AND is_deleted = false "
+                        + "ORDER BY created_at DESC LIMIT 20");
+        HOT_QUERIES.put("MessageRepository.findByChannelIdAfterSequence",
+                "SELECT * FROM messages m LEFT JOIN file_attachments f ON f.id = m.file_attachment_id "
+                        + "WHERE m.channel_id = 42 AND m.sequence_number > 10 ORDER BY m.sequence_number LIMIT 200");
+        HOT_QUERIES.put("FileAttachmentRepository.findByChannelIdAndFileTypes",
+                "SELECT f.* FROM file_attachments f JOIN messages m ON m.file_attachment_id = f.id "
+                        + "WHERE m.channel_id = 42 AND f.file_type IN ('IMAGE', 'VIDEO') ORDER BY f.created_at DESC LIMIT 20");
+        HOT_QUERIES.put("ChannelMemberRepository.existsActiveMember",
+                "SELECT COUNT(*) > 0 FROM channel_members WHERE channel_id = 42 AND user_id = 'user-42' AND is_active = true");
+        HOT_QUERIES.put("ChannelMemberRepository.findActiveByChannelId",
+                "SELECT * FROM channel_members WHERE channel_id = 42 AND is_active = true");
+        HOT_QUERIES.put("ChannelRepository.findChannelsByUserId",
+                "SELECT c.* FROM channels c JOIN channel_members m ON m.channel_id = c.id "
+                        + "WHERE m.user_id = 'user-42' AND m.is_active = true AND c.is_active = true LIMIT 20");
+        HOT_QUERIES.put("ChannelRepository.findSingleByTypeAndBuildingId",
+                "SELECT * FROM channels WHERE type = 'BUILDING' AND building_id = 'building-42' AND is_active = true");
+        HOT_QUERIES.put("ResidentBuildingRepository.findActiveByResidentId",
+                "SELECT * FROM resident_buildings WHERE resident_id = 'user-42' AND is_active = true");
+        HOT_QUERIES.put("ResidentBuildingRepository.findActiveByBuildingId",
+                "SELECT * FROM resident_buildings WHERE building_id = 'building-42' AND is_active = true");
+        HOT_QUERIES.put("ResidentRepository.findTokenVersionsUpdatedSince",
+                "SELECT id_users, token_version FROM residents WHERE updated_at >= now() - interval '35 seconds'");
+        HOT_QUERIES.put("ResidentRepository.findIdsByEmails",
+                "SELECT email, id_users FROM residents WHERE LOWER(email) IN ('user42@example.com', 'user43@example.com')");
+        HOT_QUERIES.put("DocumentRepository.findByFolderIdOrderByCreatedAtDesc",
+                "SELECT * FROM documents WHERE folder_id = 42 ORDER BY created_at DESC");
+        HOT_QUERIES.put("FolderRepository.findByBuildingIdAndParentFolderIsNull",
+                "SELECT * FROM folders WHERE building_id = 'building-42' AND parent_folder_id IS NULL");
+        HOT_QUERIES.put("UserVoteRepository.findByVoteIdAndUserId",
+                "SELECT * FROM user_votes WHERE vote_id = 42 AND user_id = 'user-42'");
+        HOT_QUERIES.put("OtpTokenRepository.findFirstByEmailAndOtpTypeAndIsUsedFalseOrderByCreatedAtDesc",
+                "SELECT * FROM otp_tokens WHERE email = 'user42@example.com' AND otp_type = 'LOGIN' AND is_used = false "
+                        + "ORDER BY created_at DESC LIMIT 1");
+        HOT_QUERIES.put("EmailOutboxRepository.lockDueBatch",
+                "SELECT * FROM email_outbox WHERE status = 'PENDING' AND next_attempt_at <= now() "
+                        + "ORDER BY next_attempt_at LIMIT 20 FOR UPDATE SKIP LOCKED");
+    }
+
+    private static JdbcTemplate jdbcTemplate;
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeAll
+    static void migrateAndSeed() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(System.getProperty("query-plans.url"),
+                System.getProperty("query-plans.username", "postgres"), System.getProperty("query-plans.password", ""));
+        Properties properties = new Properties();
+        properties.setProperty("currentSchema", SCHEMA);
+        dataSource.setConnectionProperties(properties);
+
+        Flyway flyway = Flyway.configure()
+                .dataSource(dataSource)
+                .schemas(SCHEMA)
+                .cleanDisabled(false)
+                .load();
+        flyway.clean();
+        flyway.migrate();
+
+        new ResourceDatabasePopulator(new ClassPathResource("db/query-plans-seed.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @TestFactory
+    Stream<DynamicTest> hotQueriesAvoidSequentialScans() {
+        return HOT_QUERIES.entrySet().stream().map(query -> DynamicTest.dynamicTest(query.getKey(), () -> {
+            String plan = jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + query.getValue(), String.class);
+            List<String> scanned = new ArrayList<>();
+            collectSequentialScans(objectMapper.readTree(plan).get(0).get("Plan"), scanned);
+            assertTrue(scanned.isEmpty(), () -> query.getKey() + " scans " + scanned + " sequentially:\n" + plan);
+        }));
+    }
+
+    private static void collectSequentialScans(JsonNode node, List<String> scanned) {
+        if ("Seq Scan".equals(node.path("Node Type").asText())) {
+            scanned.add(node.path("Relation Name").asText());
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collectSequentialScans(child, scanned);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package be.delomid.oneapp.mschat.mschat.service;
+
+import be.delomid.oneapp.mschat.mschat.config.AppConfig;
+import be.delomid.oneapp.mschat.mschat.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthRateLimiterTest {
+
+    private final AuthRateLimiter rateLimiter = new AuthRateLimiter(new AppConfig(), new SimpleMeterRegistry());
+
+    @Test
+    void loginAttemptsDoNotUseUpVerificationAttempts() {
+        for (int i = 0; i < 5; i++) {
+            rateLimiter.checkLogin("10.0.0.1", "jean@mschat.test");
+        }
+        assertThrows(TooManyRequestsException.class, () -> rateLimiter.checkLogin("10.0.0.1", "Jean@mschat.test"));
+
+        assertDoesNotThrow(() -> rateLimiter.checkVerification("10.0.0.1", "jean@mschat.test"));
+    }
+
+    @Test
+    void verificationsFromAnotherAddressDoNotLockOutTheAccountOwner() {
+        for (int i = 0; i < 5; i++) {
+            rateLimiter.checkVerification("10.0.0.66", "jean@mschat.test");
+        }
+        assertThrows(TooManyRequestsException.class, () -> rateLimiter.checkVerification("10.0.0.66", "jean@mschat.test"));
+
+        assertDoesNotThrow(() -> rateLimiter.checkVerification("10.0.0.1", "jean@mschat.test"));
+    }
+}
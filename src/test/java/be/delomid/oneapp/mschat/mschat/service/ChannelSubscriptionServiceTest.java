@@ -0,0 +1,44 @@
+package be.delomid.oneapp.mschat.mschat.service;
+
+import be.delomid.oneapp.mschat.mschat.config.AppConfig;
+import be.delomid.oneapp.mschat.mschat.repository.ChannelMemberRepository;
+import be.delomid.oneapp.mschat.mschat.repository.ResidentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ChannelSubscriptionServiceTest {
+
+    private ChannelMemberRepository repository;
+    private ChannelSubscriptionService subscriptionService;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ChannelMemberRepository.class);
+        when(repository.existsActiveMember(anyLong(), anyString())).thenReturn(true);
+
+        AppConfig appConfig = new AppConfig();
+        appConfig.getWebsocket().setSubscriptionCacheSize(2);
+        subscriptionService = new ChannelSubscriptionService(repository, mock(ResidentRepository.class),
+                mock(SimpMessagingTemplate.class), mock(MessageChannel.class), appConfig);
+    }
+
+    @Test
+    void fullCacheEvictsTheLeastRecentlyCheckedMembershipOnly() {
+        assertTrue(subscriptionService.canRead("r1", 1L));
+        assertTrue(subscriptionService.canRead("r1", 2L));
+        assertTrue(subscriptionService.canRead("r1", 1L));
+        assertTrue(subscriptionService.canRead("r1", 3L));
+
+        subscriptionService.canRead("r1", 1L);
+        subscriptionService.canRead("r1", 2L);
+
+        verify(repository, times(1)).existsActiveMember(1L, "r1");
+        verify(repository, times(2)).existsActiveMember(2L, "r1");
+    }
+}
@@ -0,0 +1,108 @@
+package be.delomid.oneapp.mschat.mschat.service;
+
+import be.delomid.oneapp.mschat.mschat.config.AppConfig;
+import be.delomid.oneapp.mschat.mschat.dto.ImportReport;
+import be.delomid.oneapp.mschat.mschat.repository.ApartmentRepository;
+import be.delomid.oneapp.mschat.mschat.repository.BuildingRepository;
+import be.delomid.oneapp.mschat.mschat.repository.ResidentBuildingRepository;
+import be.delomid.oneapp.mschat.mschat.repository.ResidentRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DirectoryImportServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private DirectoryImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        AppConfig appConfig = new AppConfig();
+        importService = new DirectoryImportService(mock(BuildingRepository.class), mock(ApartmentRepository.class),
+                mock(ResidentRepository.class), mock(ResidentBuildingRepository.class), jdbcTemplate,
+                new PasswordHashingService(new BCryptPasswordEncoder(4), appConfig, new SimpleMeterRegistry()),
+                mock(PlatformTransactionManager.class), new ObjectMapper(), mock(DirectorySearchService.class),
+                mock(ResidentDirectoryService.class), appConfig);
+    }
+
+    @Test
+    void rejectedRowCreatesNeitherItsBuildingNorItsApartment() throws Exception {
+        String csv = """
+                building_id,building_label,apartment_id,apartment_label,email,fname,lname,password
+                B1,Résidence du Parc,B1-A1,A1,jean@mschat.test,Jean,Dupont,
+                B2,Les Tilleuls,B2-A1,A1,marie@mschat.test,Marie,Durand,Secret123!
+                """;
+
+        ImportReport report = importService.importDirectory(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), false);
+
+        assertEquals(1, report.getErrorCount());
+        assertEquals(1, report.getRowsImported());
+        assertEquals(1, report.getBuildingsCreated());
+        assertEquals(1, report.getApartmentsCreated());
+        assertEquals(1, report.getResidentsCreated());
+
+        assertEquals(List.of("B2"), insertedIds("INSERT INTO buildings"));
+        assertEquals(List.of("B2-A1"), insertedIds("INSERT INTO apartments"));
+    }
+
+    @Test
+    void laterRowMustDescribeAnEntityItsRejectedPredecessorDescribed() throws Exception {
+        String csv = """
+                building_id,building_label,email,fname,lname,password
+                B1,Résidence du Parc,jean@mschat.test,Jean,,Secret123!
+                B1,,marie@mschat.test,Marie,Durand,Secret123!
+                """;
+
+        ImportReport report = importService.importDirectory(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), false);
+
+        assertEquals(2, report.getErrorCount());
+        assertEquals(0, report.getBuildingsCreated());
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList(), any(int[].class));
+    }
+
+    @Test
+    void globalRolesAreRejectedAsRowErrors() throws Exception {
+        String csv = """
+                building_id,building_label,email,fname,lname,password,role_in_building
+                B1,Résidence du Parc,jean@mschat.test,Jean,Dupont,Secret123!,super_admin
+                B1,Résidence du Parc,marie@mschat.test,Marie,Durand,Secret123!,GROUP_ADMIN
+                B1,Résidence du Parc,paul@mschat.test,Paul,Martin,Secret123!,building_admin
+                """;
+
+        ImportReport report = importService.importDirectory(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), false);
+
+        assertEquals(2, report.getErrorCount());
+        assertEquals(1, report.getResidentsCreated());
+        assertEquals(List.of("BUILDING_ADMIN"), insertedColumn("INSERT INTO resident_buildings", 3));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object> insertedIds(String statementPrefix) {
+        return insertedColumn(statementPrefix, 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object> insertedColumn(String statementPrefix, int column) {
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith(statementPrefix), batch.capture(), any(int[].class));
+        return batch.getValue().stream().map(row -> row[column]).toList();
+    }
+}
@@ -0,0 +1,127 @@
+package be.delomid.oneapp.mschat.mschat.service;
+
+import be.delomid.oneapp.mschat.mschat.config.AppConfig;
+import be.delomid.oneapp.mschat.mschat.model.EmailOutbox;
+import be.delomid.oneapp.mschat.mschat.model.EmailOutboxStatus;
+import be.delomid.oneapp.mschat.mschat.repository.EmailOutboxRepository;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class EmailOutboxWorkerTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private final EmailOutboxRepository repository = mock(EmailOutboxRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void deliversBatchOverSmtpAndMarksEmailsSent() throws Exception {
+        EmailOutboxWorker worker = worker(greenMail.getSmtp().getPort());
+        List<EmailOutbox> batch = List.of(queued("a@mschat.test"), queued("b@mschat.test"));
+
+        worker.deliverBatch(batch);
+
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertEquals(2, received.length);
+        assertEquals("a@mschat.test", received[0].getAllRecipients()[0].toString());
+        assertTrue(batch.stream().allMatch(email -> email.getStatus() == EmailOutboxStatus.SENT));
+        assertTrue(batch.stream().allMatch(email -> email.getBody() == null));
+        assertEquals(2.0, meterRegistry.counter("email.outbox.sent").count());
+    }
+
+    @Test
+    void reschedulesWithBackoffWhenSmtpIsUnreachable() {
+        EmailOutboxWorker worker = worker(1);
+        EmailOutbox email = queued("c@mschat.test");
+        LocalDateTime before = LocalDateTime.now();
+
+        worker.deliverBatch(List.of(email));
+
+        assertEquals(EmailOutboxStatus.PENDING, email.getStatus());
+        assertNotNull(email.getLastError());
+        assertTrue(email.getNextAttemptAt().isAfter(before.plusSeconds(4)));
+        assertEquals(1.0, meterRegistry.counter("email.outbox.retried").count());
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() {
+        EmailOutboxWorker worker = worker(1);
+        EmailOutbox email = queued("d@mschat.test");
+        email.setAttempts(8);
+
+        worker.deliverBatch(List.of(email));
+
+        assertEquals(EmailOutboxStatus.FAILED, email.getStatus());
+        assertNull(email.getBody());
+    }
+
+    @Test
+    void expiredOtpEmailsAreAbandonedInsteadOfSent() {
+        EmailOutboxWorker worker = worker(greenMail.getSmtp().getPort());
+        EmailOutbox expired = queued("e@mschat.test");
+        expired.setExpiresAt(LocalDateTime.now().minusSeconds(1));
+        EmailOutbox valid = queued("f@mschat.test");
+        valid.setExpiresAt(LocalDateTime.now().plusMinutes(10));
+        when(repository.lockDueBatch(any(), anyInt())).thenReturn(List.of(expired, valid));
+
+        worker.deliverDueEmails();
+
+        assertEquals(1, greenMail.getReceivedMessages().length);
+        assertEquals(EmailOutboxStatus.FAILED, expired.getStatus());
+        assertNull(expired.getBody());
+        assertEquals(EmailOutboxStatus.SENT, valid.getStatus());
+        assertEquals(1.0, meterRegistry.counter("email.outbox.expired").count());
+    }
+
+    @Test
+    void cleanupPurgesFailedEmailsAlongWithSentOnes() {
+        worker(1).cleanupSentEmails();
+
+        verify(repository).deleteFinishedBefore(any());
+    }
+
+    @Test
+    void backoffDoublesUpToTheConfiguredMaximum() {
+        EmailOutboxWorker worker = worker(1);
+
+        assertEquals(Duration.ofSeconds(5), worker.backoff(1));
+        assertEquals(Duration.ofSeconds(20), worker.backoff(3));
+        assertEquals(Duration.ofMinutes(10), worker.backoff(30));
+    }
+
+    private EmailOutboxWorker worker(int smtpPort) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(smtpPort);
+        mailSender.getJavaMailProperties().put("mail.smtp.connectiontimeout", "2000");
+
+        return new EmailOutboxWorker(repository, mailSender, mock(PlatformTransactionManager.class),
+                new AppConfig(), meterRegistry);
+    }
+
+    private EmailOutbox queued(String recipient) {
+        return EmailOutbox.builder()
+                .recipient(recipient)
+                .subject("Code de vérification - MSChat")
+                .body("Votre code de vérification est : 123456")
+                .attempts(1)
+                .nextAttemptAt(LocalDateTime.now())
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
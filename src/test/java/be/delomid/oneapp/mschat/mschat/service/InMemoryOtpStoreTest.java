@@ -0,0 +1,69 @@
+package be.delomid.oneapp.mschat.mschat.service;
+
+import be.delomid.oneapp.mschat.mschat.config.AppConfig;
+import be.delomid.oneapp.mschat.mschat.model.OtpType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryOtpStoreTest {
+
+    private InMemoryOtpStore store;
+
+    @AfterEach
+    void tearDown() {
+        store.shutdown();
+    }
+
+    @Test
+    void validCodeCanOnlyBeUsedOnce() {
+        store = store(0);
+        assertTrue(store.save("a@mschat.test", OtpType.LOGIN, "123456", Duration.ofMinutes(10)));
+
+        assertEquals(OtpStore.Verification.VALID, store.verify("a@mschat.test", OtpType.LOGIN, "123456"));
+        assertEquals(OtpStore.Verification.EXPIRED, store.verify("a@mschat.test", OtpType.LOGIN, "123456"));
+    }
+
+    @Test
+    void codeIsInvalidatedAfterMaxAttempts() {
+        store = store(0);
+        store.save("b@mschat.test", OtpType.LOGIN, "123456", Duration.ofMinutes(10));
+
+        assertEquals(OtpStore.Verification.INVALID, store.verify("b@mschat.test", OtpType.LOGIN, "000000"));
+        assertEquals(OtpStore.Verification.INVALID, store.verify("b@mschat.test", OtpType.LOGIN, "000001"));
+        assertEquals(OtpStore.Verification.TOO_MANY_ATTEMPTS, store.verify("b@mschat.test", OtpType.LOGIN, "000002"));
+        assertEquals(OtpStore.Verification.EXPIRED, store.verify("b@mschat.test", OtpType.LOGIN, "123456"));
+    }
+
+    @Test
+    void resendIsThrottledWithinInterval() {
+        store = store(30);
+
+        assertTrue(store.save("c@mschat.test", OtpType.LOGIN, "111111", Duration.ofMinutes(10)));
+        assertFalse(store.save("c@mschat.test", OtpType.LOGIN, "222222", Duration.ofMinutes(10)));
+        assertTrue(store.save("c@mschat.test", OtpType.REGISTRATION, "333333", Duration.ofMinutes(10)));
+        assertEquals(OtpStore.Verification.VALID, store.verify("c@mschat.test", OtpType.LOGIN, "111111"));
+    }
+
+    @Test
+    void expiredCodesAreEvictedByTheTimingWheel() throws InterruptedException {
+        store = store(0);
+        store.save("d@mschat.test", OtpType.LOGIN, "123456", Duration.ofMillis(50));
+
+        Thread.sleep(300);
+
+        assertEquals(0, store.size());
+        assertEquals(OtpStore.Verification.EXPIRED, store.verify("d@mschat.test", OtpType.LOGIN, "123456"));
+    }
+
+    private InMemoryOtpStore store(int resendIntervalSeconds) {
+        AppConfig appConfig = new AppConfig();
+        appConfig.getOtp().setResendIntervalSeconds(resendIntervalSeconds);
+        appConfig.getOtp().setWheelTickMillis(20);
+        appConfig.getOtp().setWheelSize(8);
+        return new InMemoryOtpStore(appConfig);
+    }
+}
@@ -0,0 +1,101 @@
+package be.delomid.oneapp.mschat.mschat.service;
+
+import be.delomid.oneapp.mschat.mschat.config.AppConfig;
+import be.delomid.oneapp.mschat.mschat.dto.MessageDto;
+import be.delomid.oneapp.mschat.mschat.model.MessageArchive;
+import be.delomid.oneapp.mschat.mschat.repository.MessageArchiveRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class MessageArchiveServiceTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void archivedMessagesAreReadNewestFirstAcrossMonths() throws Exception {
+        Path january = writeArchive("messages_p2024_01.ndjson.gz", 1, 2, 3);
+        Path february = writeArchive("messages_p2024_02.ndjson.gz", 4, 5);
+
+        MessageArchiveRepository repository = mock(MessageArchiveRepository.class);
+        when(repository.findByRangeStartBeforeOrderByRangeStartDesc(any())).thenReturn(List.of(
+                archive(february, LocalDate.of(2024, 2, 1)),
+                archive(january, LocalDate.of(2024, 1, 1))));
+        MessageArchiveService service = new MessageArchiveService(null, repository, new ObjectMapper(), new AppConfig());
+
+        List<MessageDto> messages = service.findArchived(7L, LocalDateTime.of(2024, 3, 1, 0, 0), 3);
+
+        assertEquals(List.of(5L, 4L, 3L), messages.stream().map(MessageDto::getId).toList());
+        assertEquals("message 5", messages.get(0).getContent());
+    }
+
+    @Test
+    void deletedMessagesStayHiddenAndMissingFilesAreReported() throws Exception {
+        Path january = directory.resolve("messages_p2024_01.ndjson.gz");
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(january)), StandardCharsets.UTF_8))) {
+            writer.write(row(1, 7L));
+            writer.newLine();
+            writer.write(row(2, 7L).replace("\"is_deleted\":false", "\"is_deleted\":true"));
+            writer.newLine();
+        }
+
+        MessageArchiveRepository repository = mock(MessageArchiveRepository.class);
+        when(repository.findByRangeStartBeforeOrderByRangeStartDesc(any())).thenReturn(List.of(
+                archive(january, LocalDate.of(2024, 1, 1))));
+        MessageArchiveService service = new MessageArchiveService(null, repository, new ObjectMapper(), new AppConfig());
+
+        List<MessageDto> messages = service.findArchived(7L, LocalDateTime.of(2024, 3, 1, 0, 0), 10);
+        assertEquals(List.of(1L), messages.stream().map(MessageDto::getId).toList());
+
+        Files.delete(january);
+        assertThrows(UncheckedIOException.class, () -> service.findArchived(7L, LocalDateTime.of(2024, 3, 1, 0, 0), 10));
+    }
+
+    private Path writeArchive(String name, long... ids) throws Exception {
+        Path file = directory.resolve(name);
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(file)), StandardCharsets.UTF_8))) {
+            for (long id : ids) {
+                // Un message d'un autre canal entre chaque message du canal 7
+                writer.write(row(id, 7L));
+                writer.newLine();
+                writer.write(row(id + 100, 8L));
+                writer.newLine();
+            }
+        }
+        return file;
+    }
+
+    private static String row(long id, long channelId) {
+        return "{\"id\":" + id + ",\"channel_id\":" + channelId + ",\"sequence_number\":" + id
+                + ",\"sender_id\":\"r1\",\"content\":\"message " + id + "\",\"type\":\"TEXT\",\"is_edited\":false,"
+                + "\"is_deleted\":false,\"version\":0,\"created_at\":\"2024-01-0" + Math.min(id, 9) + "T10:00:00\"}";
+    }
+
+    private static MessageArchive archive(Path file, LocalDate month) {
+        return MessageArchive.builder()
+                .partitionName(file.getFileName().toString())
+                .rangeStart(month)
+                .rangeEnd(month.plusMonths(1))
+                .filePath(file.toString())
+                .rowCount(0L)
+                .build();
+    }
+}
@@ -0,0 +1,29 @@
+package be.delomid.oneapp.mschat.mschat.service;
+
+import be.delomid.oneapp.mschat.mschat.config.AppConfig;
+import be.delomid.oneapp.mschat.mschat.model.OtpType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OtpServiceTest {
+
+    private final OtpStore otpStore = mock(OtpStore.class);
+    private final EmailService emailService = mock(EmailService.class);
+    private final OtpService otpService =
+            new OtpService(otpStore, emailService, new AppConfig(), new SimpleMeterRegistry());
+
+    @Test
+    void storesAndVerifiesCodesUnderTheNormalizedEmail() {
+        when(otpStore.save(anyString(), any(), anyString(), any())).thenReturn(true);
+        when(otpStore.verify("jean@mschat.test", OtpType.LOGIN, "123456")).thenReturn(OtpStore.Verification.VALID);
+
+        otpService.generateAndSendOtp(" Jean@MSChat.test", OtpType.LOGIN);
+
+        verify(otpStore).save(eq("jean@mschat.test"), eq(OtpType.LOGIN), anyString(), any());
+        assertTrue(otpService.verifyOtp("JEAN@mschat.test ", "123456", OtpType.LOGIN));
+    }
+}
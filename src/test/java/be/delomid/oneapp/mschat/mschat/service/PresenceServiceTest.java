@@ -0,0 +1,59 @@
+package be.delomid.oneapp.mschat.mschat.service;
+
+import be.delomid.oneapp.mschat.mschat.dto.PresenceDiffDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PresenceServiceTest {
+
+    private SimpMessagingTemplate messagingTemplate;
+    private PresenceService presenceService;
+
+    @BeforeEach
+    void setUp() {
+        messagingTemplate = mock(SimpMessagingTemplate.class);
+        presenceService = new PresenceService(messagingTemplate, null, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void residentStaysOnlineUntilLastDeviceDisconnects() {
+        presenceService.connect("s1", "r1", "B1");
+        presenceService.connect("s2", "r1", "B1");
+
+        presenceService.disconnect("s1");
+        assertTrue(presenceService.isOnline("B1", "r1"));
+
+        presenceService.disconnect("s2");
+        assertFalse(presenceService.isOnline("B1", "r1"));
+    }
+
+    @Test
+    void transitionsAreCoalescedIntoOneDiffPerBuilding() {
+        presenceService.connect("s1", "r1", "B1");
+        presenceService.connect("s2", "r2", "B1");
+        presenceService.disconnect("s1");
+        presenceService.connect("s3", "r3", "B2");
+
+        presenceService.publishDiffs();
+
+        ArgumentCaptor<PresenceDiffDto> diff = ArgumentCaptor.forClass(PresenceDiffDto.class);
+        verify(messagingTemplate).convertAndSend(eq("/topic/building/B1/presence"), diff.capture());
+        assertEquals(List.of("r2"), diff.getValue().getOnline());
+        assertEquals(List.of("r1"), diff.getValue().getOffline());
+        verify(messagingTemplate).convertAndSend(eq("/topic/building/B2/presence"), any(PresenceDiffDto.class));
+
+        presenceService.publishDiffs();
+        verifyNoMoreInteractions(messagingTemplate);
+        assertEquals(Set.of("r2"), presenceService.getOnlineResidents("B1"));
+    }
+}
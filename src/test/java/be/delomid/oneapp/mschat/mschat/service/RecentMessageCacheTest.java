@@ -0,0 +1,129 @@
+package be.delomid.oneapp.mschat.mschat.service;
+
+import be.delomid.oneapp.mschat.mschat.config.AppConfig;
+import be.delomid.oneapp.mschat.mschat.dto.MessageDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecentMessageCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AppConfig appConfig;
+    private RecentMessageCache cache;
+
+    @BeforeEach
+    void setUp() {
+        appConfig = new AppConfig();
+        appConfig.getMessages().setRecentWindowSize(5);
+        cache = new RecentMessageCache(appConfig, new ObjectMapper().findAndRegisterModules(), meterRegistry);
+    }
+
+    @Test
+    void resumeReturnsOnlyContiguousRun() {
+        cache.append(message(1L, 1));
+        cache.append(message(1L, 2));
+        cache.append(message(1L, 4));
+
+        RecentMessageCache.Slice slice = cache.after(1L, 0, 100);
+        assertEquals(List.of(1L, 2L), slice.messages().stream().map(MessageDto::getSequenceNumber).toList());
+        assertFalse(slice.upToDate());
+
+        cache.append(message(1L, 3));
+        slice = cache.after(1L, 1, 100);
+        assertEquals(List.of(2L, 3L, 4L), slice.messages().stream().map(MessageDto::getSequenceNumber).toList());
+        assertTrue(slice.upToDate());
+    }
+
+    @Test
+    void firstPageNeedsSeedAndSkipsDeletedMessages() {
+        cache.append(message(1L, 1));
+        assertTrue(cache.firstPage(1L, 20).isEmpty());
+
+        cache.seed(cache.beginSeed(1L), List.of(message(1L, 2), message(1L, 1)), 2);
+        cache.append(message(1L, 3));
+        MessageDto deleted = message(1L, 2);
+        deleted.setIsDeleted(true);
+        cache.markDeleted(deleted, false);
+
+        RecentMessageCache.FirstPage page = cache.firstPage(1L, 20).orElseThrow();
+        assertEquals(List.of(3L, 1L), page.messages().stream().map(MessageDto::getSequenceNumber).toList());
+        assertEquals(2, page.totalElements());
+    }
+
+    @Test
+    void seedReadBeforeADeleteIsDropped() {
+        RecentMessageCache.SeedToken token = cache.beginSeed(1L);
+        List<MessageDto> readFromDatabase = List.of(message(1L, 2), message(1L, 1));
+
+        MessageDto deleted = message(1L, 2);
+        deleted.setIsDeleted(true);
+        cache.markDeleted(deleted, false);
+        cache.seed(token, readFromDatabase, 2);
+
+        assertTrue(cache.firstPage(1L, 20).isEmpty());
+
+        cache.seed(cache.beginSeed(1L), List.of(message(1L, 1)), 1);
+        RecentMessageCache.FirstPage page = cache.firstPage(1L, 20).orElseThrow();
+        assertEquals(List.of(1L), page.messages().stream().map(MessageDto::getSequenceNumber).toList());
+        assertEquals(1, page.totalElements());
+    }
+
+    @Test
+    void seedReadBeforeASendKeepsTheSentMessageCounted() {
+        RecentMessageCache.SeedToken token = cache.beginSeed(1L);
+        List<MessageDto> readFromDatabase = List.of(message(1L, 1));
+
+        cache.append(message(1L, 2));
+        cache.seed(token, readFromDatabase, 1);
+        assertTrue(cache.firstPage(1L, 20).isEmpty());
+
+        // Relu après le commit de l'envoi : l'envoi déjà appliqué n'est pas recompté
+        cache.seed(cache.beginSeed(1L), List.of(message(1L, 2), message(1L, 1)), 2);
+        assertEquals(2, cache.firstPage(1L, 20).orElseThrow().totalElements());
+    }
+
+    @Test
+    void firstPageReadsOnlyCreateWindowsWhenSeeded() {
+        cache.beginSeed(1L);
+        cache.seed(cache.beginSeed(2L), List.of(message(2L, 2), message(2L, 1)), 2);
+
+        RecentMessageCache.SeedToken token = cache.beginSeed(3L);
+        MessageDto deleted = message(3L, 1);
+        deleted.setIsDeleted(true);
+        cache.markDeleted(deleted, false);
+        cache.seed(token, List.of(message(3L, 1)), 1);
+
+        assertEquals(1.0, meterRegistry.get("messages.recent.channels").gauge().value());
+        assertTrue(cache.firstPage(2L, 20).isPresent());
+    }
+
+    @Test
+    void coldChannelsAreEvictedOverBudget() {
+        appConfig.getMessages().setRecentCacheMaxBytes(600);
+        for (long channelId = 1; channelId <= 10; channelId++) {
+            cache.append(message(channelId, 1));
+        }
+        assertTrue(cache.after(1L, 0, 10).messages().isEmpty());
+        assertEquals(1, cache.after(10L, 0, 10).messages().size());
+    }
+
+    private static MessageDto message(Long channelId, long sequence) {
+        return MessageDto.builder()
+                .id(channelId * 1000 + sequence)
+                .channelId(channelId)
+                .sequenceNumber(sequence)
+                .senderId("r1")
+                .content("message " + sequence)
+                .isEdited(false)
+                .isDeleted(false)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,76 @@
+package be.delomid.oneapp.mschat.mschat.service;
+
+import be.delomid.oneapp.mschat.mschat.config.AppConfig;
+import be.delomid.oneapp.mschat.mschat.dto.DirectoryEntryDto;
+import be.delomid.oneapp.mschat.mschat.repository.ResidentBuildingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ResidentDirectoryServiceTest {
+
+    private ResidentBuildingRepository repository;
+    private ResidentDirectoryService directoryService;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ResidentBuildingRepository.class);
+        when(repository.findDirectoryByBuildingId(anyString(), any(Pageable.class))).thenAnswer(invocation -> page());
+
+        AppConfig appConfig = new AppConfig();
+        appConfig.getDirectory().setCacheMaxEntries(2);
+        directoryService = new ResidentDirectoryService(repository, mock(DirectorySearchService.class), appConfig);
+    }
+
+    @Test
+    void servesRepeatedReadsFromTheCacheUntilInvalidated() {
+        ResidentDirectoryService.DirectoryPage first = directoryService.getDirectory("B1", 0, 20, null);
+        assertSame(first, directoryService.getDirectory("B1", 0, 20, null));
+
+        directoryService.invalidate("B1");
+
+        assertNotSame(first, directoryService.getDirectory("B1", 0, 20, null));
+        verify(repository, times(2)).findDirectoryByBuildingId(eq("B1"), any(Pageable.class));
+    }
+
+    @Test
+    void pageReadBeforeAnInvalidationIsNotCached() {
+        // L'invalidation arrive pendant la lecture : la page lue peut précéder le changement
+        when(repository.findDirectoryByBuildingId(eq("B1"), any(Pageable.class))).thenAnswer(invocation -> {
+            directoryService.invalidate("B1");
+            return page();
+        });
+        directoryService.getDirectory("B1", 0, 20, null);
+
+        when(repository.findDirectoryByBuildingId(eq("B1"), any(Pageable.class))).thenAnswer(invocation -> page());
+        directoryService.getDirectory("B1", 0, 20, null);
+
+        verify(repository, times(2)).findDirectoryByBuildingId(eq("B1"), any(Pageable.class));
+    }
+
+    @Test
+    void fullCacheEvictsTheLeastRecentlyReadPageOnly() {
+        directoryService.getDirectory("B1", 0, 20, null);
+        directoryService.getDirectory("B2", 0, 20, null);
+        directoryService.getDirectory("B1", 0, 20, null);
+        directoryService.getDirectory("B3", 0, 20, null);
+
+        directoryService.getDirectory("B1", 0, 20, null);
+        directoryService.getDirectory("B2", 0, 20, null);
+
+        verify(repository, times(1)).findDirectoryByBuildingId(eq("B1"), any(Pageable.class));
+        verify(repository, times(2)).findDirectoryByBuildingId(eq("B2"), any(Pageable.class));
+    }
+
+    private static Page<DirectoryEntryDto> page() {
+        return new PageImpl<>(List.of(new DirectoryEntryDto()));
+    }
+}
@@ -0,0 +1,65 @@
+package be.delomid.oneapp.mschat.mschat.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrigramIndexTest {
+
+    private TrigramIndex<String> index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TrigramIndex<>();
+        index.put("r1", "Hélène", "Dupont");
+        index.put("r2", "Jean", "Dupuis");
+        index.put("r3", "Jeanne", "Martin");
+        index.put("r4", "Marc", "Lejeune");
+    }
+
+    @Test
+    void shortQueriesMatchTokenPrefixesOnly() {
+        assertEquals(List.of("r2", "r3"), index.search("j", 10));
+        assertEquals(List.of("r2", "r3"), index.search("je", 10));
+        assertEquals(List.of(), index.search("ne", 10));
+    }
+
+    @Test
+    void longerQueriesMatchAnywhereWithPrefixMatchesFirst() {
+        assertEquals(List.of("r4", "r3"), index.search("mar", 10));
+        assertEquals(List.of("r4"), index.search("jeun", 10));
+        assertEquals(List.of("r1"), index.search("upon", 10));
+    }
+
+    @Test
+    void matchingIgnoresCaseAndAccents() {
+        assertEquals(List.of("r1"), index.search("HEL", 10));
+        assertEquals(List.of("r1"), index.search("hélè", 10));
+    }
+
+    @Test
+    void everyWordOfTheQueryMustMatch() {
+        assertEquals(List.of("r2"), index.search("jean dupuis", 10));
+        assertEquals(List.of("r3"), index.search("martin je", 10));
+        assertEquals(List.of(), index.search("jean dupont", 10));
+    }
+
+    @Test
+    void limitKeepsTheBestRankedMatches() {
+        assertEquals(List.of("r2", "r3"), index.search("jean", 2));
+        assertEquals(List.of(), index.search("jean", 0));
+    }
+
+    @Test
+    void updatedAndRemovedEntriesLeaveNoStaleMatches() {
+        index.put("r2", "Paul", "Dupuis");
+        index.remove("r3");
+
+        assertEquals(List.of(), index.search("jean", 10));
+        assertEquals(List.of("r2"), index.search("paul", 10));
+        assertEquals(3, index.size());
+    }
+}
@@ -0,0 +1,98 @@
+-- Jeu de données de QueryPlanTest : volumes d'une résidence de taille moyenne, assez pour que le
+-- planificateur préfère un index lorsqu'il en existe un utilisable.
+
+INSERT INTO countries (id, code_iso2, code_iso3, nom)
+SELECT i, lpad(i::text, 2, '0'), 'C' || lpad(i::text, 2, '0'), 'Pays ' || i FROM generate_series(1, 20) i;
+
+INSERT INTO addresses (id_address, pays_id, address, code_postal, ville)
+SELECT i, 1 + i % 20, i || ' rue du Test', lpad((1000 + i % 900)::text, 4, '0'), 'Ville ' || (i % 400)
+FROM generate_series(1, 2000) i;
+
+INSERT INTO buildings (building_id, building_label, address_id, created_at)
+SELECT 'building-' || i, 'Résidence ' || i, i, now() - i * interval '1 hour' FROM generate_series(1, 2000) i;
+
+INSERT INTO residents (id_users, email, fname, lname, password, role, account_status, managed_building_id,
+                       token_version, created_at, updated_at)
+SELECT 'user-' || i, 'user' || i || '@example.com', 'Prénom ' || i, 'Nom ' || i, 'x',
+       CASE WHEN i % 50 = 0 THEN 'BUILDING_ADMIN' ELSE 'RESIDENT' END,
+       CASE WHEN i % 20 = 0 THEN 'PENDING' ELSE 'ACTIVE' END,
+       CASE WHEN i % 50 = 0 THEN 'building-' || (1 + i % 2000) END,
+       0, now() - interval '400 days', now() - (i % 525600) * interval '1 minute'
+FROM generate_series(1, 40000) i;
+
+INSERT INTO apartments (id_apartment, apartment_label, apartment_floor, building_id, resident_id, created_at)
+SELECT 'apt-' || i, 'Appartement ' || i, i % 10, 'building-' || (1 + i % 2000),
+       CASE WHEN i % 4 <> 0 THEN 'user-' || i END, now()
+FROM generate_series(1, 40000) i;
+
+INSERT INTO resident_buildings (resident_id, building_id, apartment_id, role_in_building, is_active, created_at)
+SELECT 'user-' || i, 'building-' || (1 + i % 2000), 'apt-' || i, 'RESIDENT', i % 10 <> 0, now()
+FROM generate_series(1, 40000) i;
+
+-- Un canal d'immeuble par immeuble, puis des conversations privées et de groupe
+INSERT INTO channels (id, name, type, building_id, created_by, is_active, is_private, last_message_sequence, created_at)
+SELECT i, 'Canal ' || i,
+       CASE WHEN i <= 2000 THEN 'BUILDING' WHEN i % 3 = 0 THEN 'GROUP' ELSE 'ONE_TO_ONE' END,
+       'building-' || (1 + i % 2000), 'user-' || (1 + i % 40000), i % 25 <> 0, i > 2000, 0, now()
+FROM generate_series(1, 20000) i;
+
+INSERT INTO channel_members (channel_id, user_id, role, is_active, can_write, joined_at)
+SELECT 1 + i % 20000, 'user-' || (1 + (i::bigint * 7919) % 40000), 'MEMBER', i % 15 <> 0, true, now()
+FROM generate_series(1, 300000) i;
+
+INSERT INTO file_attachments (id, original_filename, stored_filename, file_path, file_type, uploaded_by, file_size, created_at)
+SELECT i, 'fichier-' || i || '.jpg', 'stored-' || i, '/uploads/stored-' || i,
+       CASE WHEN i % 3 = 0 THEN 'DOCUMENT' ELSE 'IMAGE' END, 'user-' || (1 + i % 40000), 1024,
+       now() - i * interval '1 minute'
+FROM generate_series(1, 20000) i;
+
+INSERT INTO messages (channel_id, sequence_number, sender_id, content, type, file_attachment_id,
+                      is_edited, is_deleted, version, created_at)
+SELECT 1 + i % 20000, i / 20000 + 1, 'user-' || (1 + i % 40000), 'Message ' || i,
+       CASE WHEN i % 25 = 0 THEN 'IMAGE' ELSE 'TEXT' END,
+       CASE WHEN i % 25 = 0 AND i / 25 <= 20000 THEN i / 25 END,
+       false, i % 30 = 0, 0, now() - (500000 - i) * interval '30 seconds'
+FROM generate_series(1, 500000) i;
+
+INSERT INTO folders (id, name, folder_path, building_id, apartment_id, parent_folder_id, created_by, share_type,
+                     is_shared, created_at)
+SELECT i, 'Dossier ' || i, '/dossier-' || i, 'building-' || (1 + i % 2000),
+       CASE WHEN i % 2 = 0 THEN 'apt-' || i END, CASE WHEN i > 4000 THEN 1 + i % 4000 END,
+       'user-' || (1 + i % 40000), 'ALL_APARTMENTS', i % 2 = 1, now()
+FROM generate_series(1, 20000) i;
+
+INSERT INTO folder_permissions (folder_id, apartment_id, can_read, can_upload, created_at)
+SELECT 1 + i % 20000, 'apt-' || (1 + i % 40000), true, false, now() FROM generate_series(1, 20000) i;
+
+INSERT INTO documents (folder_id, building_id, apartment_id, original_filename, stored_filename, file_path,
+                       uploaded_by, created_at)
+SELECT 1 + i % 20000, 'building-' || (1 + i % 2000), CASE WHEN i % 2 = 0 THEN 'apt-' || (1 + i % 40000) END,
+       'document-' || i || '.pdf', 'doc-' || i, '/documents/doc-' || i, 'user-' || (1 + i % 40000),
+       now() - i * interval '1 minute'
+FROM generate_series(1, 100000) i;
+
+INSERT INTO votes (id, channel_id, title, created_by, vote_type, is_active, is_anonymous, end_date, created_at)
+SELECT i, 1 + i % 20000, 'Vote ' || i, 'user-' || (1 + i % 40000), 'SINGLE_CHOICE', i % 4 = 0, false,
+       now() + (i % 60 - 50) * interval '1 day', now() - i * interval '1 hour'
+FROM generate_series(1, 10000) i;
+
+INSERT INTO vote_options (id, vote_id, text)
+SELECT i, 1 + i % 10000, 'Option ' || i FROM generate_series(1, 30000) i;
+
+INSERT INTO user_votes (vote_id, vote_option_id, user_id, voted_at)
+SELECT 1 + (i % 30000) % 10000, 1 + i % 30000, 'user-' || (1 + i % 40000), now()
+FROM generate_series(1, 200000) i;
+
+INSERT INTO otp_tokens (email, otp_code, otp_type, is_used, attempts, expires_at, created_at)
+SELECT 'user' || (1 + i % 40000) || '@example.com', lpad((i % 1000000)::text, 6, '0'), 'LOGIN', i % 5 <> 0, 0,
+       now() - (i % 10000) * interval '1 minute', now() - (i % 10000 + 10) * interval '1 minute'
+FROM generate_series(1, 50000) i;
+
+INSERT INTO email_outbox (recipient, subject, body, status, attempts, next_attempt_at, sent_at, created_at)
+SELECT 'user' || (1 + i % 40000) || '@example.com', 'Sujet', 'Corps',
+       CASE WHEN i % 200 = 0 THEN 'PENDING' ELSE 'SENT' END, 1,
+       now() + (i % 100) * interval '1 minute', CASE WHEN i % 200 <> 0 THEN now() - i * interval '1 minute' END,
+       now() - i * interval '1 minute'
+FROM generate_series(1, 50000) i;
+
+ANALYZE;